@@ -0,0 +1,45 @@
+package com.snakegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Food placement as the board fills up, and the spawn table draw on its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FoodBenchmark {
+    @Param({"30", "200"})
+    private int size;
+
+    @Param({"0", "0.5", "0.9", "0.99"})
+    private double fillRatio;
+
+    private Board board;
+    private GameRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new Board(size, size);
+        random = new GameRandom(42);
+        int target = (int) (board.getCellCount() * fillRatio);
+        while (board.getCellCount() - board.getFreeCount() < target) {
+            board.addSnake(board.randomFreeCell(random));
+        }
+    }
+
+    @Benchmark
+    public Food createRandom() {
+        return Food.createRandom(board, Difficulty.MEDIUM, 1000, random);
+    }
+
+    @Benchmark
+    public PowerUpType pickType() {
+        return SpawnTable.getDefault().pick(Difficulty.MEDIUM, 1000, random);
+    }
+}
@@ -0,0 +1,41 @@
+package com.snakegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Level generation, connectivity repair and dead-end removal per generator
+ * and difficulty, from the default board up to a million cells. Scatter and
+ * symmetric levels get denser with the difficulty; mazes and rooms ignore it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelBenchmark {
+    @Param({"scatter", "maze", "rooms", "symmetric"})
+    private String level;
+
+    @Param
+    private Difficulty difficulty;
+
+    @Param({"30", "1000"})
+    private int size;
+
+    private LevelGenerator generator;
+    private GameRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = LevelGenerator.named(level, difficulty, size, size);
+        random = new GameRandom(42);
+    }
+
+    @Benchmark
+    public LevelLayout build() {
+        return LevelPipeline.build(size, size, false, generator, new int[0], random);
+    }
+}
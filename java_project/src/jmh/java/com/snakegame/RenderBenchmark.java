@@ -0,0 +1,57 @@
+package com.snakegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full {@link GamePanel#paintComponent} pass into an offscreen image,
+ * with a mid-game snake on boards from the default size up to 2000x2000.
+ * Only the viewport is drawn, so cost should not grow with board size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({"30", "200", "2000"})
+    private int boardSize;
+
+    @Param({"3", "40"})
+    private int snakeLength;
+
+    private GamePanel panel;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GameEngine engine = new GameEngine(boardSize, boardSize, Difficulty.EXTREME, false, 42);
+        engine.getSnake().grow(snakeLength - engine.getSnake().getLength());
+        Controller controller = new GreedyController();
+        while (engine.getSnake().getLength() < snakeLength && !engine.isOver()) {
+            engine.step(controller.decide(engine));
+        }
+
+        panel = new GamePanel(null);
+        panel.setSize(panel.getPreferredSize());
+        panel.display(engine);
+        image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        panel.paintComponent(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,96 @@
+package com.snakegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snake body operations at lengths from the starting three segments up to
+ * late-game snakes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 200;
+
+    @Param({"3", "100", "1000", "10000"})
+    private int length;
+
+    private Snake snake;
+    private Board board;
+    private int[] path;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        path = serpentine();
+        board = new Board(WIDTH, HEIGHT);
+        snake = new Snake(2, 0, WIDTH);
+        for (int i = 0; i < snake.getLength(); i++) {
+            board.addSnake(snake.getSegment(i));
+        }
+        next = 3;
+        snake.grow(length - snake.getLength());
+        while (snake.getLength() < length) {
+            moveOnBoard();
+        }
+    }
+
+    /** Boustrophedon walk over the whole board so the snake never crosses itself. */
+    private static int[] serpentine() {
+        int[] cells = new int[WIDTH * HEIGHT];
+        int i = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                cells[i++] = y * WIDTH + ((y & 1) == 0 ? x : WIDTH - 1 - x);
+            }
+        }
+        return cells;
+    }
+
+    private int nextCell() {
+        int cell = path[next];
+        next = (next + 1) % path.length;
+        return cell;
+    }
+
+    private int moveOnBoard() {
+        int head = nextCell();
+        int vacated = snake.move(head);
+        if (vacated >= 0) board.removeSnake(vacated);
+        board.addSnake(head);
+        return vacated;
+    }
+
+    @Benchmark
+    public int move() {
+        return snake.move(nextCell());
+    }
+
+    @Benchmark
+    public int moveWithBoard() {
+        return moveOnBoard();
+    }
+
+    @Benchmark
+    public int growAndMove() {
+        snake.grow(1);
+        return snake.move(nextCell());
+    }
+
+    @Benchmark
+    public boolean collidesWithSelf() {
+        return snake.collidesWithSelf();
+    }
+
+    /** The engine's O(1) equivalent of {@link #collidesWithSelf()}. */
+    @Benchmark
+    public boolean boardCollision() {
+        return board.hasSnake(path[next]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.snakegame;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One batched step of {@link VectorEnv} under a random policy, including the
+ * resets of games that end. Divide by {@code envs} for the cost of a single
+ * env step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VectorEnvBenchmark {
+    private static final int ACTION_SETS = 64;
+
+    @Param({"64", "1024"})
+    private int envs;
+
+    @Param({"MEDIUM", "EXTREME"})
+    private Difficulty difficulty;
+
+    private VectorEnv env;
+    private int[][] actions;
+    private float[] rewards;
+    private boolean[] dones;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int width = GameEngine.DEFAULT_WIDTH;
+        int height = GameEngine.DEFAULT_HEIGHT;
+        env = new VectorEnv(envs, width, height, difficulty, false, 42,
+                VectorEnv.allocateObservations(envs, width, height));
+        GameRandom random = new GameRandom(7);
+        actions = new int[ACTION_SETS][envs];
+        for (int[] set : actions) {
+            for (int i = 0; i < envs; i++) {
+                set[i] = random.nextInt(5) == 0 ? random.nextInt(4) : VectorEnv.STRAIGHT;
+            }
+        }
+        rewards = new float[envs];
+        dones = new boolean[envs];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.close();
+    }
+
+    @Benchmark
+    public boolean[] step() {
+        env.step(actions[next++ & (ACTION_SETS - 1)], rewards, dones);
+        return dones;
+    }
+}
@@ -0,0 +1,362 @@
+package com.snakegame;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Many snakes sharing one board, advanced one tick at a time.
+ * <p>
+ * The board is a single owner grid: each cell holds the id of the snake on it,
+ * {@link #EMPTY} or {@link #OBSTACLE}. A tick runs in phases. Every live snake
+ * first picks and commits its move in parallel, reading only the grid as it
+ * was at the start of the tick. Conflicts are then resolved sequentially in
+ * id order, so the outcome never depends on thread scheduling: heads that
+ * reach the same cell all die, and a head entering a cell that stays occupied
+ * dies, while one entering a tail that moves away this tick is safe. Finally
+ * survivors move and eat in parallel; they touch distinct cells, so the grid
+ * needs no locking. Run {@link #step()} inside a {@link java.util.concurrent.ForkJoinPool}
+ * to choose how many threads the phases use.
+ */
+public class Arena {
+    public static final int EMPTY = -1;
+    public static final int OBSTACLE = -2;
+
+    private final int width;
+    private final int height;
+    private final Difficulty difficulty;
+    private final boolean wallMode;
+    private final GameRandom random;
+
+    private final int[] owner;
+    private final boolean[] food;
+    private final int[] foodCells;
+    private final int[] foodSlot;
+    private int foodCount;
+    private final int foodTarget;
+
+    private final Snake[] snakes;
+    private final ArenaController[] controllers;
+    private final int[] scores;
+    private final DeathCause[] deathCauses;
+    private final long[] diedAt;
+    private final int[] alive;
+    private int aliveCount;
+
+    private final int[] target;
+    private final boolean[] ate;
+    private final int[] claimStamp;
+    private final int[] claimant;
+    private final int[] dying;
+    private int dyingCount;
+    private long tick;
+
+    /**
+     * Creates an arena with {@code snakeCount} snakes placed at random, each
+     * driven by a controller from {@code controllers}.
+     *
+     * @throws IllegalArgumentException if the snakes do not fit on the board
+     */
+    public Arena(int width, int height, Difficulty difficulty, boolean wallMode, int snakeCount,
+                 IntFunction<ArenaController> controllers, long seed) {
+        this(width, height, difficulty, wallMode, LevelGenerator.forDifficulty(difficulty, width, height),
+                snakeCount, controllers, seed);
+    }
+
+    /** Creates an arena whose walls come from {@code level}. */
+    public Arena(int width, int height, Difficulty difficulty, boolean wallMode, LevelGenerator level,
+                 int snakeCount, IntFunction<ArenaController> controllers, long seed) {
+        this.width = width;
+        this.height = height;
+        this.difficulty = difficulty;
+        this.wallMode = wallMode;
+        this.random = new GameRandom(seed);
+        int cells = width * height;
+
+        owner = new int[cells];
+        LevelLayout layout = LevelPipeline.build(width, height, !wallMode, level, new int[0], random.split());
+        for (int cell = 0; cell < cells; cell++) {
+            owner[cell] = layout.isWall(cell) ? OBSTACLE : EMPTY;
+        }
+
+        snakes = new Snake[snakeCount];
+        this.controllers = new ArenaController[snakeCount];
+        scores = new int[snakeCount];
+        deathCauses = new DeathCause[snakeCount];
+        diedAt = new long[snakeCount];
+        alive = new int[snakeCount];
+        target = new int[snakeCount];
+        ate = new boolean[snakeCount];
+        dying = new int[snakeCount];
+        for (int id = 0; id < snakeCount; id++) {
+            snakes[id] = spawnSnake(id);
+            this.controllers[id] = controllers.apply(id);
+            alive[aliveCount++] = id;
+        }
+
+        food = new boolean[cells];
+        foodSlot = new int[cells];
+        foodTarget = Math.max(1, snakeCount / 2);
+        foodCells = new int[foodTarget];
+        spawnFood();
+
+        claimStamp = new int[cells];
+        claimant = new int[cells];
+    }
+
+    private Snake spawnSnake(int id) {
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            int x = 2 + random.nextInt(width - 2);
+            int y = random.nextInt(height);
+            int head = y * width + x;
+            if (owner[head] == EMPTY && owner[head - 1] == EMPTY && owner[head - 2] == EMPTY) {
+                owner[head] = owner[head - 1] = owner[head - 2] = id;
+                return new Snake(x, y, width);
+            }
+        }
+        throw new IllegalArgumentException("No room for snake " + id + " on a "
+                + width + "x" + height + " board");
+    }
+
+    /** Tops the food back up to one piece per two starting snakes. */
+    private void spawnFood() {
+        int attempts = 0;
+        while (foodCount < foodTarget && attempts++ < foodTarget * 8) {
+            int cell = random.nextInt(width * height);
+            if (owner[cell] == EMPTY && !food[cell]) {
+                food[cell] = true;
+                foodSlot[cell] = foodCount;
+                foodCells[foodCount++] = cell;
+            }
+        }
+    }
+
+    private void removeFood(int cell) {
+        int slot = foodSlot[cell];
+        int last = foodCells[--foodCount];
+        foodCells[slot] = last;
+        foodSlot[last] = slot;
+    }
+
+    /** Advances every live snake by one tick. */
+    public void step() {
+        if (isOver()) return;
+        tick++;
+        IntStream.range(0, aliveCount).parallel().forEach(i -> plan(alive[i]));
+        resolve();
+        IntStream.range(0, aliveCount).parallel().forEach(i -> vacate(alive[i]));
+        IntStream.range(0, dyingCount).parallel().forEach(i -> clearBody(dying[i]));
+        IntStream.range(0, aliveCount).parallel().forEach(i -> advance(alive[i]));
+        for (int i = 0; i < aliveCount; i++) {
+            if (ate[alive[i]]) removeFood(target[alive[i]]);
+        }
+        spawnFood();
+    }
+
+    /** Decide phase: asks the controller and stores the cell the head moves to. */
+    private void plan(int id) {
+        Snake snake = snakes[id];
+        snake.setDirection(controllers[id].decide(this, id));
+        target[id] = neighbour(snake.getHeadCell(), snake.turn());
+    }
+
+    /**
+     * Counts the claims on each target cell, then applies the collision rules
+     * in id order and drops the snakes that die from the live list.
+     */
+    private void resolve() {
+        int stamp = (int) tick;
+        for (int i = 0; i < aliveCount; i++) {
+            int cell = target[alive[i]];
+            if (cell < 0) continue;
+            if (claimStamp[cell] != stamp) {
+                claimStamp[cell] = stamp;
+                claimant[cell] = alive[i];
+            } else {
+                claimant[cell] = EMPTY;
+            }
+        }
+        dyingCount = 0;
+        int survivors = 0;
+        for (int i = 0; i < aliveCount; i++) {
+            int id = alive[i];
+            DeathCause cause = collision(id, target[id]);
+            if (cause == null) {
+                alive[survivors++] = id;
+            } else {
+                deathCauses[id] = cause;
+                diedAt[id] = tick;
+                dying[dyingCount++] = id;
+            }
+        }
+        aliveCount = survivors;
+    }
+
+    private DeathCause collision(int id, int cell) {
+        if (cell < 0) return DeathCause.WALL;
+        int occupant = owner[cell];
+        if (occupant == OBSTACLE) return DeathCause.OBSTACLE;
+        if (claimant[cell] != id) return DeathCause.HEAD_ON;
+        if (occupant == EMPTY || isVacating(occupant, cell)) return null;
+        return occupant == id ? DeathCause.SELF : DeathCause.RIVAL;
+    }
+
+    /** Whether {@code cell} is the tail of snake {@code id} and moves away this tick. */
+    private boolean isVacating(int id, int cell) {
+        Snake snake = snakes[id];
+        return snake.getTailCell() == cell && snake.getPendingGrowth() == 0;
+    }
+
+    private void vacate(int id) {
+        Snake snake = snakes[id];
+        if (snake.getPendingGrowth() == 0) {
+            owner[snake.getTailCell()] = EMPTY;
+        }
+    }
+
+    private void clearBody(int id) {
+        Snake snake = snakes[id];
+        for (int i = 0; i < snake.getLength(); i++) {
+            int cell = snake.getSegment(i);
+            if (owner[cell] == id) owner[cell] = EMPTY;
+        }
+    }
+
+    /** Move phase: pushes the head onto its claimed cell and eats any food there. */
+    private void advance(int id) {
+        int cell = target[id];
+        snakes[id].move(cell);
+        owner[cell] = id;
+        ate[id] = food[cell];
+        if (food[cell]) {
+            food[cell] = false;
+            snakes[id].grow(PowerUpType.FOOD.getGrowAmount());
+            scores[id] += PowerUpType.FOOD.getBasePoints();
+        }
+    }
+
+    /**
+     * The cell one step from {@code cell} in direction {@code dir}, wrapping
+     * around the edges unless walls are on.
+     *
+     * @return the cell, or {@code -1} if it lies past a wall
+     */
+    public int neighbour(int cell, Direction dir) {
+        int x = cell % width + dir.getDx();
+        int y = cell / width + dir.getDy();
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            if (wallMode) return -1;
+            x = Math.floorMod(x, width);
+            y = Math.floorMod(y, height);
+        }
+        return y * width + x;
+    }
+
+    /** Steps between two cells, taking the wraparound into account when walls are off. */
+    public int distance(int from, int to) {
+        int dx = Math.abs(from % width - to % width);
+        int dy = Math.abs(from / width - to / width);
+        if (!wallMode) {
+            dx = Math.min(dx, width - dx);
+            dy = Math.min(dy, height - dy);
+        }
+        return dx + dy;
+    }
+
+    /** The food closest to {@code cell}, or {@code -1} if there is none. */
+    public int nearestFood(int cell) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < foodCount; i++) {
+            int d = distance(cell, foodCells[i]);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = foodCells[i];
+            }
+        }
+        return best;
+    }
+
+    /** Whether the arena is decided: at most one snake is left, or none if it started alone. */
+    public boolean isOver() {
+        return aliveCount == 0 || (aliveCount == 1 && snakes.length > 1);
+    }
+
+    /** Id of the snake on {@code cell}, or {@link #EMPTY} / {@link #OBSTACLE}. */
+    public int getOwner(int cell) {
+        return owner[cell];
+    }
+
+    public boolean isBlocked(int cell) {
+        return owner[cell] != EMPTY;
+    }
+
+    /** Whether {@code cell} holds the head of a live snake other than {@code id}. */
+    public boolean isRivalHead(int cell, int id) {
+        int occupant = owner[cell];
+        return occupant >= 0 && occupant != id && snakes[occupant].getHeadCell() == cell;
+    }
+
+    public boolean hasFood(int cell) {
+        return food[cell];
+    }
+
+    public int getFoodCount() {
+        return foodCount;
+    }
+
+    public Snake getSnake(int id) {
+        return snakes[id];
+    }
+
+    public boolean isAlive(int id) {
+        return deathCauses[id] == null;
+    }
+
+    public int getScore(int id) {
+        return scores[id];
+    }
+
+    /** Cause of death, or {@code null} while the snake is alive. */
+    public DeathCause getDeathCause(int id) {
+        return deathCauses[id];
+    }
+
+    /** Tick on which the snake died, or {@code 0} while it is alive. */
+    public long getDiedAt(int id) {
+        return diedAt[id];
+    }
+
+    /** Ids of the live snakes in ascending order. */
+    public int[] getAlive() {
+        return Arrays.copyOf(alive, aliveCount);
+    }
+
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public boolean isWallMode() {
+        return wallMode;
+    }
+}
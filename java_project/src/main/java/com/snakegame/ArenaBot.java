@@ -0,0 +1,47 @@
+package com.snakegame;
+
+/**
+ * Arena bot: chases the nearest food like {@link GreedyController}, but steers
+ * clear of cells a rival head could also reach and of dead-end pockets. The
+ * target is only looked up again once it has been eaten, so a tick costs a
+ * few grid reads per snake.
+ */
+public class ArenaBot implements ArenaController {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int HEAD_ON_PENALTY = 1_000;
+    private static final int DEAD_END_PENALTY = 10_000;
+
+    private int target = -1;
+
+    @Override
+    public Direction decide(Arena arena, int id) {
+        Snake snake = arena.getSnake(id);
+        int head = snake.getHeadCell();
+        if (target < 0 || !arena.hasFood(target)) {
+            target = arena.nearestFood(head);
+        }
+
+        Direction best = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (Direction dir : DIRECTIONS) {
+            if (dir.isOpposite(snake.getDirection())) continue;
+            int cell = arena.neighbour(head, dir);
+            if (cell < 0 || arena.isBlocked(cell)) continue;
+
+            int cost = target < 0 ? 0 : arena.distance(cell, target);
+            int exits = 0;
+            for (Direction next : DIRECTIONS) {
+                int beyond = arena.neighbour(cell, next);
+                if (beyond < 0 || beyond == head) continue;
+                if (arena.isRivalHead(beyond, id)) cost += HEAD_ON_PENALTY;
+                if (!arena.isBlocked(beyond)) exits++;
+            }
+            if (exits == 0) cost += DEAD_END_PENALTY;
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = dir;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,17 @@
+package com.snakegame;
+
+/**
+ * Decides the next move of one snake in an {@link Arena}. Each snake gets its
+ * own instance, and {@link #decide} is called concurrently for different
+ * snakes, so implementations may keep per-snake state but must only read the
+ * arena.
+ */
+public interface ArenaController {
+    /**
+     * Chooses the input for the next tick.
+     *
+     * @param id index of the snake being driven
+     * @return the direction to turn, or {@code null} to keep going straight
+     */
+    Direction decide(Arena arena, int id);
+}
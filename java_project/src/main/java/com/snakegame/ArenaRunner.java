@@ -0,0 +1,153 @@
+package com.snakegame;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs one headless {@link Arena} battle and reports how long each tick took
+ * against the difficulty's tick delay, plus the final standings.
+ * <p>
+ * Usage: {@code --arena [--snakes N] [--width N] [--height N] [--difficulty NAME]
+ * [--walls on|off] [--level scatter|maze|rooms|symmetric] [--max-ticks N] [--seed N] [--threads N]}
+ */
+public class ArenaRunner {
+    private static final int REPORT_EVERY = 1_000;
+    private static final int STANDINGS = 10;
+
+    private int snakes = 1_000;
+    private int width = 500;
+    private int height = 500;
+    private Difficulty difficulty = Difficulty.MEDIUM;
+    private boolean wallMode = true;
+    private String level = "scatter";
+    private LevelGenerator generator;
+    private long maxTicks = 10_000;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private long[] tickNanos = new long[1024];
+
+    public static void main(String[] args) {
+        ArenaRunner runner = new ArenaRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        runner.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--arena")) continue;
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--snakes" -> snakes = Integer.parseInt(value);
+                case "--width" -> width = Integer.parseInt(value);
+                case "--height" -> height = Integer.parseInt(value);
+                case "--difficulty" -> difficulty = Difficulty.valueOf(value.toUpperCase());
+                case "--walls" -> wallMode = switch (value) {
+                    case "on" -> true;
+                    case "off" -> false;
+                    default -> throw new IllegalArgumentException("--walls must be on or off");
+                };
+                case "--level" -> level = value;
+                case "--max-ticks" -> maxTicks = Long.parseLong(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        generator = LevelGenerator.named(level, difficulty, width, height);
+    }
+
+    private void run() {
+        System.out.printf("Arena: %,d snakes on a %dx%d %s board, %s / %s, %d threads%n", snakes,
+                width, height, level, difficulty.getDisplayName(), wallMode ? "walls" : "wrap", threads);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Arena arena = pool.submit(() -> new Arena(width, height, difficulty, wallMode, generator, snakes,
+                    id -> new ArenaBot(), seed)).get();
+            pool.submit(() -> play(arena)).get();
+            printTiming(arena);
+            printStandings(arena);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Arena failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void play(Arena arena) {
+        long windowNanos = 0;
+        while (!arena.isOver() && arena.getTick() < maxTicks) {
+            long start = System.nanoTime();
+            arena.step();
+            long elapsed = System.nanoTime() - start;
+            int index = (int) arena.getTick() - 1;
+            if (index == tickNanos.length) {
+                tickNanos = Arrays.copyOf(tickNanos, index * 2);
+            }
+            tickNanos[index] = elapsed;
+            windowNanos += elapsed;
+            if (arena.getTick() % REPORT_EVERY == 0) {
+                System.out.printf("  tick %,d: %,d alive, %,d food, mean tick %,.0f µs%n",
+                        arena.getTick(), arena.getAliveCount(), arena.getFoodCount(),
+                        windowNanos / 1_000.0 / REPORT_EVERY);
+                windowNanos = 0;
+            }
+        }
+    }
+
+    private void printTiming(Arena arena) {
+        int ticks = (int) arena.getTick();
+        if (ticks == 0) return;
+        long[] sorted = Arrays.copyOf(tickNanos, ticks);
+        Arrays.sort(sorted);
+        long budget = difficulty.getDelayMs() * 1_000_000L;
+        long over = Arrays.stream(sorted).filter(nanos -> nanos > budget).count();
+        System.out.printf("%,d ticks, %,d alive at the end%n", ticks, arena.getAliveCount());
+        System.out.printf("  tick time  mean %,.0f µs  p50 %,d µs  p99 %,d µs  max %,d µs%n",
+                Arrays.stream(sorted).average().orElse(0) / 1_000,
+                sorted[ticks / 2] / 1_000, sorted[(int) (ticks * 0.99)] / 1_000,
+                sorted[ticks - 1] / 1_000);
+        System.out.printf("  budget %d ms per tick, exceeded on %,d ticks%n",
+                difficulty.getDelayMs(), over);
+
+        long[] deaths = new long[DeathCause.values().length];
+        for (int id = 0; id < arena.getSnakeCount(); id++) {
+            if (!arena.isAlive(id)) deaths[arena.getDeathCause(id).ordinal()]++;
+        }
+        StringBuilder causes = new StringBuilder("  deaths");
+        for (DeathCause cause : DeathCause.values()) {
+            causes.append(String.format("  %s %,d", cause.name().toLowerCase(), deaths[cause.ordinal()]));
+        }
+        System.out.println(causes);
+    }
+
+    private void printStandings(Arena arena) {
+        Comparator<Integer> ranking = Comparator
+                .comparing((Integer id) -> arena.isAlive(id) ? Long.MAX_VALUE : arena.getDiedAt(id))
+                .thenComparing(arena::getScore)
+                .reversed()
+                .thenComparing(id -> id);
+        System.out.println("Standings:");
+        IntStream.range(0, arena.getSnakeCount()).boxed()
+                .sorted(ranking)
+                .limit(STANDINGS)
+                .forEach(id -> System.out.printf("  snake %-5d score %,7d  length %,5d  %s%n", id,
+                        arena.getScore(id), arena.getSnake(id).getLength(),
+                        arena.isAlive(id) ? "alive" : "died on tick " + arena.getDiedAt(id)
+                                + " (" + arena.getDeathCause(id).name().toLowerCase() + ")"));
+    }
+}
@@ -0,0 +1,363 @@
+package com.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Bot that plays for real: it takes the shortest path to the food found by
+ * breadth-first search, but only if the tail is still reachable from the
+ * first step, and otherwise chases its own tail to buy time. Searches know
+ * how long each body cell stays occupied, so a route may pass through a cell
+ * the tail will have left by the time the head gets there.
+ * <p>
+ * On an obstacle-free board with an even side it instead lays its body along
+ * a Hamiltonian cycle, which visits every cell and can never trap itself. It
+ * cuts across the cycle towards the food while the snake is short, and once
+ * it fills half the board follows the cycle strictly until the board is full.
+ * <p>
+ * All search buffers are sized to the board once and reused every tick, and
+ * each decision stops searching when its time budget runs out, falling back
+ * to the first move that does not collide immediately. Instances keep state
+ * between ticks, so use one per game.
+ */
+public class AutopilotController implements Controller {
+    public static final long DEFAULT_BUDGET_MICROS = 1_000;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    /** Cells expanded between clock checks. */
+    private static final int CLOCK_INTERVAL = 256;
+    /** Share of the board the snake must cover before it stops cutting across the cycle. */
+    private static final double CYCLE_FILL = 0.5;
+    /** Growth a single food can add, kept free ahead of the head when cutting across the cycle. */
+    private static final int MAX_FOOD_GROWTH = 3;
+
+    private final long budgetNanos;
+    private int width;
+    private int height;
+    private boolean wallMode;
+    private int[] queue;
+    private int[] distance;
+    private byte[] firstMove;
+    private int[] parent;
+    private int[] visited;
+    /** For body cells, the number of moves until the tail has left them. */
+    private int[] freeAt;
+    /* Path to the food while checking it is safe; see tailReachableAfterEating. */
+    private int[] pathMark;
+    private int[] pathFreeAt;
+    private int pathStamp;
+    private int ateAt = Integer.MAX_VALUE;
+    private int stamp;
+    /** Cells reached by the last {@link #search}. */
+    private int reached;
+    private int[] cycleNext;
+    private int[] cycleIndex;
+    private long deadline;
+    private boolean timedOut;
+
+    public AutopilotController() {
+        this(DEFAULT_BUDGET_MICROS);
+    }
+
+    public AutopilotController(long budgetMicros) {
+        this.budgetNanos = budgetMicros * 1_000;
+    }
+
+    @Override
+    public Direction decide(GameEngine engine) {
+        deadline = System.nanoTime() + budgetNanos;
+        timedOut = false;
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        prepare(engine);
+        markBody(snake);
+
+        if (cycleNext != null) {
+            Direction move = followCycle(engine, board, snake);
+            if (move != null) return move;
+            int head = snake.getHeadCell();
+            int next = cycleNext[head];
+            if (isOpen(board, next, 1) && search(board, next, 1, snake.getTailCell()) >= 0) {
+                return directionTo(head, next);
+            }
+        }
+
+        Direction move = pathToFood(engine, board, snake);
+        if (move == null && !timedOut) move = chaseTail(board, snake);
+        if (move == null && !timedOut) move = roomiest(board, snake);
+        return move != null ? move : firstSafe(board, snake);
+    }
+
+    /** (Re)sizes the buffers and cycle when the board changes. */
+    private void prepare(GameEngine engine) {
+        Board board = engine.getBoard();
+        wallMode = engine.isWallMode();
+        if (queue != null && board.getWidth() == width && board.getHeight() == height) return;
+        width = board.getWidth();
+        height = board.getHeight();
+        int cells = board.getCellCount();
+        queue = new int[cells];
+        distance = new int[cells];
+        firstMove = new byte[cells];
+        visited = new int[cells];
+        freeAt = new int[cells];
+        parent = new int[cells];
+        pathMark = new int[cells];
+        pathFreeAt = new int[cells];
+        stamp = 0;
+        pathStamp = 1;
+        cycleNext = engine.getLayout().getWallCount() == 0 ? hamiltonianCycle(width, height) : null;
+        if (cycleNext != null) {
+            cycleIndex = new int[cells];
+            for (int i = 0, cell = 0; i < cells; i++, cell = cycleNext[cell]) {
+                cycleIndex[cell] = i;
+            }
+        }
+    }
+
+    /**
+     * Once the body runs forward along the cycle from tail to head, the cells
+     * ahead of the head up to the tail are all free, so the snake may cut
+     * across to any of them short of the food without ever trapping itself.
+     * Returns {@code null} while the body is not laid out that way yet.
+     */
+    private Direction followCycle(GameEngine engine, Board board, Snake snake) {
+        int cells = cycleIndex.length;
+        int tailIndex = cycleIndex[snake.getTailCell()];
+        int headOffset = 0;
+        for (int i = snake.getLength() - 2; i >= 0; i--) {
+            int offset = Math.floorMod(cycleIndex[snake.getSegment(i)] - tailIndex, cells);
+            if (offset <= headOffset) return null;
+            headOffset = offset;
+        }
+
+        int head = snake.getHeadCell();
+        int foodOffset = cells;
+        int foodCell = engine.getFoodCell();
+        if (foodCell >= 0) {
+            foodOffset = Math.floorMod(cycleIndex[foodCell] - tailIndex, cells);
+        }
+        boolean shortcuts = snake.getLength() < CYCLE_FILL * cells;
+        int margin = snake.getPendingGrowth() + MAX_FOOD_GROWTH;
+        Direction best = null;
+        int bestOffset = headOffset;
+        for (Direction dir : DIRECTIONS) {
+            int next = neighbour(head, dir);
+            if (!isOpen(board, next, 1)) continue;
+            int offset = Math.floorMod(cycleIndex[next] - tailIndex, cells);
+            if (offset == 0) offset = cells;
+            boolean shortcut = next != cycleNext[head];
+            if (shortcut && (!shortcuts || offset > foodOffset || cells - offset <= margin)) continue;
+            if (offset > bestOffset) {
+                bestOffset = offset;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    /** Records after how many moves each body cell will have been left behind. */
+    private void markBody(Snake snake) {
+        int length = snake.getLength();
+        int growth = snake.getPendingGrowth();
+        for (int i = length - 1; i >= 0; i--) {
+            freeAt[snake.getSegment(i)] = length - i + growth;
+        }
+    }
+
+    private Direction pathToFood(GameEngine engine, Board board, Snake snake) {
+        int foodCell = engine.getFoodCell();
+        if (foodCell < 0) return null;
+        int head = snake.getHeadCell();
+        int moves = search(board, head, 0, foodCell);
+        if (moves < 0) return null;
+
+        Direction move = DIRECTIONS[firstMove[foodCell]];
+        if (snake.getLength() < 4 || tailReachableAfterEating(board, snake, foodCell, moves)) {
+            return move;
+        }
+        return null;
+    }
+
+    /**
+     * Whether the head could still reach the tail after following the path
+     * just found and eating. The path cells become the front of a virtual
+     * body one segment longer, and the rest of the body is delayed by the
+     * growth.
+     */
+    private boolean tailReachableAfterEating(Board board, Snake snake, int foodCell, int moves) {
+        int length = snake.getLength() + 1;
+        int virtualTail = -1;
+        int cell = foodCell;
+        for (int k = moves; k >= 1; k--) {
+            pathMark[cell] = pathStamp;
+            pathFreeAt[cell] = length + k;
+            if (moves - k == length - 1) virtualTail = cell;
+            cell = parent[cell];
+        }
+        if (virtualTail < 0) virtualTail = snake.getSegment(length - 1 - moves);
+
+        ateAt = moves;
+        boolean reachable = search(board, foodCell, moves, virtualTail) >= 0;
+        ateAt = Integer.MAX_VALUE;
+        if (++pathStamp == 0) {
+            Arrays.fill(pathMark, 0);
+            pathStamp = 1;
+        }
+        return reachable;
+    }
+
+    /** The move that keeps the tail reachable by the longest route. */
+    private Direction chaseTail(Board board, Snake snake) {
+        int head = snake.getHeadCell();
+        int tail = snake.getTailCell();
+        Direction best = null;
+        int bestDistance = -1;
+        for (Direction dir : DIRECTIONS) {
+            if (dir.isOpposite(snake.getDirection())) continue;
+            int next = neighbour(head, dir);
+            if (!isOpen(board, next, 1)) continue;
+            int d = search(board, next, 1, tail);
+            if (timedOut) return best;
+            if (d > bestDistance) {
+                bestDistance = d;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    /** The move leading into the largest open area, for when the tail is cut off. */
+    private Direction roomiest(Board board, Snake snake) {
+        int head = snake.getHeadCell();
+        Direction best = null;
+        int bestArea = -1;
+        for (Direction dir : DIRECTIONS) {
+            if (dir.isOpposite(snake.getDirection())) continue;
+            int next = neighbour(head, dir);
+            if (!isOpen(board, next, 1)) continue;
+            search(board, next, 1, -1);
+            if (timedOut) return best;
+            if (reached > bestArea) {
+                bestArea = reached;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    private Direction firstSafe(Board board, Snake snake) {
+        int head = snake.getHeadCell();
+        Direction current = snake.getDirection();
+        if (isOpen(board, neighbour(head, current), 1)) return current;
+        for (Direction dir : DIRECTIONS) {
+            if (!dir.isOpposite(current) && isOpen(board, neighbour(head, dir), 1)) return dir;
+        }
+        return null;
+    }
+
+    /**
+     * Breadth-first search from {@code start}, reached after {@code moves}
+     * moves, over cells that are open by the time the snake would get there.
+     * Records the first move towards every cell reached and returns the
+     * distance to {@code target} in moves, or -1 if it is unreachable, the
+     * budget ran out, or {@code target} is -1.
+     */
+    private int search(Board board, int start, int moves, int target) {
+        if (++stamp == 0) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        int headIndex = 0;
+        int tailIndex = 0;
+        queue[tailIndex++] = start;
+        visited[start] = stamp;
+        distance[start] = moves;
+        while (headIndex < tailIndex) {
+            if ((headIndex & (CLOCK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                reached = tailIndex;
+                return -1;
+            }
+            int cell = queue[headIndex++];
+            if (cell == target) {
+                reached = tailIndex;
+                return distance[cell];
+            }
+            int arrival = distance[cell] + 1;
+            for (Direction dir : DIRECTIONS) {
+                int next = neighbour(cell, dir);
+                if (next < 0 || visited[next] == stamp || !isOpen(board, next, arrival)) continue;
+                visited[next] = stamp;
+                distance[next] = arrival;
+                parent[next] = cell;
+                firstMove[next] = cell == start ? (byte) dir.ordinal() : firstMove[cell];
+                queue[tailIndex++] = next;
+            }
+        }
+        reached = tailIndex;
+        return -1;
+    }
+
+    /** Whether the snake could be on {@code cell} after {@code moves} moves without hitting anything. */
+    private boolean isOpen(Board board, int cell, int moves) {
+        if (cell < 0 || board.hasObstacle(cell)) return false;
+        if (pathMark[cell] == pathStamp) return pathFreeAt[cell] <= moves;
+        if (!board.hasSnake(cell)) return true;
+        int free = freeAt[cell];
+        return (free > ateAt ? free + 1 : free) <= moves;
+    }
+
+    private int neighbour(int cell, Direction dir) {
+        int x = cell % width + dir.getDx();
+        int y = cell / width + dir.getDy();
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            if (wallMode) return -1;
+            x = Math.floorMod(x, width);
+            y = Math.floorMod(y, height);
+        }
+        return y * width + x;
+    }
+
+    private Direction directionTo(int from, int to) {
+        for (Direction dir : DIRECTIONS) {
+            if (neighbour(from, dir) == to) return dir;
+        }
+        return null;
+    }
+
+    /**
+     * Successor of every cell on a cycle through the whole board, or
+     * {@code null} when both sides are odd and no such cycle exists. With an
+     * even height the cycle runs along the top row, snakes back and forth
+     * through the remaining rows without column 0, and returns up column 0;
+     * an even width uses the same shape transposed.
+     */
+    static int[] hamiltonianCycle(int width, int height) {
+        if (width < 2 || height < 2) return null;
+        boolean transpose = height % 2 != 0;
+        if (transpose && width % 2 != 0) return null;
+        int rows = transpose ? width : height;
+        int cols = transpose ? height : width;
+
+        int[] order = new int[width * height];
+        int n = 0;
+        for (int c = 0; c < cols; c++) order[n++] = index(c, 0, transpose, width);
+        for (int r = 1; r < rows; r++) {
+            boolean leftward = r % 2 == 1;
+            for (int i = 0; i < cols - 1; i++) {
+                int c = leftward ? cols - 1 - i : 1 + i;
+                order[n++] = index(c, r, transpose, width);
+            }
+        }
+        for (int r = rows - 1; r >= 1; r--) order[n++] = index(0, r, transpose, width);
+
+        int[] next = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            next[order[i]] = order[(i + 1) % order.length];
+        }
+        return next;
+    }
+
+    private static int index(int col, int row, boolean transpose, int width) {
+        return transpose ? col * width + row : row * width + col;
+    }
+}
@@ -0,0 +1,133 @@
+package com.snakegame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Runs many independent headless games in parallel and prints aggregate
+ * statistics for each difficulty and wall mode. Games are spread over a
+ * work-stealing pool; each one gets its own engine and controller, and its
+ * seed is derived from the batch seed and game index so runs are repeatable.
+ * <p>
+ * Usage: {@code --headless [--games N] [--difficulty NAME|all] [--walls on|off|both]
+ * [--controller greedy|autopilot] [--max-ticks N] [--seed N] [--threads N] [--width N] [--height N]}
+ */
+public class BatchRunner {
+    private long games = 10_000;
+    private final List<Difficulty> difficulties = new ArrayList<>(List.of(Difficulty.values()));
+    private final List<Boolean> wallModes = new ArrayList<>(List.of(true, false));
+    private String controllerName = "greedy";
+    private long maxTicks = 100_000;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int width = GameEngine.DEFAULT_WIDTH;
+    private int height = GameEngine.DEFAULT_HEIGHT;
+
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        runner.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--headless")) continue;
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--games" -> games = Long.parseLong(value);
+                case "--difficulty" -> {
+                    difficulties.clear();
+                    if (value.equalsIgnoreCase("all")) {
+                        difficulties.addAll(List.of(Difficulty.values()));
+                    } else {
+                        difficulties.add(Difficulty.valueOf(value.toUpperCase()));
+                    }
+                }
+                case "--walls" -> {
+                    wallModes.clear();
+                    switch (value) {
+                        case "on" -> wallModes.add(true);
+                        case "off" -> wallModes.add(false);
+                        case "both" -> wallModes.addAll(List.of(true, false));
+                        default -> throw new IllegalArgumentException("--walls must be on, off or both");
+                    }
+                }
+                case "--controller" -> {
+                    controllerFactory(value);
+                    controllerName = value;
+                }
+                case "--max-ticks" -> maxTicks = Long.parseLong(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--width" -> width = Integer.parseInt(value);
+                case "--height" -> height = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+    }
+
+    /** Maps a controller name from the command line to a per-game factory. */
+    static Supplier<Controller> controllerFactory(String name) {
+        return switch (name) {
+            case "greedy" -> GreedyController::new;
+            case "autopilot" -> AutopilotController::new;
+            default -> throw new IllegalArgumentException("Unknown controller " + name);
+        };
+    }
+
+    private void run() {
+        System.out.printf("Running %,d games per setting on %d threads, controller %s, %dx%d board%n",
+                games, threads, controllerName, width, height);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Difficulty difficulty : difficulties) {
+                for (boolean wallMode : wallModes) {
+                    long start = System.nanoTime();
+                    BatchStats stats = pool.submit(() -> runBatch(difficulty, wallMode)).get();
+                    String label = difficulty.getDisplayName() + (wallMode ? " / walls" : " / wrap");
+                    stats.print(System.out, label, System.nanoTime() - start);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private BatchStats runBatch(Difficulty difficulty, boolean wallMode) {
+        Supplier<Controller> controllers = controllerFactory(controllerName);
+        return LongStream.range(0, games)
+                .parallel()
+                .mapToObj(i -> playGame(difficulty, wallMode, gameSeed(i), controllers.get()))
+                .collect(BatchStats::new, BatchStats::add, BatchStats::merge);
+    }
+
+    private long gameSeed(long index) {
+        return new GameRandom(seed + index).nextLong();
+    }
+
+    private GameEngine playGame(Difficulty difficulty, boolean wallMode, long gameSeed,
+                                Controller controller) {
+        GameEngine engine = new GameEngine(width, height, difficulty, wallMode, gameSeed);
+        while (!engine.isOver() && engine.getTick() < maxTicks) {
+            engine.step(controller.decide(engine));
+        }
+        return engine;
+    }
+}
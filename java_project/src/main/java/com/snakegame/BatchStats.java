@@ -0,0 +1,112 @@
+package com.snakegame;
+
+import java.io.PrintStream;
+
+/**
+ * Aggregate results of a batch of headless games. Instances are filled per
+ * worker and merged, so no locking is needed while games run.
+ */
+public class BatchStats {
+    private static final int SCORE_BUCKET = 100;
+    private static final int SCORE_BUCKETS = 1000;
+
+    private long games;
+    private long totalTicks;
+    private long totalScore;
+    private int minScore = Integer.MAX_VALUE;
+    private int maxScore;
+    private long totalLength;
+    private int maxLength;
+    private long maxTicks;
+    private long wins;
+    private long tickLimitHits;
+    private final long[] deaths = new long[DeathCause.values().length];
+    private final long[] scoreHistogram = new long[SCORE_BUCKETS + 1];
+
+    /** Adds the final state of one game. */
+    public void add(GameEngine engine) {
+        games++;
+        int score = engine.getScore();
+        long ticks = engine.getTick();
+        int length = engine.getSnake().getLength();
+
+        totalTicks += ticks;
+        totalScore += score;
+        minScore = Math.min(minScore, score);
+        maxScore = Math.max(maxScore, score);
+        totalLength += length;
+        maxLength = Math.max(maxLength, length);
+        maxTicks = Math.max(maxTicks, ticks);
+        scoreHistogram[Math.min(score / SCORE_BUCKET, SCORE_BUCKETS)]++;
+
+        if (engine.isWon()) {
+            wins++;
+        } else if (engine.getDeathCause() != null) {
+            deaths[engine.getDeathCause().ordinal()]++;
+        } else {
+            tickLimitHits++;
+        }
+    }
+
+    public void merge(BatchStats other) {
+        games += other.games;
+        totalTicks += other.totalTicks;
+        totalScore += other.totalScore;
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        totalLength += other.totalLength;
+        maxLength = Math.max(maxLength, other.maxLength);
+        maxTicks = Math.max(maxTicks, other.maxTicks);
+        wins += other.wins;
+        tickLimitHits += other.tickLimitHits;
+        for (int i = 0; i < deaths.length; i++) {
+            deaths[i] += other.deaths[i];
+        }
+        for (int i = 0; i < scoreHistogram.length; i++) {
+            scoreHistogram[i] += other.scoreHistogram[i];
+        }
+    }
+
+    /** Lower bound of the score bucket holding the given percentile (0-100). */
+    public int scorePercentile(double percentile) {
+        long target = (long) Math.ceil(games * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < scoreHistogram.length; i++) {
+            seen += scoreHistogram[i];
+            if (seen >= target && seen > 0) return i * SCORE_BUCKET;
+        }
+        return maxScore;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    public void print(PrintStream out, String label, long elapsedNanos) {
+        if (games == 0) {
+            out.printf("%s: no games%n", label);
+            return;
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%s: %,d games, %,d ticks in %.2fs (%,.0f ticks/s, %,.0f games/s)%n",
+                label, games, totalTicks, seconds, totalTicks / seconds, games / seconds);
+        out.printf("  score  min %d  mean %.1f  p50 %d  p90 %d  p99 %d  max %d%n",
+                minScore, (double) totalScore / games, scorePercentile(50),
+                scorePercentile(90), scorePercentile(99), maxScore);
+        out.printf("  length mean %.1f  max %d%n", (double) totalLength / games, maxLength);
+        out.printf("  ticks  mean %.1f  max %d%n", (double) totalTicks / games, maxTicks);
+        StringBuilder outcomes = new StringBuilder("  outcome");
+        for (DeathCause cause : DeathCause.values()) {
+            if (cause == DeathCause.HEAD_ON || cause == DeathCause.RIVAL) continue;
+            outcomes.append(String.format("  %s %.1f%%", cause.name().toLowerCase(),
+                    100.0 * deaths[cause.ordinal()] / games));
+        }
+        outcomes.append(String.format("  won %.1f%%  tick-limit %.1f%%",
+                100.0 * wins / games, 100.0 * tickLimitHits / games));
+        out.println(outcomes);
+    }
+}
@@ -0,0 +1,267 @@
+package com.snakegame;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Occupancy grid shared by the engine and placement code. Each cell holds a
+ * byte: the low six bits count snake segments on the cell, and the two high
+ * bits flag an obstacle or food. A cell is free only when its byte is zero,
+ * so every collision or placement check is a single array read.
+ * <p>
+ * Segments only stack on one cell (or on an obstacle) while the snake is
+ * invincible, which is why snake occupancy is a count rather than a flag.
+ * <p>
+ * Free cells are also tracked in a bitset, with the free cells per chunk
+ * summed in a Fenwick tree. A random free cell is found by probing a few
+ * random cells and, when the board is too full for that to succeed quickly,
+ * selecting the n-th free cell: the tree finds its chunk in O(log chunks) and
+ * the chunk's bitset the cell. Either way the result depends only on what is
+ * on the board, not on the order things got there, so equal boards draw
+ * equal cells.
+ * <p>
+ * The grid is stored in chunks of {@value #CHUNK} cells that are copied on
+ * write, so {@link #fork()} costs one pointer per chunk and copies share
+ * every chunk neither of them has changed since, such as the obstacles.
+ * Each chunk counts the other boards that share it. A board writing to a
+ * shared chunk copies it and gives up its share, so whichever board writes
+ * second writes in place, whether that is the fork or the original. A fork
+ * dropped without writing keeps its shares, and the other board copies
+ * those chunks once.
+ */
+public class Board {
+    private static final int SNAKE_MASK = 0x3f;
+    private static final int OBSTACLE = 0x40;
+    private static final int FOOD = 0x80;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int WORDS_PER_CHUNK = CHUNK / 64;
+    private static final int PROBES = 8;
+
+    private final int width;
+    private final int height;
+    private final int cellCount;
+    private final byte[][] cells;
+    private final long[][] freeBits;
+    /** Fenwick tree of free cells per chunk; entry {@code i} covers the chunks before {@code i}. */
+    private final int[] freeTree;
+    /** Per chunk, how many other boards hold the same arrays; shared with them. */
+    private final AtomicInteger[] sharers;
+    private int freeCount;
+
+    public Board(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cellCount = width * height;
+        int chunks = (cellCount + CHUNK - 1) >> CHUNK_BITS;
+        this.cells = new byte[chunks][CHUNK];
+        this.freeBits = new long[chunks][WORDS_PER_CHUNK];
+        this.freeTree = new int[chunks + 1];
+        this.sharers = new AtomicInteger[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            sharers[chunk] = new AtomicInteger();
+        }
+        markAllFree();
+    }
+
+    private Board(Board source) {
+        this.width = source.width;
+        this.height = source.height;
+        this.cellCount = source.cellCount;
+        this.cells = source.cells.clone();
+        this.freeBits = source.freeBits.clone();
+        this.freeTree = source.freeTree.clone();
+        this.sharers = source.sharers.clone();
+        this.freeCount = source.freeCount;
+        for (AtomicInteger count : sharers) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns an independent copy. Chunks stay shared until either board
+     * writes to them, so this is cheap however large the board is.
+     */
+    public Board fork() {
+        return new Board(this);
+    }
+
+    /**
+     * Empties every cell. Chunks no other board shares are cleared in place,
+     * so a board that is not forked is emptied without allocating.
+     */
+    public void clear() {
+        for (int chunk = 0; chunk < cells.length; chunk++) {
+            AtomicInteger shared = sharers[chunk];
+            if (shared.get() > 0) {
+                cells[chunk] = new byte[CHUNK];
+                freeBits[chunk] = new long[WORDS_PER_CHUNK];
+                sharers[chunk] = new AtomicInteger();
+                shared.decrementAndGet();
+            } else {
+                Arrays.fill(cells[chunk], (byte) 0);
+            }
+        }
+        markAllFree();
+    }
+
+    /** Sets the free bits and counts for a board whose cells are all empty. */
+    private void markAllFree() {
+        int chunks = cells.length;
+        Arrays.fill(freeTree, 0);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int size = Math.min(CHUNK, cellCount - (chunk << CHUNK_BITS));
+            Arrays.fill(freeBits[chunk], 0);
+            for (int i = 0; i < size; i++) {
+                freeBits[chunk][i >> 6] |= 1L << i;
+            }
+            freeTree[chunk + 1] += size;
+            int parent = chunk + 1 + ((chunk + 1) & -(chunk + 1));
+            if (parent <= chunks) freeTree[parent] += freeTree[chunk + 1];
+        }
+        freeCount = cellCount;
+    }
+
+    public int cellOf(int x, int y) {
+        return y * width + x;
+    }
+
+    public int xOf(int cell) {
+        return cell % width;
+    }
+
+    public int yOf(int cell) {
+        return cell / width;
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private int get(int cell) {
+        return cells[cell >> CHUNK_BITS][cell & CHUNK_MASK];
+    }
+
+    public boolean isFree(int cell) {
+        return get(cell) == 0;
+    }
+
+    public boolean hasSnake(int cell) {
+        return (get(cell) & SNAKE_MASK) != 0;
+    }
+
+    /** Segments on {@code cell}; more than one only while the snake is invincible. */
+    public int getSnakeCount(int cell) {
+        return get(cell) & SNAKE_MASK;
+    }
+
+    public boolean hasObstacle(int cell) {
+        return (get(cell) & OBSTACLE) != 0;
+    }
+
+    public boolean hasFood(int cell) {
+        return (get(cell) & FOOD) != 0;
+    }
+
+    public void addSnake(int cell) {
+        if ((get(cell) & SNAKE_MASK) == SNAKE_MASK) {
+            throw new IllegalStateException("Too many segments on cell " + cell);
+        }
+        update(cell, get(cell) + 1);
+    }
+
+    public void removeSnake(int cell) {
+        update(cell, get(cell) - 1);
+    }
+
+    public void setObstacle(int cell) {
+        update(cell, get(cell) | OBSTACLE);
+    }
+
+    public void setFood(int cell) {
+        update(cell, get(cell) | FOOD);
+    }
+
+    public void clearFood(int cell) {
+        update(cell, get(cell) & ~FOOD);
+    }
+
+    private void update(int cell, int value) {
+        int chunk = cell >> CHUNK_BITS;
+        AtomicInteger shared = sharers[chunk];
+        if (shared.get() > 0) {
+            cells[chunk] = cells[chunk].clone();
+            freeBits[chunk] = freeBits[chunk].clone();
+            sharers[chunk] = new AtomicInteger();
+            // Only once this board has let go may the last sharer write in place
+            shared.decrementAndGet();
+        }
+        int index = cell & CHUNK_MASK;
+        boolean wasFree = cells[chunk][index] == 0;
+        cells[chunk][index] = (byte) value;
+        boolean free = cells[chunk][index] == 0;
+        if (wasFree != free) {
+            freeBits[chunk][index >> 6] ^= 1L << index;
+            int delta = free ? 1 : -1;
+            for (int i = chunk + 1; i < freeTree.length; i += i & -i) {
+                freeTree[i] += delta;
+            }
+            freeCount += delta;
+        }
+    }
+
+    /**
+     * Picks a uniformly random free cell.
+     *
+     * @return the cell, or {@code -1} if the board is full
+     */
+    public int randomFreeCell(GameRandom random) {
+        if (freeCount == 0) return -1;
+        // On a crowded board most probes miss, so select directly
+        int probes = freeCount * 2 >= cellCount ? PROBES : 0;
+        for (int probe = 0; probe < probes; probe++) {
+            int cell = random.nextInt(cellCount);
+            if (isFree(cell)) return cell;
+        }
+        return nthFreeCell(random.nextInt(freeCount));
+    }
+
+    private int nthFreeCell(int n) {
+        // Descend the tree to the last chunk whose preceding chunks hold at most n free cells
+        int chunk = 0;
+        for (int step = Integer.highestOneBit(freeTree.length - 1); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next < freeTree.length && freeTree[next] <= n) {
+                chunk = next;
+                n -= freeTree[next];
+            }
+        }
+        long[] words = freeBits[chunk];
+        int word = 0;
+        while (n >= Long.bitCount(words[word])) {
+            n -= Long.bitCount(words[word++]);
+        }
+        long bits = words[word];
+        for (; n > 0; n--) {
+            bits &= bits - 1;
+        }
+        return (chunk << CHUNK_BITS) + (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+}
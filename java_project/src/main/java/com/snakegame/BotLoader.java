@@ -0,0 +1,84 @@
+package com.snakegame;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Finds {@link Controller}s in bot jars for a {@link Tournament}. A jar lists
+ * its controllers in {@code META-INF/services/com.snakegame.Controller}, one
+ * class name per line, and each class needs a public no-argument constructor.
+ * <p>
+ * Every jar gets its own class loader, so bots cannot see each other's
+ * classes and two jars may use the same class names.
+ */
+public class BotLoader {
+    private static final String SERVICE_FILE = "META-INF/services/" + Controller.class.getName();
+
+    private BotLoader() {
+    }
+
+    /**
+     * Loads the controllers in each path, a jar or a directory of jars.
+     *
+     * @throws IllegalArgumentException if a path cannot be read, holds no bots,
+     *                                  or names a controller that cannot be loaded
+     */
+    public static List<Tournament.Entrant> load(List<Path> paths) {
+        List<Tournament.Entrant> entrants = new ArrayList<>();
+        for (Path path : paths) {
+            for (Path jar : jars(path)) {
+                entrants.addAll(loadJar(jar));
+            }
+        }
+        return entrants;
+    }
+
+    private static List<Path> jars(Path path) {
+        if (!Files.isDirectory(path)) {
+            if (!Files.isRegularFile(path)) throw new IllegalArgumentException("No bot jar at " + path);
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            List<Path> jars = files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .sorted()
+                    .toList();
+            if (jars.isEmpty()) throw new IllegalArgumentException("No bot jars in " + path);
+            return jars;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot list " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static List<Tournament.Entrant> loadJar(Path jar) {
+        URLClassLoader loader;
+        try {
+            loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, BotLoader.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Bad bot jar path " + jar);
+        }
+        String jarName = jar.getFileName().toString().replaceFirst("\\.jar$", "");
+        List<Tournament.Entrant> entrants = new ArrayList<>();
+        try {
+            for (ServiceLoader.Provider<Controller> provider : ServiceLoader.load(Controller.class, loader)
+                    .stream()
+                    .toList()) {
+                // The game's own class path is visible through the parent; only count this jar's bots
+                if (provider.type().getClassLoader() != loader) continue;
+                entrants.add(new Tournament.Entrant(jarName + "/" + provider.type().getSimpleName(),
+                        provider::get));
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalArgumentException("Cannot load bots from " + jar + ": " + e.getMessage());
+        }
+        if (entrants.isEmpty()) {
+            throw new IllegalArgumentException(jar + " lists no controllers in " + SERVICE_FILE);
+        }
+        return entrants;
+    }
+}
@@ -0,0 +1,14 @@
+package com.snakegame;
+
+/**
+ * Decides the snake's next move. Controllers drive the engine through the same
+ * {@link GameEngine#step(Direction)} input the keyboard uses.
+ */
+public interface Controller {
+    /**
+     * Chooses the input for the next tick.
+     *
+     * @return the direction to turn, or {@code null} to keep going straight
+     */
+    Direction decide(GameEngine engine);
+}
@@ -0,0 +1,14 @@
+package com.snakegame;
+
+/**
+ * What ended a lost game.
+ */
+public enum DeathCause {
+    WALL,
+    OBSTACLE,
+    SELF,
+    /** Arena only: two heads moved onto the same cell. */
+    HEAD_ON,
+    /** Arena only: ran into another snake's body. */
+    RIVAL
+}
@@ -27,6 +27,12 @@ public enum Difficulty {
         return obstacleCount;
     }
 
+    /** Obstacle count scaled by board area relative to the default board. */
+    public int getObstacleCount(int gridWidth, int gridHeight) {
+        long defaultCells = (long) GameEngine.DEFAULT_WIDTH * GameEngine.DEFAULT_HEIGHT;
+        return (int) Math.max(obstacleCount, obstacleCount * ((long) gridWidth * gridHeight) / defaultCells);
+    }
+
     public String getDisplayName() {
         return displayName;
     }
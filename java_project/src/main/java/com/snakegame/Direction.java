@@ -19,6 +19,14 @@ public enum Direction {
         this.dy = dy;
     }
 
+    public int getDx() {
+        return dx;
+    }
+
+    public int getDy() {
+        return dy;
+    }
+
     public Point getOffset() {
         return new Point(dx, dy);
     }
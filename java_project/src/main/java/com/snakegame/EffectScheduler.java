@@ -0,0 +1,255 @@
+package com.snakegame;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Active {@link EffectType effects} of one game, with their expiry on a timer
+ * wheel keyed by tick. Each tick {@link #advance} visits only the wheel slot
+ * for that tick, so idle ticks cost one array read however many effects
+ * exist. Timers due more than a lap ahead stay in their slot until their tick
+ * comes round.
+ * <p>
+ * Refreshing or extending an effect does not look for its old timer; the old
+ * timer is left in the wheel and ignored when it fires because the effect's
+ * expiry has moved. Timers live in pooled parallel arrays, so starting and
+ * expiring effects does not allocate once the pool has grown.
+ */
+public class EffectScheduler {
+    private static final int SLOTS = 64;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int INITIAL_TIMERS = 8;
+    private static final EffectType[] TYPES = EffectType.values();
+
+    private final int[] levels;
+    private final long[] expiresAt;
+    private final int[] slots;
+    private long[] timerDue;
+    private byte[] timerType;
+    private int[] timerNext;
+    private int freeTimer;
+    private int usedTimers;
+
+    public EffectScheduler() {
+        levels = new int[TYPES.length];
+        expiresAt = new long[TYPES.length];
+        slots = new int[SLOTS];
+        Arrays.fill(slots, -1);
+        timerDue = new long[INITIAL_TIMERS];
+        timerType = new byte[INITIAL_TIMERS];
+        timerNext = new int[INITIAL_TIMERS];
+        freeTimer = -1;
+    }
+
+    private EffectScheduler(EffectScheduler source) {
+        levels = source.levels.clone();
+        expiresAt = source.expiresAt.clone();
+        slots = source.slots.clone();
+        timerDue = source.timerDue.clone();
+        timerType = source.timerType.clone();
+        timerNext = source.timerNext.clone();
+        freeTimer = source.freeTimer;
+        usedTimers = source.usedTimers;
+    }
+
+    /** Returns an independent copy. */
+    public EffectScheduler fork() {
+        return new EffectScheduler(this);
+    }
+
+    /** Ends every effect and drops every timer, keeping the pool for reuse. */
+    public void clear() {
+        Arrays.fill(levels, 0);
+        Arrays.fill(expiresAt, 0);
+        Arrays.fill(slots, -1);
+        freeTimer = -1;
+        usedTimers = 0;
+    }
+
+    /**
+     * Starts {@code type} for {@code duration} ticks from tick {@code now},
+     * following the type's {@link EffectType.Stacking stacking} rule.
+     *
+     * @return whether the effect's level changed, so modifiers need recomputing
+     */
+    public boolean start(EffectType type, long now, long duration) {
+        if (duration <= 0) return false;
+        int t = type.ordinal();
+        int before = levels[t];
+        switch (type.getStacking()) {
+            case REFRESH -> {
+                expiresAt[t] = now + duration;
+                levels[t] = 1;
+                schedule(t, expiresAt[t]);
+            }
+            case EXTEND -> {
+                expiresAt[t] = Math.max(expiresAt[t], now) + duration;
+                levels[t] = 1;
+                schedule(t, expiresAt[t]);
+            }
+            case STACK -> {
+                if (levels[t] == type.getMaxLevel()) return false;
+                levels[t]++;
+                expiresAt[t] = Math.max(expiresAt[t], now + duration);
+                schedule(t, now + duration);
+            }
+        }
+        return levels[t] != before;
+    }
+
+    /**
+     * Expires the timers due on tick {@code now}; call once per tick.
+     *
+     * @return whether any effect's level changed
+     */
+    public boolean advance(long now) {
+        int slot = (int) now & SLOT_MASK;
+        boolean changed = false;
+        int previous = -1;
+        int timer = slots[slot];
+        while (timer >= 0) {
+            int next = timerNext[timer];
+            if (timerDue[timer] == now) {
+                if (previous < 0) slots[slot] = next;
+                else timerNext[previous] = next;
+                changed |= expire(timer);
+                timerNext[timer] = freeTimer;
+                freeTimer = timer;
+            } else {
+                previous = timer;
+            }
+            timer = next;
+        }
+        return changed;
+    }
+
+    /**
+     * Scales the ticks left on every active effect by {@code from / to}, for
+     * when ticks change from {@code from} to {@code to} ms long on tick
+     * {@code now}, so each effect still ends after the same real time. Stale
+     * timers are freed on the way; none of this allocates.
+     */
+    public void rescale(long now, int from, int to) {
+        int live = -1;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            for (int timer = slots[slot]; timer >= 0; ) {
+                int next = timerNext[timer];
+                if (isLive(timer)) {
+                    timerNext[timer] = live;
+                    live = timer;
+                } else {
+                    timerNext[timer] = freeTimer;
+                    freeTimer = timer;
+                }
+                timer = next;
+            }
+            slots[slot] = -1;
+        }
+        Arrays.fill(expiresAt, 0);
+        while (live >= 0) {
+            int next = timerNext[live];
+            long left = ((timerDue[live] - now) * from + to / 2) / to;
+            long due = now + Math.max(1, left);
+            int t = timerType[live];
+            expiresAt[t] = Math.max(expiresAt[t], due);
+            timerDue[live] = due;
+            int slot = (int) due & SLOT_MASK;
+            timerNext[live] = slots[slot];
+            slots[slot] = live;
+            live = next;
+        }
+    }
+
+    private boolean expire(int timer) {
+        int t = timerType[timer];
+        if (TYPES[t].getStacking() == EffectType.Stacking.STACK) {
+            levels[t]--;
+            return true;
+        }
+        if (timerDue[timer] != expiresAt[t] || levels[t] == 0) return false;
+        levels[t] = 0;
+        return true;
+    }
+
+    private void schedule(int type, long due) {
+        int timer = freeTimer;
+        if (timer >= 0) {
+            freeTimer = timerNext[timer];
+        } else {
+            if (usedTimers == timerDue.length) {
+                timerDue = Arrays.copyOf(timerDue, usedTimers * 2);
+                timerType = Arrays.copyOf(timerType, usedTimers * 2);
+                timerNext = Arrays.copyOf(timerNext, usedTimers * 2);
+            }
+            timer = usedTimers++;
+        }
+        timerDue[timer] = due;
+        timerType[timer] = (byte) type;
+        int slot = (int) due & SLOT_MASK;
+        timerNext[timer] = slots[slot];
+        slots[slot] = timer;
+    }
+
+    /** Whether a pending timer still ends an effect, rather than being left behind by a refresh. */
+    private boolean isLive(int timer) {
+        int t = timerType[timer];
+        return TYPES[t].getStacking() == EffectType.Stacking.STACK
+                || (levels[t] > 0 && timerDue[timer] == expiresAt[t]);
+    }
+
+    public boolean isActive(EffectType type) {
+        return levels[type.ordinal()] > 0;
+    }
+
+    /** Active level of {@code type}; 0 when it is not active. */
+    public int getLevel(EffectType type) {
+        return levels[type.ordinal()];
+    }
+
+    /** Tick on which {@code type} ends, or {@code 0} when it is not active. */
+    public long getExpiresAt(EffectType type) {
+        return levels[type.ordinal()] > 0 ? expiresAt[type.ordinal()] : 0;
+    }
+
+    /** Writes the live timers; stale ones are left out. */
+    void write(DataOutputStream out) throws IOException {
+        int live = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            for (int timer = slots[slot]; timer >= 0; timer = timerNext[timer]) {
+                if (isLive(timer)) live++;
+            }
+        }
+        out.writeShort(live);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            for (int timer = slots[slot]; timer >= 0; timer = timerNext[timer]) {
+                if (!isLive(timer)) continue;
+                out.writeByte(timerType[timer]);
+                out.writeLong(timerDue[timer]);
+            }
+        }
+    }
+
+    /**
+     * Reads timers written by {@link #write} into an empty scheduler. They are
+     * scheduled in reverse, since scheduling puts a timer at the front of its
+     * slot, so each slot keeps its order and writes the same bytes again.
+     */
+    void read(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        int[] types = new int[count];
+        long[] dues = new long[count];
+        for (int i = 0; i < count; i++) {
+            types[i] = in.readUnsignedByte();
+            if (types[i] >= TYPES.length) throw new IOException("Unknown effect " + types[i]);
+            dues[i] = in.readLong();
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            int t = types[i];
+            levels[t] = TYPES[t].getStacking() == EffectType.Stacking.STACK ? levels[t] + 1 : 1;
+            expiresAt[t] = Math.max(expiresAt[t], dues[i]);
+            schedule(t, dues[i]);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.snakegame;
+
+/**
+ * Timed effects a power-up can start. Each type declares what it does per
+ * active level, so the engine folds every active effect into its modifiers
+ * when one starts or ends instead of checking each effect on every tick.
+ */
+public enum EffectType {
+    /** Halves the tick delay. */
+    SPEED_BOOST(Stacking.REFRESH, 1, 50, 1, false),
+    /** Doubles points from food. */
+    DOUBLE_POINTS(Stacking.REFRESH, 1, 100, 2, false),
+    /** No death from walls, obstacles or the snake's own body. */
+    INVINCIBILITY(Stacking.REFRESH, 1, 100, 1, true);
+
+    /** What happens when an effect starts while it is already active. */
+    public enum Stacking {
+        /** The remaining time restarts at the new duration. */
+        REFRESH,
+        /** The new duration is added to the remaining time. */
+        EXTEND,
+        /** Another level is added with its own timer, up to the type's maximum. */
+        STACK
+    }
+
+    private final Stacking stacking;
+    private final int maxLevel;
+    private final int delayPercent;
+    private final int pointsMultiplier;
+    private final boolean invincible;
+
+    EffectType(Stacking stacking, int maxLevel, int delayPercent, int pointsMultiplier, boolean invincible) {
+        this.stacking = stacking;
+        this.maxLevel = maxLevel;
+        this.delayPercent = delayPercent;
+        this.pointsMultiplier = pointsMultiplier;
+        this.invincible = invincible;
+    }
+
+    public Stacking getStacking() {
+        return stacking;
+    }
+
+    /** Most levels a {@link Stacking#STACK} effect can reach; other effects have one. */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /** Tick delay per level, as a percentage of the delay without it. */
+    public int getDelayPercent() {
+        return delayPercent;
+    }
+
+    /** Factor applied to points per level. */
+    public int getPointsMultiplier() {
+        return pointsMultiplier;
+    }
+
+    public boolean isInvincible() {
+        return invincible;
+    }
+}
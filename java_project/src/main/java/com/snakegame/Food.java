@@ -1,54 +1,50 @@
 package com.snakegame;
 
 import java.awt.Point;
-import java.util.List;
-import java.util.Random;
 
 /**
- * Represents food or power-up that appears on the game grid.
+ * Represents food or power-up that appears on the game grid. Food never
+ * changes once placed, so forks and snapshots of a game can share it.
  */
 public class Food {
-    private Point position;
-    private PowerUpType type;
-    private final Random random = new Random();
+    private final int x;
+    private final int y;
+    private final PowerUpType type;
 
-    public Food(Point position, PowerUpType type) {
-        this.position = position;
+    public Food(int x, int y, PowerUpType type) {
+        this.x = x;
+        this.y = y;
         this.type = type;
     }
 
-    public static Food createRandom(int gridWidth, int gridHeight, Snake snake,
-                                    List<Point> obstacles, int score) {
-        PowerUpType type = selectPowerUpType(score);
-        Point pos = findValidPosition(gridWidth, gridHeight, snake, obstacles);
-        return new Food(pos, type);
+    public Food(Point position, PowerUpType type) {
+        this(position.x, position.y, type);
+    }
+
+    /**
+     * Places food on a random free cell, with its type drawn from the
+     * default {@link SpawnTable}.
+     *
+     * @return the new food, or {@code null} if the board has no free cell left
+     */
+    public static Food createRandom(Board board, Difficulty difficulty, int score, GameRandom random) {
+        int cell = board.randomFreeCell(random);
+        if (cell < 0) return null;
+        PowerUpType type = SpawnTable.getDefault().pick(difficulty, score, random);
+        return new Food(board.xOf(cell), board.yOf(cell), type);
     }
 
-    private static PowerUpType selectPowerUpType(int score) {
-        // Higher score = more chance for special power-ups
-        double roll = Math.random();
-        if (score > 500 && roll < 0.15) return PowerUpType.GOLDEN;
-        if (score > 200 && roll < 0.25) return PowerUpType.SPEED_BOOST;
-        if (score > 300 && roll < 0.30) return PowerUpType.GROW;
-        if (score > 400 && roll < 0.35) return PowerUpType.DOUBLE_POINTS;
-        if (score > 600 && roll < 0.40) return PowerUpType.INVINCIBILITY;
-        return PowerUpType.FOOD;
+    /** A copy of the food's cell; changing it does not move the food. */
+    public Point getPosition() {
+        return new Point(x, y);
     }
 
-    private static Point findValidPosition(int gridWidth, int gridHeight,
-                                          Snake snake, List<Point> obstacles) {
-        Random r = new Random();
-        Point pos;
-        int attempts = 0;
-        do {
-            pos = new Point(r.nextInt(gridWidth), r.nextInt(gridHeight));
-            attempts++;
-        } while ((snake.contains(pos) || obstacles.contains(pos)) && attempts < 1000);
-        return pos;
+    public int getX() {
+        return x;
     }
 
-    public Point getPosition() {
-        return position;
+    public int getY() {
+        return y;
     }
 
     public PowerUpType getType() {
@@ -0,0 +1,53 @@
+package com.snakegame;
+
+/**
+ * Immutable view of the game after one tick, published by the simulation
+ * thread for the renderer. The board is shared rather than copied and must
+ * only be read for its dimensions and obstacles, which never change during a
+ * game.
+ *
+ * @param segments      snake cells, head first
+ * @param vacatedCell   cell the tail left this tick, or -1 if the snake grew
+ * @param foodCell      cell of the food, or -1 if the board is full
+ * @param publishedNanos {@link System#nanoTime()} when the tick finished
+ * @param tickNanos     time until the next tick is due
+ */
+public record FrameSnapshot(long tick, Board board, int[] segments, Direction direction,
+                            int vacatedCell, int foodCell, PowerUpType foodType, int score,
+                            boolean speedBoosted, boolean doublePoints, boolean invincible,
+                            boolean over, boolean won, long publishedNanos, long tickNanos) {
+
+    public static FrameSnapshot capture(GameEngine engine, long publishedNanos) {
+        return capture(engine, publishedNanos, engine.getTickDelayMs() * 1_000_000L);
+    }
+
+    /** Captures a frame whose next tick is {@code tickNanos} away, as when a replay plays faster. */
+    public static FrameSnapshot capture(GameEngine engine, long publishedNanos, long tickNanos) {
+        Snake snake = engine.getSnake();
+        Board board = engine.getBoard();
+        int[] segments = new int[snake.getLength()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = snake.getSegment(i);
+        }
+        Food food = engine.getFood();
+        int foodCell = engine.getFoodCell();
+        return new FrameSnapshot(engine.getTick(), board, segments, snake.getDirection(),
+                engine.getLastVacatedCell(), foodCell, food == null ? null : food.getType(),
+                engine.getScore(), engine.isSpeedBoosted(), engine.isDoublePoints(),
+                engine.isInvincible(), engine.isOver(), engine.isWon(), publishedNanos, tickNanos);
+    }
+
+    public int headCell() {
+        return segments[0];
+    }
+
+    public int tailCell() {
+        return segments[segments.length - 1];
+    }
+
+    /** Fraction of the way to the next tick at {@code nowNanos}, clamped to [0, 1]. */
+    public float progress(long nowNanos) {
+        float progress = (float) (nowNanos - publishedNanos) / tickNanos;
+        return Math.max(0f, Math.min(1f, progress));
+    }
+}
@@ -0,0 +1,246 @@
+package com.snakegame;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Thin client for a game hosted by a {@link GameServer}. It keeps a mirror of
+ * the snake, food and effects, applies each {@link NetProtocol} delta on its
+ * own thread and publishes a {@link FrameSnapshot} exactly as a local
+ * {@link GameLoop} would, so the panel renders both the same way.
+ */
+public class GameClient implements GameSession, Runnable {
+    private static final int CONNECT_TIMEOUT_MS = 5_000;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final Consumer<GameClient> onGameOver;
+    private final ByteBuffer outFrame = ByteBuffer.allocate(32);
+    private byte[] inFrame = new byte[64];
+
+    private final Board board;
+    private final int[] ring;
+    private int head;
+    private int length;
+    private Direction direction;
+    private int foodCell;
+    private PowerUpType foodType;
+    private int effects;
+    private int delayMs;
+    private int score;
+    private long tick;
+    private volatile FrameSnapshot snapshot;
+    private volatile boolean closed;
+    private Thread thread;
+
+    private GameClient(Socket socket, Consumer<GameClient> onGameOver) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = socket.getOutputStream();
+        this.onGameOver = onGameOver;
+
+        ByteBuffer welcome = readFrame();
+        if (welcome.get() != NetProtocol.WELCOME) throw new IOException("Expected welcome");
+        welcome.getInt();
+        int width = welcome.getShort() & 0xFFFF;
+        int height = welcome.getShort() & 0xFFFF;
+        welcome.get();
+        welcome.get();
+        board = new Board(width, height);
+        for (int i = NetProtocol.getVarint(welcome); i > 0; i--) {
+            board.setObstacle(NetProtocol.getVarint(welcome));
+        }
+        ring = new int[board.getCellCount() + 1];
+        int segments = NetProtocol.getVarint(welcome);
+        for (int i = 0; i < segments; i++) {
+            ring[segments - 1 - i] = NetProtocol.getVarint(welcome);
+        }
+        head = segments - 1;
+        length = segments;
+        direction = NetProtocol.direction(welcome.get());
+        readFood(welcome);
+        readEffects(welcome);
+        score = NetProtocol.getVarint(welcome);
+        publish(-1, false, false);
+    }
+
+    /**
+     * Connects to {@code address} and joins a new room with the given settings.
+     * {@code onGameOver} is called on the client thread once the game has ended
+     * or the connection is lost.
+     *
+     * @throws IllegalArgumentException if a side is over {@link NetProtocol#MAX_SIDE},
+     *                                  which no server hosts
+     */
+    public static GameClient connect(InetSocketAddress address, Difficulty difficulty, boolean wallMode,
+                                     int width, int height, Consumer<GameClient> onGameOver)
+            throws IOException {
+        return connect(address, difficulty, wallMode, width, height, 0, onGameOver);
+    }
+
+    /** Joins with a fixed game seed, or a random one if {@code seed} is 0. */
+    static GameClient connect(InetSocketAddress address, Difficulty difficulty, boolean wallMode,
+                              int width, int height, long seed, Consumer<GameClient> onGameOver)
+            throws IOException {
+        if (width > NetProtocol.MAX_SIDE || height > NetProtocol.MAX_SIDE) {
+            throw new IllegalArgumentException("Servers host boards up to " + NetProtocol.MAX_SIDE + " a side, not "
+                    + width + "x" + height);
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(address, CONNECT_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            ByteBuffer join = ByteBuffer.allocate(32);
+            int start = NetProtocol.beginFrame(join, NetProtocol.JOIN);
+            join.put((byte) difficulty.ordinal());
+            join.put((byte) (wallMode ? 1 : 0));
+            join.putShort((short) width);
+            join.putShort((short) height);
+            join.putLong(seed);
+            NetProtocol.endFrame(join, start);
+            socket.getOutputStream().write(join.array(), 0, join.position());
+            return new GameClient(socket, onGameOver);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /** Parses an address of the form {@code host:port}. */
+    public static InetSocketAddress parseAddress(String hostAndPort) {
+        int colon = hostAndPort.lastIndexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("Expected host:port, got " + hostAndPort);
+        return new InetSocketAddress(hostAndPort.substring(0, colon),
+                Integer.parseInt(hostAndPort.substring(colon + 1)));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (closed || snapshot.over()) return;
+        if (thread == null) {
+            thread = new Thread(this, "game-client");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        send(NetProtocol.RESUME, -1);
+    }
+
+    @Override
+    public void stop() {
+        send(NetProtocol.PAUSE, -1);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void submit(Direction direction) {
+        send(NetProtocol.INPUT, direction.ordinal());
+    }
+
+    @Override
+    public FrameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private synchronized void send(byte type, int argument) {
+        if (closed) return;
+        outFrame.clear();
+        int start = NetProtocol.beginFrame(outFrame, type);
+        if (argument >= 0) outFrame.put((byte) argument);
+        NetProtocol.endFrame(outFrame, start);
+        try {
+            out.write(outFrame.array(), 0, outFrame.position());
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                ByteBuffer frame = readFrame();
+                if (frame.get() == NetProtocol.DELTA && apply(frame)) break;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (closed) return;
+            FrameSnapshot last = snapshot;
+            publish(last.vacatedCell(), true, false);
+        }
+        close();
+        onGameOver.accept(this);
+    }
+
+    private ByteBuffer readFrame() throws IOException {
+        int length = in.readUnsignedShort();
+        if (length > inFrame.length) inFrame = new byte[Math.max(length, inFrame.length * 2)];
+        in.readFully(inFrame, 0, length);
+        return ByteBuffer.wrap(inFrame, 0, length);
+    }
+
+    /** Applies one tick's delta and publishes it; returns true once the game is over. */
+    private boolean apply(ByteBuffer delta) {
+        int flags = delta.get() & 0xFF;
+        tick++;
+        direction = NetProtocol.direction(flags & 3);
+        int vacated = -1;
+        if ((flags & NetProtocol.HEAD) != 0) {
+            head = (head + 1) % ring.length;
+            ring[head] = neighbour(ring[(head - 1 + ring.length) % ring.length], direction);
+            length++;
+            if ((flags & NetProtocol.TAIL) != 0) {
+                int dropped = NetProtocol.getVarint(delta);
+                if (dropped >= length) throw new IllegalArgumentException("Dropped " + dropped + " of " + length);
+                vacated = ring[(head - length + 1 + ring.length) % ring.length];
+                length -= dropped;
+            }
+        }
+        if ((flags & NetProtocol.FOOD) != 0) readFood(delta);
+        if ((flags & NetProtocol.EFFECTS) != 0) readEffects(delta);
+        if ((flags & NetProtocol.SCORE) != 0) score = NetProtocol.getVarint(delta);
+        boolean over = (flags & NetProtocol.OVER) != 0;
+        boolean won = over && delta.get() != 0;
+        publish(vacated, over, won);
+        return over;
+    }
+
+    private int neighbour(int cell, Direction dir) {
+        int x = Math.floorMod(board.xOf(cell) + dir.getDx(), board.getWidth());
+        int y = Math.floorMod(board.yOf(cell) + dir.getDy(), board.getHeight());
+        return board.cellOf(x, y);
+    }
+
+    private void readFood(ByteBuffer in) {
+        foodCell = NetProtocol.getVarint(in) - 1;
+        foodType = foodCell < 0 ? null : NetProtocol.foodType(in.get());
+    }
+
+    private void readEffects(ByteBuffer in) {
+        effects = in.get();
+        delayMs = NetProtocol.getVarint(in);
+    }
+
+    private void publish(int vacatedCell, boolean over, boolean won) {
+        int[] segments = new int[length];
+        for (int i = 0; i < length; i++) {
+            segments[i] = ring[(head - i + ring.length) % ring.length];
+        }
+        snapshot = new FrameSnapshot(tick, board, segments, direction, vacatedCell, foodCell, foodType,
+                score, (effects & NetProtocol.SPEED_BOOSTED) != 0, (effects & NetProtocol.DOUBLE_POINTS) != 0,
+                (effects & NetProtocol.INVINCIBLE) != 0, over, won, System.nanoTime(), delayMs * 1_000_000L);
+    }
+}
@@ -0,0 +1,554 @@
+package com.snakegame;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Headless simulation of a single game. Each call to {@link #step(Direction)}
+ * advances exactly one tick; there is no dependency on Swing or the wall clock,
+ * so effect durations are counted in ticks. Power-up effects run on an
+ * {@link EffectScheduler}, and the tick delay, points multiplier and
+ * invincibility they add up to are recomputed only when one starts or ends.
+ * <p>
+ * All randomness is drawn from generators split off the game seed, so the same
+ * seed and input sequence always produce the same game.
+ * <p>
+ * {@link #fork()} copies a game in time proportional to the board's chunk
+ * count rather than its size: the board and snake are shared copy-on-write
+ * and everything else is a handful of scalars. {@link #snapshot()} wraps such
+ * a copy in an immutable {@link GameSnapshot}.
+ */
+public class GameEngine {
+    public static final int DEFAULT_WIDTH = 30;
+    public static final int DEFAULT_HEIGHT = 25;
+    /** Shortest tick delay any combination of effects can reach. */
+    private static final int MIN_DELAY_MS = 30;
+    /** Shrinking never takes a snake below this length. */
+    private static final int MIN_LENGTH = 3;
+    /** Cells kept free in front of the snake's starting head. */
+    private static final int START_CLEARANCE = 3;
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final Difficulty difficulty;
+    private final boolean wallMode;
+
+    private long seed;
+    private GameRandom levelRandom;
+    private GameRandom foodRandom;
+    private Board board;
+    private Snake snake;
+    private Food food;
+    private int foodCell;
+    private LevelLayout layout;
+    private int score;
+    private long tick;
+    private EffectScheduler effects;
+    private int tickDelayMs;
+    private int pointsMultiplier;
+    private boolean invincible;
+    private boolean over;
+    private boolean won;
+    private DeathCause deathCause;
+    private int lastVacatedCell;
+    private TickProfile profile;
+    /* Kept from one reset to the next; forks make their own when reset. */
+    private LevelPipeline pipeline;
+    private LevelGenerator generator;
+    private int[] startCells;
+
+    public GameEngine(int gridWidth, int gridHeight, Difficulty difficulty, boolean wallMode,
+                      long seed) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.difficulty = difficulty;
+        this.wallMode = wallMode;
+        reset(seed);
+    }
+
+    private GameEngine(int gridWidth, int gridHeight, Difficulty difficulty, boolean wallMode) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.difficulty = difficulty;
+        this.wallMode = wallMode;
+    }
+
+    private GameEngine(GameEngine source) {
+        this.gridWidth = source.gridWidth;
+        this.gridHeight = source.gridHeight;
+        this.difficulty = source.difficulty;
+        this.wallMode = source.wallMode;
+        copyFrom(source);
+    }
+
+    private void copyFrom(GameEngine source) {
+        seed = source.seed;
+        levelRandom = new GameRandom(source.levelRandom.getState());
+        foodRandom = new GameRandom(source.foodRandom.getState());
+        board = source.board.fork();
+        snake = source.snake.fork();
+        food = source.food; // Immutable, so shared
+        foodCell = source.foodCell;
+        layout = source.layout;
+        score = source.score;
+        tick = source.tick;
+        effects = source.effects.fork();
+        tickDelayMs = source.tickDelayMs;
+        pointsMultiplier = source.pointsMultiplier;
+        invincible = source.invincible;
+        over = source.over;
+        won = source.won;
+        deathCause = source.deathCause;
+        lastVacatedCell = source.lastVacatedCell;
+    }
+
+    /** Times each step's phases into {@code profile}, or stops timing if {@code null}; forks are never timed. */
+    public void setProfile(TickProfile profile) {
+        this.profile = profile;
+    }
+
+    /** Returns an independent copy of this game that continues exactly as this one would. */
+    public GameEngine fork() {
+        return new GameEngine(this);
+    }
+
+    /** Captures the current state; the snapshot is unaffected by later steps. */
+    public GameSnapshot snapshot() {
+        return new GameSnapshot(new GameEngine(this));
+    }
+
+    /**
+     * Puts this game back into the state of {@code snapshot}.
+     *
+     * @throws IllegalArgumentException if the snapshot has other settings
+     */
+    public void restore(GameSnapshot snapshot) {
+        GameEngine source = snapshot.engine();
+        if (source.gridWidth != gridWidth || source.gridHeight != gridHeight
+                || source.difficulty != difficulty || source.wallMode != wallMode) {
+            throw new IllegalArgumentException("Snapshot is from a game with other settings");
+        }
+        copyFrom(source);
+    }
+
+    /**
+     * Starts a fresh game with the same settings and a new seed. The last
+     * game's board, snake, timers and level scratch space are reused, so
+     * this allocates little beyond the new level's layout.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        if (board == null) {
+            levelRandom = new GameRandom(0);
+            foodRandom = new GameRandom(0);
+            board = new Board(gridWidth, gridHeight);
+            snake = new Snake(gridWidth / 2, gridHeight / 2, gridWidth);
+            effects = new EffectScheduler();
+        } else {
+            board.clear();
+            snake.reset(gridWidth / 2, gridHeight / 2);
+            effects.clear();
+        }
+        if (pipeline == null) {
+            pipeline = new LevelPipeline(gridWidth, gridHeight, !wallMode);
+            generator = LevelGenerator.forDifficulty(difficulty, gridWidth, gridHeight);
+            startCells = startCells();
+        }
+        // foodRandom stands in for the root generator that both streams are split from
+        foodRandom.setState(seed);
+        foodRandom.splitInto(levelRandom);
+        foodRandom.splitInto(foodRandom);
+        layout = pipeline.build(generator, startCells, levelRandom);
+        layout.applyTo(board);
+        for (int i = 0; i < snake.getLength(); i++) {
+            board.addSnake(snake.getSegment(i));
+        }
+        score = 0;
+        placeFood();
+        tick = 0;
+        applyEffects();
+        over = false;
+        won = false;
+        deathCause = null;
+        lastVacatedCell = -1;
+    }
+
+    /** The starting snake's cells and the few in front of it, which the level must leave free. */
+    private int[] startCells() {
+        int y = gridHeight / 2;
+        int from = gridWidth / 2 - 2;
+        int to = Math.min(gridWidth - 1, gridWidth / 2 + START_CLEARANCE);
+        int[] cells = new int[to - from + 1];
+        for (int x = from; x <= to; x++) {
+            cells[x - from] = y * gridWidth + x;
+        }
+        return cells;
+    }
+
+    /**
+     * Advances the game by one tick.
+     *
+     * @param input direction requested this tick, or {@code null} to keep going straight
+     */
+    public StepResult step(Direction input) {
+        if (over) return won ? StepResult.WON : StepResult.DIED;
+
+        if (profile != null) profile.begin();
+        if (input != null) snake.setDirection(input);
+        Direction dir = snake.turn();
+        tick++;
+        if (effects.advance(tick)) {
+            retime(tickDelay(null));
+            applyEffects();
+        }
+
+        int x = snake.getHeadX() + dir.getDx();
+        int y = snake.getHeadY() + dir.getDy();
+        if (x < 0 || x >= gridWidth || y < 0 || y >= gridHeight) {
+            if (wallMode && !invincible) {
+                return die(DeathCause.WALL);
+            }
+            x = Math.floorMod(x, gridWidth);
+            y = Math.floorMod(y, gridHeight);
+        }
+        int headCell = board.cellOf(x, y);
+        int vacated = snake.move(headCell);
+        if (vacated >= 0) board.removeSnake(vacated);
+        lastVacatedCell = vacated;
+        if (profile != null) profile.lap(TickProfile.Phase.MOVE);
+
+        if (!invincible) {
+            if (board.hasObstacle(headCell)) return die(DeathCause.OBSTACLE);
+            if (board.hasSnake(headCell)) return die(DeathCause.SELF);
+        }
+        board.addSnake(headCell);
+        if (profile != null) profile.lap(TickProfile.Phase.COLLISION);
+
+        if (board.hasFood(headCell)) {
+            eatFood();
+            if (food == null) {
+                over = true;
+                won = true;
+                return StepResult.WON;
+            }
+            return StepResult.ATE;
+        }
+        return StepResult.MOVED;
+    }
+
+    private StepResult die(DeathCause cause) {
+        over = true;
+        deathCause = cause;
+        return StepResult.DIED;
+    }
+
+    private void eatFood() {
+        PowerUpType type = food.getType();
+        score += type.getBasePoints() * pointsMultiplier;
+
+        snake.grow(type.getGrowAmount());
+        shrink(type.getShrinkAmount());
+        if (type.isTemporary()) startEffect(type);
+        if (profile != null) profile.lap(TickProfile.Phase.EAT);
+
+        spawnNewFood();
+        if (profile != null) profile.lap(TickProfile.Phase.SPAWN);
+    }
+
+    /**
+     * Starts a power-up's effect for its duration in ticks at the delay the
+     * game will tick at once it runs. Effects already running are retimed to
+     * that delay first, so none of them outlasts its nominal time.
+     */
+    private void startEffect(PowerUpType type) {
+        int delay = tickDelay(type.getEffect());
+        long duration = type.getDurationMs() / delay;
+        if (duration <= 0) return;
+        retime(delay);
+        if (effects.start(type.getEffect(), tick, duration)) applyEffects();
+    }
+
+    /**
+     * Switches to a tick delay of {@code delay}, converting the ticks left on
+     * running effects so each still ends after the same real time.
+     */
+    private void retime(int delay) {
+        if (delay != tickDelayMs) effects.rescale(tick, tickDelayMs, delay);
+        tickDelayMs = delay;
+    }
+
+    /** Drops up to {@code amount} tail segments, keeping at least {@link #MIN_LENGTH}. */
+    private void shrink(int amount) {
+        int drop = Math.min(amount, snake.getLength() - MIN_LENGTH);
+        if (drop <= 0) return;
+        for (int i = 1; i <= drop; i++) {
+            board.removeSnake(snake.getSegment(snake.getLength() - i));
+        }
+        snake.shrink(drop);
+    }
+
+    /** Folds the active effects into the modifiers the rules read. */
+    private void applyEffects() {
+        int multiplier = 1;
+        boolean shield = false;
+        for (EffectType type : EffectType.values()) {
+            for (int level = effects.getLevel(type); level > 0; level--) {
+                multiplier *= type.getPointsMultiplier();
+                shield |= type.isInvincible();
+            }
+        }
+        tickDelayMs = tickDelay(null);
+        pointsMultiplier = multiplier;
+        invincible = shield;
+    }
+
+    /** Tick delay under the active effects plus one more level of {@code starting}, if not {@code null}. */
+    private int tickDelay(EffectType starting) {
+        int delay = difficulty.getDelayMs();
+        for (EffectType type : EffectType.values()) {
+            int levels = effects.getLevel(type);
+            if (type == starting) levels = Math.min(levels + 1, type.getMaxLevel());
+            for (int level = levels; level > 0; level--) {
+                delay = delay * type.getDelayPercent() / 100;
+            }
+        }
+        return delay == difficulty.getDelayMs() ? delay : Math.max(MIN_DELAY_MS, delay);
+    }
+
+    private void spawnNewFood() {
+        board.clearFood(foodCell);
+        placeFood();
+    }
+
+    private void placeFood() {
+        food = Food.createRandom(board, difficulty, score, foodRandom);
+        if (food == null) return;
+        foodCell = board.cellOf(food.getX(), food.getY());
+        board.setFood(foodCell);
+    }
+
+    /**
+     * Writes the full game state. The board is not stored: walls are
+     * listed and everything else on it follows from the snake and food. The
+     * body is stored as its head plus two bits per segment.
+     */
+    void writeState(DataOutputStream out) throws IOException {
+        writeState(out, true);
+    }
+
+    /**
+     * Writes the game state, leaving out the walls unless {@code withLayout};
+     * replay keyframes skip them because every keyframe of a game has the same.
+     */
+    void writeState(DataOutputStream out, boolean withLayout) throws IOException {
+        out.writeShort(gridWidth);
+        out.writeShort(gridHeight);
+        out.writeByte(difficulty.ordinal());
+        out.writeBoolean(wallMode);
+        out.writeLong(seed);
+        out.writeLong(levelRandom.getState());
+        out.writeLong(foodRandom.getState());
+        out.writeLong(tick);
+        out.writeInt(score);
+        effects.write(out);
+        out.writeBoolean(over);
+        out.writeBoolean(won);
+        out.writeByte(deathCause == null ? 0 : deathCause.ordinal() + 1);
+        out.writeInt(lastVacatedCell);
+
+        if (withLayout) {
+            out.writeInt(layout.getWallCount());
+            for (int cell = 0; cell < board.getCellCount(); cell++) {
+                if (layout.isWall(cell)) out.writeInt(cell);
+            }
+        }
+
+        out.writeInt(food == null ? -1 : foodCell);
+        if (food != null) out.writeByte(food.getType().ordinal());
+
+        out.writeByte(snake.getDirection().ordinal());
+        out.writeByte(snake.getPendingDirection().ordinal());
+        out.writeInt(snake.getPendingGrowth());
+        out.writeInt(snake.getLength());
+        out.writeInt(snake.getHeadCell());
+        int packed = 0;
+        for (int i = 1; i < snake.getLength(); i++) {
+            packed |= stepBetween(snake.getSegment(i - 1), snake.getSegment(i)).ordinal() << (2 * ((i - 1) & 3));
+            if ((i & 3) == 0 || i == snake.getLength() - 1) {
+                out.writeByte(packed);
+                packed = 0;
+            }
+        }
+    }
+
+    /** Reads a game written by {@link #writeState(DataOutputStream)}. */
+    static GameEngine readState(DataInputStream in) throws IOException {
+        return readState(in, null);
+    }
+
+    /**
+     * Reads a game written by {@link #writeState(DataOutputStream, boolean)}
+     * with {@code layout}, or with its walls if {@code layout} is {@code null}.
+     */
+    static GameEngine readState(DataInputStream in, LevelLayout layout) throws IOException {
+        int width = in.readUnsignedShort();
+        int height = in.readUnsignedShort();
+        Difficulty difficulty = Difficulty.values()[in.readUnsignedByte()];
+        GameEngine engine = new GameEngine(width, height, difficulty, in.readBoolean());
+        engine.seed = in.readLong();
+        engine.levelRandom = new GameRandom(in.readLong());
+        engine.foodRandom = new GameRandom(in.readLong());
+        engine.tick = in.readLong();
+        engine.score = in.readInt();
+        engine.effects = new EffectScheduler();
+        engine.effects.read(in);
+        engine.applyEffects();
+        engine.over = in.readBoolean();
+        engine.won = in.readBoolean();
+        int cause = in.readUnsignedByte();
+        engine.deathCause = cause == 0 ? null : DeathCause.values()[cause - 1];
+        engine.lastVacatedCell = in.readInt();
+
+        Board board = new Board(width, height);
+        engine.board = board;
+        if (layout == null) {
+            byte[] walls = new byte[width * height];
+            for (int i = in.readInt(); i > 0; i--) {
+                walls[in.readInt()] = LevelGrid.WALL;
+            }
+            layout = new LevelLayout(width, height, walls);
+        }
+        engine.layout = layout;
+        layout.applyTo(board);
+
+        int foodCell = in.readInt();
+        if (foodCell >= 0) {
+            PowerUpType type = PowerUpType.values()[in.readUnsignedByte()];
+            engine.food = new Food(board.xOf(foodCell), board.yOf(foodCell), type);
+            engine.foodCell = foodCell;
+            board.setFood(foodCell);
+        }
+
+        Direction direction = Direction.values()[in.readUnsignedByte()];
+        Direction pendingDirection = Direction.values()[in.readUnsignedByte()];
+        int pendingGrowth = in.readInt();
+        int[] segments = new int[in.readInt()];
+        segments[0] = in.readInt();
+        int packed = 0;
+        for (int i = 1; i < segments.length; i++) {
+            if (((i - 1) & 3) == 0) packed = in.readUnsignedByte();
+            Direction step = Direction.values()[(packed >> (2 * ((i - 1) & 3))) & 3];
+            segments[i] = engine.wrappedNeighbour(segments[i - 1], step);
+        }
+        engine.snake = new Snake(width, segments, direction, pendingDirection, pendingGrowth);
+        for (int segment : segments) {
+            board.addSnake(segment);
+        }
+        return engine;
+    }
+
+    private int wrappedNeighbour(int cell, Direction dir) {
+        int x = Math.floorMod(cell % gridWidth + dir.getDx(), gridWidth);
+        int y = Math.floorMod(cell / gridWidth + dir.getDy(), gridHeight);
+        return y * gridWidth + x;
+    }
+
+    private Direction stepBetween(int from, int to) {
+        for (Direction dir : Direction.values()) {
+            if (wrappedNeighbour(from, dir) == to) return dir;
+        }
+        throw new IllegalStateException("Segments " + from + " and " + to + " are not adjacent");
+    }
+
+    /** Real-time delay the next tick should take, accounting for speed effects. */
+    public int getTickDelayMs() {
+        return tickDelayMs;
+    }
+
+    public boolean isSpeedBoosted() {
+        return effects.isActive(EffectType.SPEED_BOOST);
+    }
+
+    public boolean isDoublePoints() {
+        return effects.isActive(EffectType.DOUBLE_POINTS);
+    }
+
+    public boolean isInvincible() {
+        return invincible;
+    }
+
+    /** Active power-up effects; read only. */
+    public EffectScheduler getEffects() {
+        return effects;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    /** True once the board is full and no more food can be placed. */
+    public boolean isWon() {
+        return won;
+    }
+
+    /** What killed the snake, or {@code null} while alive or after a win. */
+    public DeathCause getDeathCause() {
+        return deathCause;
+    }
+
+    /** Cell the tail left on the last step, or {@code -1} if the snake grew instead. */
+    public int getLastVacatedCell() {
+        return lastVacatedCell;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public Snake getSnake() {
+        return snake;
+    }
+
+    /** Current food, or {@code null} once the board is full. */
+    public Food getFood() {
+        return food;
+    }
+
+    /** Packed cell of the current food, or {@code -1} once the board is full. */
+    public int getFoodCell() {
+        return food == null ? -1 : foodCell;
+    }
+
+    public LevelLayout getLayout() {
+        return layout;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public boolean isWallMode() {
+        return wallMode;
+    }
+
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    public int getGridHeight() {
+        return gridHeight;
+    }
+}
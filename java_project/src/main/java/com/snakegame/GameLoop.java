@@ -0,0 +1,249 @@
+package com.snakegame;
+
+import jdk.jfr.EventType;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drives a {@link GameEngine} from its own thread on a fixed timestep. Time
+ * is measured with {@link System#nanoTime()} and accumulated, so a late
+ * wake-up runs the missed ticks back to back (up to a small cap) instead of
+ * stretching the game. After every tick an immutable {@link FrameSnapshot} is
+ * published for the renderer.
+ * <p>
+ * Key presses wait in an {@link InputQueue}; each tick takes the first one
+ * that is a valid turn for the snake, so quick corner turns are spread over
+ * consecutive ticks instead of overwriting each other.
+ * <p>
+ * The engine and recorder belong to this thread while it runs; other threads
+ * only submit input and read the latest snapshot.
+ * <p>
+ * Every tick is timed per phase and reported to {@link GameMetrics}, along
+ * with how late it started and how much it allocated, and emitted as a
+ * {@link TickEvent} while flight recording is on.
+ */
+public class GameLoop implements GameSession, Runnable {
+    /** Ticks run back to back after a stall before the backlog is dropped. */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    /** The last stretch before a tick is due is spun rather than parked. */
+    private static final long SPIN_NANOS = 200_000;
+    private static final int INPUT_CAPACITY = 4;
+    private static final EventType TICK_EVENT = EventType.getEventType(TickEvent.class);
+
+    private final GameEngine engine;
+    private final Replay.Recorder recorder;
+    private final Controller controller;
+    private final Consumer<GameLoop> onGameOver;
+    private final InputQueue inputs = new InputQueue(INPUT_CAPACITY);
+    private final TickProfile profile = new TickProfile();
+    private final GameMetrics metrics = GameMetrics.get();
+    private volatile FrameSnapshot snapshot;
+    private volatile boolean running;
+    private Thread thread;
+
+    private volatile long lastJitterNanos;
+    private volatile long maxJitterNanos;
+    private volatile long totalJitterNanos;
+    private volatile long jitterSamples;
+    private volatile long lastInputLatencyNanos;
+    private volatile long maxInputLatencyNanos;
+    private volatile long totalInputLatencyNanos;
+    private volatile long turns;
+    private long pendingDriftNanos;
+
+    /**
+     * {@code controller} steers instead of the keyboard when not {@code null},
+     * and {@code recorder} may be {@code null} for a game that is not recorded;
+     * {@code onGameOver} is called on the loop thread once the game has ended.
+     */
+    public GameLoop(GameEngine engine, Replay.Recorder recorder, Controller controller,
+                    Consumer<GameLoop> onGameOver) {
+        this.engine = engine;
+        this.recorder = recorder;
+        this.controller = controller;
+        this.onGameOver = onGameOver;
+        this.snapshot = FrameSnapshot.capture(engine, System.nanoTime());
+        engine.setProfile(profile);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || engine.isOver()) return;
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the loop and waits for the current tick to finish; the game can be resumed with {@link #start()}. */
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread == null || thread == Thread.currentThread()) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void submit(Direction direction) {
+        inputs.offer(direction, System.nanoTime());
+    }
+
+    @Override
+    public FrameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /** Captures the whole game, e.g. to save it; only call while the loop is stopped. */
+    public GameSnapshot captureGame() {
+        return engine.snapshot();
+    }
+
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        while (running) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+            long stepNanos = engine.getTickDelayMs() * 1_000_000L;
+            if (accumulator >= stepNanos) {
+                recordJitter(accumulator - stepNanos);
+                int caughtUp = 0;
+                while (accumulator >= stepNanos && caughtUp < MAX_CATCH_UP_TICKS) {
+                    accumulator -= stepNanos;
+                    caughtUp++;
+                    if (!tick()) return;
+                    stepNanos = engine.getTickDelayMs() * 1_000_000L;
+                }
+                if (accumulator >= stepNanos) {
+                    accumulator = 0;
+                }
+            }
+            waitNanos(stepNanos - accumulator);
+        }
+    }
+
+    /** Runs one tick and publishes it; returns false once the game has ended. */
+    private boolean tick() {
+        TickEvent event = TICK_EVENT.isEnabled() ? new TickEvent() : null;
+        if (event != null) event.begin();
+        long allocatedBefore = GameMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        Direction input;
+        if (controller != null) {
+            inputs.clear();
+            input = controller.decide(engine);
+        } else {
+            input = nextTurn();
+        }
+        engine.step(input);
+        if (recorder != null) recorder.record(input);
+        long end = System.nanoTime();
+        snapshot = FrameSnapshot.capture(engine, end);
+        long allocated = allocatedBefore < 0 ? -1 : GameMetrics.allocatedBytes() - allocatedBefore;
+        metrics.recordTick(end - start, profile, allocated);
+        if (event != null) commit(event, allocated);
+        pendingDriftNanos = 0;
+        if (engine.isOver()) {
+            running = false;
+            onGameOver.accept(this);
+            return false;
+        }
+        return true;
+    }
+
+    private void commit(TickEvent event, long allocated) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.tick = engine.getTick();
+        event.moveNanos = profile.getNanos(TickProfile.Phase.MOVE);
+        event.collisionNanos = profile.getNanos(TickProfile.Phase.COLLISION);
+        event.eatNanos = profile.getNanos(TickProfile.Phase.EAT);
+        event.spawnNanos = profile.getNanos(TickProfile.Phase.SPAWN);
+        event.driftNanos = pendingDriftNanos;
+        event.allocatedBytes = allocated;
+        event.commit();
+    }
+
+    /** Discards queued presses that would not change course and returns the first real turn, if any. */
+    private Direction nextTurn() {
+        Snake snake = engine.getSnake();
+        while (!inputs.isEmpty()) {
+            Direction direction = inputs.peekDirection();
+            long pressedAt = inputs.peekTimestamp();
+            inputs.remove();
+            if (snake.canTurn(direction)) {
+                recordInputLatency(System.nanoTime() - pressedAt);
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    private void waitNanos(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        if (nanos > SPIN_NANOS) {
+            LockSupport.parkNanos(nanos - SPIN_NANOS);
+        }
+        while (running && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void recordJitter(long nanos) {
+        lastJitterNanos = nanos;
+        maxJitterNanos = Math.max(maxJitterNanos, nanos);
+        totalJitterNanos += nanos;
+        jitterSamples++;
+        pendingDriftNanos = nanos;
+        metrics.recordDrift(nanos);
+    }
+
+    private void recordInputLatency(long nanos) {
+        lastInputLatencyNanos = nanos;
+        maxInputLatencyNanos = Math.max(maxInputLatencyNanos, nanos);
+        totalInputLatencyNanos += nanos;
+        turns++;
+    }
+
+    /** How late the most recent tick started, in microseconds. */
+    public long getLastJitterMicros() {
+        return lastJitterNanos / 1_000;
+    }
+
+    public long getMaxJitterMicros() {
+        return maxJitterNanos / 1_000;
+    }
+
+    public long getMeanJitterMicros() {
+        long count = jitterSamples;
+        return count == 0 ? 0 : totalJitterNanos / count / 1_000;
+    }
+
+    /** Time from the most recent turn's key press to the tick that applied it, in microseconds. */
+    public long getLastInputLatencyMicros() {
+        return lastInputLatencyNanos / 1_000;
+    }
+
+    public long getMaxInputLatencyMicros() {
+        return maxInputLatencyNanos / 1_000;
+    }
+
+    public long getMeanInputLatencyMicros() {
+        long count = turns;
+        return count == 0 ? 0 : totalInputLatencyNanos / count / 1_000;
+    }
+
+    /** Key presses dropped because the input queue was full. */
+    public long getDroppedInputs() {
+        return inputs.getDropped();
+    }
+}
@@ -0,0 +1,225 @@
+package com.snakegame;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide tick and frame measurements. The game loop records every tick
+ * and the panel every paint; the numbers are exposed over JMX through
+ * {@link GameMetricsMXBean} and shown by the panel's debug overlay, and each
+ * tick and paint is also a JFR event ({@link TickEvent}, {@link PaintEvent}).
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    /** Layers painted in order by {@link GamePanel#paintComponent}. */
+    public enum Layer {
+        STATIC,
+        FOOD,
+        SNAKE,
+        HUD,
+        OVERLAY
+    }
+
+    private static final String OBJECT_NAME = "com.snakegame:type=GameMetrics";
+    private static final long FPS_WINDOW_NANOS = 1_000_000_000L;
+    private static final GameMetrics INSTANCE = new GameMetrics();
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                    new ObjectName(OBJECT_NAME));
+        } catch (JMException ignored) {
+        }
+    }
+
+    private final Histogram tick = new Histogram();
+    private final Histogram[] phases = histograms(TickProfile.Phase.values().length);
+    private final Histogram drift = new Histogram();
+    private final Histogram allocation = new Histogram();
+    private final Histogram paint = new Histogram();
+    private final Histogram[] layers = histograms(Layer.values().length);
+    private long windowStart;
+    private long windowFrames;
+    private volatile double framesPerSecond;
+
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    private static Histogram[] histograms(int count) {
+        Histogram[] histograms = new Histogram[count];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new Histogram();
+        }
+        return histograms;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean counter
+                && counter.isThreadAllocatedMemorySupported()) {
+            return counter;
+        }
+        return null;
+    }
+
+    /** Bytes allocated so far by the calling thread, or {@code -1} if the JVM cannot tell. */
+    public static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Called by the game loop thread after each tick. */
+    void recordTick(long nanos, TickProfile profile, long allocatedBytes) {
+        tick.record(nanos);
+        for (TickProfile.Phase phase : TickProfile.Phase.values()) {
+            phases[phase.ordinal()].record(profile.getNanos(phase));
+        }
+        if (allocatedBytes >= 0) allocation.record(allocatedBytes);
+    }
+
+    /** Called by the game loop thread with how late a tick started. */
+    void recordDrift(long nanos) {
+        drift.record(nanos);
+    }
+
+    /** Called on the EDT after each paint with the time spent per layer. */
+    void recordPaint(long nanos, long[] layerNanos, long now) {
+        paint.record(nanos);
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].record(layerNanos[i]);
+        }
+        windowFrames++;
+        long elapsed = now - windowStart;
+        if (elapsed >= FPS_WINDOW_NANOS) {
+            framesPerSecond = windowStart == 0 ? 0 : windowFrames * 1e9 / elapsed;
+            windowStart = now;
+            windowFrames = 0;
+        }
+    }
+
+    public Histogram getTick() {
+        return tick;
+    }
+
+    public Histogram getPhase(TickProfile.Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    public Histogram getDrift() {
+        return drift;
+    }
+
+    public Histogram getAllocation() {
+        return allocation;
+    }
+
+    public Histogram getPaint() {
+        return paint;
+    }
+
+    public Histogram getLayer(Layer layer) {
+        return layers[layer.ordinal()];
+    }
+
+    @Override
+    public long getTicks() {
+        return tick.getCount();
+    }
+
+    @Override
+    public double getTickMeanMicros() {
+        return tick.getMean() / 1_000;
+    }
+
+    @Override
+    public long getTickP99Micros() {
+        return tick.getPercentile(0.99) / 1_000;
+    }
+
+    @Override
+    public long getTickMaxMicros() {
+        return tick.getMax() / 1_000;
+    }
+
+    @Override
+    public Map<String, Double> getTickPhaseMeanMicros() {
+        Map<String, Double> means = new LinkedHashMap<>();
+        for (TickProfile.Phase phase : TickProfile.Phase.values()) {
+            means.put(phase.name().toLowerCase(), phases[phase.ordinal()].getMean() / 1_000);
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Long> getTickHistogram() {
+        return tick.getBuckets(1_000, "µs");
+    }
+
+    @Override
+    public double getDriftMeanMicros() {
+        return drift.getMean() / 1_000;
+    }
+
+    @Override
+    public long getDriftMaxMicros() {
+        return drift.getMax() / 1_000;
+    }
+
+    @Override
+    public double getAllocatedBytesPerTick() {
+        return allocation.getMean();
+    }
+
+    @Override
+    public long getFrames() {
+        return paint.getCount();
+    }
+
+    @Override
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    @Override
+    public double getPaintMeanMicros() {
+        return paint.getMean() / 1_000;
+    }
+
+    @Override
+    public long getPaintP99Micros() {
+        return paint.getPercentile(0.99) / 1_000;
+    }
+
+    @Override
+    public long getPaintMaxMicros() {
+        return paint.getMax() / 1_000;
+    }
+
+    @Override
+    public Map<String, Double> getPaintLayerMeanMicros() {
+        Map<String, Double> means = new LinkedHashMap<>();
+        for (Layer layer : Layer.values()) {
+            means.put(layer.name().toLowerCase(), layers[layer.ordinal()].getMean() / 1_000);
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Long> getPaintHistogram() {
+        return paint.getBuckets(1_000, "µs");
+    }
+
+    @Override
+    public void reset() {
+        tick.reset();
+        drift.reset();
+        allocation.reset();
+        paint.reset();
+        for (Histogram histogram : phases) histogram.reset();
+        for (Histogram histogram : layers) histogram.reset();
+    }
+}
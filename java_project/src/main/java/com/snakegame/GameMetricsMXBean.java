@@ -0,0 +1,47 @@
+package com.snakegame;
+
+import java.util.Map;
+
+/**
+ * Live performance counters, registered as {@code com.snakegame:type=GameMetrics}.
+ * Times are in microseconds; histograms map bucket upper bounds to counts.
+ */
+public interface GameMetricsMXBean {
+    long getTicks();
+
+    double getTickMeanMicros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    /** Mean time of each engine phase: move, collision, eat and spawn. */
+    Map<String, Double> getTickPhaseMeanMicros();
+
+    Map<String, Long> getTickHistogram();
+
+    /** How late ticks start against the difficulty's delay. */
+    double getDriftMeanMicros();
+
+    long getDriftMaxMicros();
+
+    double getAllocatedBytesPerTick();
+
+    long getFrames();
+
+    double getFramesPerSecond();
+
+    double getPaintMeanMicros();
+
+    long getPaintP99Micros();
+
+    long getPaintMaxMicros();
+
+    /** Mean paint time of each layer: static, food, snake, HUD and overlay. */
+    Map<String, Double> getPaintLayerMeanMicros();
+
+    Map<String, Long> getPaintHistogram();
+
+    /** Clears every counter and histogram. */
+    void reset();
+}
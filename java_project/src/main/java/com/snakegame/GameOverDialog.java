@@ -4,14 +4,15 @@ import javax.swing.*;
 import java.awt.*;
 
 /**
- * Dialog shown when the game ends.
+ * Dialog shown when the game ends. Autopilot games cannot be saved to the
+ * high scores, which rank players.
  */
 public class GameOverDialog extends JDialog {
     public GameOverDialog(SnakeGame parentFrame, GamePanel gamePanel, int score, int highScore) {
         super(parentFrame, "Game Over", true);
 
         setLayout(new BorderLayout(15, 15));
-        setSize(340, 280);
+        setSize(340, 300);
         setLocationRelativeTo(parentFrame);
         getContentPane().setBackground(new Color(0x1a1a2e));
 
@@ -39,7 +40,22 @@ public class GameOverDialog extends JDialog {
         highLabel.setForeground(new Color(0x4ecca3));
         highLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         center.add(highLabel);
-        center.add(Box.createVerticalStrut(25));
+        center.add(Box.createVerticalStrut(5));
+
+        // A game that is not recorded has no place among the players
+        boolean ranked = !gamePanel.isAutopilotGame();
+        if (ranked) {
+            Leaderboard leaderboard = gamePanel.getHighScoreManager().getLeaderboard();
+            long rank = leaderboard.rank(gamePanel.getDifficulty(), gamePanel.isWallMode(), score);
+            double top = leaderboard.topPercent(gamePanel.getDifficulty(), gamePanel.isWallMode(), score);
+            JLabel rankLabel = new JLabel(String.format("You placed #%,d (top %s%%)", rank,
+                    top < 1 ? String.format("%.1f", top) : String.format("%.0f", Math.ceil(top))));
+            rankLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+            rankLabel.setForeground(Color.LIGHT_GRAY);
+            rankLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            center.add(rankLabel);
+        }
+        center.add(Box.createVerticalStrut(20));
 
         JPanel namePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         namePanel.setBackground(new Color(0x1a1a2e));
@@ -48,7 +64,14 @@ public class GameOverDialog extends JDialog {
         JTextField nameField = new JTextField(15);
         namePanel.add(nameLabel);
         namePanel.add(nameField);
-        center.add(namePanel);
+        if (ranked) {
+            center.add(namePanel);
+        } else {
+            JLabel autopilotLabel = new JLabel("Autopilot scores are not saved");
+            autopilotLabel.setForeground(Color.LIGHT_GRAY);
+            autopilotLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            center.add(autopilotLabel);
+        }
         center.add(Box.createVerticalStrut(15));
 
         JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
@@ -61,7 +84,8 @@ public class GameOverDialog extends JDialog {
         saveBtn.addActionListener(e -> {
             String name = nameField.getText().trim();
             if (name.isEmpty()) name = "Player";
-            gamePanel.getHighScoreManager().addScore(name, score, gamePanel.getDifficulty());
+            gamePanel.getHighScoreManager().addScore(name, score, gamePanel.getDifficulty(),
+                    gamePanel.isWallMode(), gamePanel.getLastReplay());
             dispose();
             parentFrame.showGameSetup();
         });
@@ -72,8 +96,9 @@ public class GameOverDialog extends JDialog {
         playAgainBtn.setFocusPainted(false);
         playAgainBtn.addActionListener(e -> {
             String name = nameField.getText().trim();
-            if (!name.isEmpty()) {
-                gamePanel.getHighScoreManager().addScore(name, score, gamePanel.getDifficulty());
+            if (ranked && !name.isEmpty()) {
+                gamePanel.getHighScoreManager().addScore(name, score, gamePanel.getDifficulty(),
+                        gamePanel.isWallMode(), gamePanel.getLastReplay());
             }
             dispose();
             parentFrame.showGameSetup();
@@ -86,7 +111,7 @@ public class GameOverDialog extends JDialog {
             dispose();
         });
 
-        btnPanel.add(saveBtn);
+        if (ranked) btnPanel.add(saveBtn);
         btnPanel.add(playAgainBtn);
         btnPanel.add(menuBtn);
         center.add(btnPanel);
@@ -1,182 +1,597 @@
 package com.snakegame;
 
 import javax.swing.*;
+import jdk.jfr.EventType;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Main game panel handling rendering, input, and game logic.
+ * Main game panel handling rendering and input.
+ * <p>
+ * The game itself runs on a {@link GameLoop} thread, or on a server when a
+ * {@link GameClient} is connected. The panel repaints at the display refresh
+ * rate from the session's latest {@link FrameSnapshot}, sliding
+ * the head and tail between cells according to how far the next tick is, so
+ * motion stays smooth whatever the tick rate.
+ * <p>
+ * Grid lines and obstacles never change during a game, so they are drawn once
+ * per camera position into a cached image. A normal tick only repaints the
+ * tiles that changed (the faded front of the snake, the vacated tail and the
+ * old and new food); full repaints are kept for state changes and scrolling.
+ * <p>
+ * Each layer of every paint is timed and reported to {@link GameMetrics} and
+ * as a {@link PaintEvent}; F3 toggles an overlay with the live numbers.
+ * <p>
+ * Recorded games are watched through a {@link ReplayViewer}, with a timeline
+ * along the bottom that can be clicked or dragged to seek.
  */
 public class GamePanel extends JPanel implements ActionListener, KeyListener {
     private static final int TILE_SIZE = 20;
-    private static final int GRID_WIDTH = 30;
-    private static final int GRID_HEIGHT = 25;
+    private static final int VIEW_COLS = 30;
+    private static final int VIEW_ROWS = 25;
+    /** Cells the head may come within of the viewport edge before the camera scrolls. */
+    private static final int CAMERA_MARGIN = 6;
+    /** Body segments past this index are drawn at the minimum alpha. */
+    private static final int FADE_SEGMENTS = 40;
+    private static final float FADE_STEP = 0.02f;
+    private static final int HUD_HEIGHT = 28;
+    private static final int DEFAULT_REFRESH_RATE = 60;
     private static final Color BG_COLOR = new Color(0x1a1a2e);
     private static final Color GRID_COLOR = new Color(0x16213e);
     private static final Color SNAKE_HEAD = new Color(0x4ecca3);
     private static final Color SNAKE_BODY = new Color(0x45b393);
+    private static final Color SNAKE_HEAD_OUTLINE = SNAKE_HEAD.brighter();
+    private static final Color OBSTACLE_COLOR = new Color(0x555555);
+    private static final Color SPEED_COLOR = new Color(0x3498db);
+    private static final Color DOUBLE_POINTS_COLOR = new Color(0x9b59b6);
+    private static final Color SHIELD_COLOR = new Color(0xe67e22);
+    private static final Color PAUSE_SHADE = new Color(0, 0, 0, 150);
+    private static final Color GAME_OVER_SHADE = new Color(0, 0, 0, 180);
+    private static final Color GAME_OVER_COLOR = new Color(0xe74c3c);
+    private static final Font HUD_FONT = new Font("Segoe UI", Font.BOLD, 14);
+    private static final Font PAUSE_FONT = new Font("Segoe UI", Font.BOLD, 36);
+    private static final Font TEXT_FONT = new Font("Segoe UI", Font.PLAIN, 16);
+    private static final Font GAME_OVER_FONT = new Font("Segoe UI", Font.BOLD, 42);
+    private static final Font LARGE_TEXT_FONT = new Font("Segoe UI", Font.PLAIN, 20);
+    private static final Font TITLE_FONT = new Font("Segoe UI", Font.BOLD, 48);
+    private static final Font MENU_FONT = new Font("Segoe UI", Font.PLAIN, 18);
+    private static final Font DEBUG_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color DEBUG_SHADE = new Color(0, 0, 0, 170);
+    private static final int DEBUG_X = 6;
+    private static final int DEBUG_WIDTH = 380;
+    private static final int DEBUG_LINE_HEIGHT = 15;
+    private static final int DEBUG_LINES = 4;
+    private static final int REPLAY_BAR_HEIGHT = 34;
+    private static final int REPLAY_BAR_MARGIN = 10;
+    /** Ticks skipped by SHIFT with the left and right keys while watching a replay. */
+    private static final int REPLAY_JUMP_TICKS = 100;
+    private static final Color REPLAY_TRACK = new Color(0x555555);
+    private static final EventType PAINT_EVENT = EventType.getEventType(PaintEvent.class);
+    private static final char[] SCORE_LABEL = "Score: ".toCharArray();
+    private static final char[] HIGH_SCORE_LABEL = "High Score: ".toCharArray();
+    private static final String REPLAY_FILE = "lastgame.replay";
+    private static final String SAVE_FILE = "savedgame.snapshot";
+    private static final Color[] BODY_FADE = bodyFade();
+    private static final Color[] FOOD_COLORS = new Color[PowerUpType.values().length];
 
-    private Snake snake;
-    private Food food;
-    private List<Obstacle> obstacles;
+    static {
+        for (PowerUpType type : PowerUpType.values()) {
+            FOOD_COLORS[type.ordinal()] = switch (type) {
+                case FOOD -> new Color(0xe74c3c);
+                case GOLDEN -> new Color(0xf1c40f);
+                case SPEED_BOOST -> SPEED_COLOR;
+                case GROW -> new Color(0x2ecc71);
+                case DOUBLE_POINTS -> DOUBLE_POINTS_COLOR;
+                case INVINCIBILITY -> SHIELD_COLOR;
+            };
+        }
+    }
+
+    /*
+     * Antialiased round shapes allocate a Shape per fill, so every tile the
+     * snake and food use is pre-rendered once and blitted instead.
+     */
+    private static final BufferedImage HEAD_SPRITE = headSprite();
+    private static final BufferedImage[] BODY_SPRITES = bodySprites();
+    private static final BufferedImage[] FOOD_SPRITES = foodSprites();
+
+    private Replay.Recorder recorder;
+    private Replay lastReplay;
+    private GameSession session;
+    private InetSocketAddress server;
+    /** Snapshot being rendered; only touched on the EDT. */
+    private FrameSnapshot frame;
     private GameState state = GameState.MENU;
     private Difficulty difficulty = Difficulty.MEDIUM;
-    private int score;
-    private int currentDelay;
-    private long speedBoostUntil;
-    private long doublePointsUntil;
-    private long invincibilityUntil;
     private boolean wallMode = true;
+    private boolean autopilot;
+    private boolean autopilotGame;
+    private int boardWidth = GameEngine.DEFAULT_WIDTH;
+    private int boardHeight = GameEngine.DEFAULT_HEIGHT;
+    private int cameraX;
+    private int cameraY;
+    private BufferedImage staticLayer;
+    private boolean staticLayerValid;
+    private int hudState;
+    private final char[] textBuffer = new char[32];
+    private final Rectangle clipBounds = new Rectangle();
+    private final long[] layerNanos = new long[GameMetrics.Layer.values().length];
+    private final StringBuilder lineText = new StringBuilder(64);
+    private char[] lineChars = new char[64];
+    private boolean debugOverlay;
+    private final Map<Font, FontMetrics> fontMetrics = new IdentityHashMap<>();
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
     private final HighScoreManager highScores;
-    private Timer timer;
+    private final Path savePath = Paths.get(System.getProperty("user.dir"), SAVE_FILE);
+    private boolean hasSavedGame = Files.exists(savePath);
+    /** Saves and deletes of the saved game, run off the EDT one after another. */
+    private CompletableFuture<Void> saveFileTasks = CompletableFuture.completedFuture(null);
+    /** Counts saves and deletes, so a save that finishes after a later one does not claim the file. */
+    private int saveGeneration;
+    private final Path replayPath = Paths.get(System.getProperty("user.dir"), REPLAY_FILE);
+    private boolean hasReplay = Files.exists(replayPath);
+    private Timer frameTimer;
     private final SnakeGame parentFrame;
 
     public GamePanel(SnakeGame parentFrame) {
         this.parentFrame = parentFrame;
         this.highScores = new HighScoreManager();
-        setPreferredSize(new Dimension(GRID_WIDTH * TILE_SIZE, GRID_HEIGHT * TILE_SIZE));
+        setPreferredSize(new Dimension(VIEW_COLS * TILE_SIZE, VIEW_ROWS * TILE_SIZE));
         setBackground(BG_COLOR);
         setFocusable(true);
         addKeyListener(this);
+        MouseAdapter scrubber = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                scrub(e);
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                scrub(e);
+            }
+        };
+        addMouseListener(scrubber);
+        addMouseMotionListener(scrubber);
         setFocusTraversalKeysEnabled(false);
     }
 
     public void startGame() {
-        int startX = GRID_WIDTH / 2;
-        int startY = GRID_HEIGHT / 2;
-        snake = new Snake(startX, startY);
-        List<Point> emptyObstacles = new ArrayList<>();
-        food = Food.createRandom(GRID_WIDTH, GRID_HEIGHT, snake, emptyObstacles, 0);
-        obstacles = Obstacle.generateObstacles(difficulty.getObstacleCount(),
-                GRID_WIDTH, GRID_HEIGHT, snake, food.getPosition());
-        score = 0;
-        speedBoostUntil = 0;
-        doublePointsUntil = 0;
-        invincibilityUntil = 0;
-        currentDelay = difficulty.getDelayMs();
+        closeSession();
+        deleteSavedGame();
+        lastReplay = null;
+        autopilotGame = server == null && autopilot;
+        if (server != null) {
+            recorder = null;
+            try {
+                session = GameClient.connect(server, difficulty, wallMode, boardWidth, boardHeight,
+                        finished -> SwingUtilities.invokeLater(() -> gameOver(finished)));
+            } catch (IOException | IllegalArgumentException e) {
+                session = null;
+                JOptionPane.showMessageDialog(this, "Could not join " + server + ": " + e.getMessage(),
+                        "Connection failed", JOptionPane.ERROR_MESSAGE);
+                resetToMenu();
+                return;
+            }
+        } else {
+            GameEngine engine = new GameEngine(boardWidth, boardHeight, difficulty, wallMode,
+                    ThreadLocalRandom.current().nextLong());
+            recorder = new Replay.Recorder(engine);
+            session = new GameLoop(engine, recorder, autopilot ? new AutopilotController() : null,
+                    finished -> SwingUtilities.invokeLater(() -> gameOver(finished)));
+        }
+        frame = session.getSnapshot();
+        centerCamera();
+        staticLayerValid = false;
         state = GameState.PLAYING;
-        startTimer();
+        startLoop();
         requestFocusInWindow();
         repaint();
     }
 
-    private void startTimer() {
-        if (timer != null) timer.stop();
-        timer = new Timer(currentDelay, this);
-        timer.start();
+    private void startLoop() {
+        session.start();
+        startFrameTimer();
     }
 
-    private int getEffectiveDelay() {
-        int delay = currentDelay;
-        if (System.currentTimeMillis() < speedBoostUntil) {
-            delay = Math.max(30, delay / 2);
+    private void startFrameTimer() {
+        if (frameTimer == null) {
+            frameTimer = new Timer(1000 / refreshRate(), this);
+            frameTimer.setCoalesce(true);
         }
-        return delay;
+        frameTimer.start();
     }
 
+    private void stopLoop() {
+        if (frameTimer != null) frameTimer.stop();
+        if (session != null) session.stop();
+    }
+
+    private void closeSession() {
+        if (frameTimer != null) frameTimer.stop();
+        if (session != null) session.close();
+    }
+
+    private int refreshRate() {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) return DEFAULT_REFRESH_RATE;
+        int rate = config.getDevice().getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+    }
+
+    /** Called once per display frame. */
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (state != GameState.PLAYING) return;
+        if (state != GameState.PLAYING && state != GameState.REPLAY) return;
 
-        int effectiveDelay = getEffectiveDelay();
-        if (timer.getDelay() != effectiveDelay) {
-            timer.setDelay(effectiveDelay);
+        FrameSnapshot previous = frame;
+        frame = session.getSnapshot();
+        if (debugOverlay) repaintDebugOverlay();
+        if (frame == previous) {
+            repaintMovingTiles();
+            return;
         }
 
-        snake.move();
+        int oldCameraX = cameraX;
+        int oldCameraY = cameraY;
+        followHead();
+        // Only a shrink makes the snake shorter, and its dropped tail cells are not tracked;
+        // neither are the cells crossed when several ticks pass at once or a replay seeks
+        if (cameraX != oldCameraX || cameraY != oldCameraY
+                || frame.segments().length < previous.segments().length
+                || frame.tick() != previous.tick() + 1) {
+            staticLayerValid = false;
+            repaint();
+        } else {
+            repaintChangedTiles(previous.foodCell());
+            if (state == GameState.REPLAY) repaintReplayBar();
+        }
+    }
 
-        if (checkWallCollision() || checkObstacleCollision() || checkSelfCollision()) {
-            gameOver();
-            return;
+    /** Repaints the head and tail tiles, which slide between ticks. */
+    private void repaintMovingTiles() {
+        resetDirty();
+        markDirty(frame.headCell());
+        if (frame.segments().length > 1) markDirty(frame.segments()[1]);
+        markDirty(frame.tailCell());
+        markDirty(frame.vacatedCell());
+        repaintDirty();
+    }
+
+    /** Repaints the bounding box of the tiles the last tick touched, plus the HUD if it changed. */
+    private void repaintChangedTiles(int oldFoodCell) {
+        resetDirty();
+        int[] segments = frame.segments();
+        int faded = Math.min(segments.length, FADE_SEGMENTS + 2);
+        for (int i = 0; i < faded; i++) {
+            markDirty(segments[i]);
         }
+        markDirty(frame.tailCell());
+        markDirty(frame.vacatedCell());
+        markDirty(oldFoodCell);
+        markDirty(frame.foodCell());
+        repaintDirty();
 
-        Point head = snake.getHead();
-        if (head.equals(food.getPosition())) {
-            eatFood();
+        int newHudState = currentHudState();
+        if (newHudState != hudState) {
+            hudState = newHudState;
+            repaint(0, 0, getWidth(), HUD_HEIGHT);
         }
+    }
 
-        repaint();
+    private void repaintReplayBar() {
+        repaint(0, getHeight() - REPLAY_BAR_HEIGHT, getWidth(), REPLAY_BAR_HEIGHT);
+    }
+
+    private void repaintDebugOverlay() {
+        repaint(DEBUG_X, HUD_HEIGHT, DEBUG_WIDTH, DEBUG_LINES * DEBUG_LINE_HEIGHT + 6);
+    }
+
+    private void resetDirty() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = Integer.MIN_VALUE;
+        dirtyMaxY = Integer.MIN_VALUE;
+    }
+
+    private void markDirty(int cell) {
+        if (cell < 0) return;
+        Board board = frame.board();
+        int col = board.xOf(cell);
+        int row = board.yOf(cell);
+        if (!isVisible(col, row)) return;
+        int x = screenX(col);
+        int y = screenY(row);
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x + TILE_SIZE);
+        dirtyMaxY = Math.max(dirtyMaxY, y + TILE_SIZE);
     }
 
-    private boolean checkWallCollision() {
-        if (!wallMode) {
-            snake.wrapHead(GRID_WIDTH, GRID_HEIGHT);
-            return false;
+    private void repaintDirty() {
+        if (dirtyMinX <= dirtyMaxX) {
+            repaint(dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX, dirtyMaxY - dirtyMinY);
+        }
+    }
+
+    private int currentHudState() {
+        int flags = (frame.speedBoosted() ? 1 : 0)
+                | (frame.doublePoints() ? 2 : 0)
+                | (frame.invincible() ? 4 : 0);
+        return frame.score() * 8 + flags;
+    }
+
+    private void centerCamera() {
+        Board board = frame.board();
+        int head = frame.headCell();
+        cameraX = clampCamera(board.xOf(head) - VIEW_COLS / 2, board.getWidth(), VIEW_COLS);
+        cameraY = clampCamera(board.yOf(head) - VIEW_ROWS / 2, board.getHeight(), VIEW_ROWS);
+    }
+
+    /** Scrolls only when the head enters the margin, and recenters if it wrapped out of view. */
+    private void followHead() {
+        Board board = frame.board();
+        int headX = board.xOf(frame.headCell());
+        int headY = board.yOf(frame.headCell());
+        if (headX < cameraX || headX >= cameraX + VIEW_COLS
+                || headY < cameraY || headY >= cameraY + VIEW_ROWS) {
+            centerCamera();
+            return;
+        }
+        if (headX < cameraX + CAMERA_MARGIN) {
+            cameraX = headX - CAMERA_MARGIN;
+        } else if (headX >= cameraX + VIEW_COLS - CAMERA_MARGIN) {
+            cameraX = headX - VIEW_COLS + CAMERA_MARGIN + 1;
+        }
+        if (headY < cameraY + CAMERA_MARGIN) {
+            cameraY = headY - CAMERA_MARGIN;
+        } else if (headY >= cameraY + VIEW_ROWS - CAMERA_MARGIN) {
+            cameraY = headY - VIEW_ROWS + CAMERA_MARGIN + 1;
         }
-        if (System.currentTimeMillis() < invincibilityUntil) return false;
-        Point head = snake.getHead();
-        return head.x < 0 || head.x >= GRID_WIDTH || head.y < 0 || head.y >= GRID_HEIGHT;
+        cameraX = clampCamera(cameraX, board.getWidth(), VIEW_COLS);
+        cameraY = clampCamera(cameraY, board.getHeight(), VIEW_ROWS);
     }
 
-    private boolean checkObstacleCollision() {
-        if (System.currentTimeMillis() < invincibilityUntil) return false;
-        Point head = snake.getHead();
-        for (Obstacle obs : obstacles) {
-            if (obs.getPositions().contains(head)) return true;
+    /** Body colours by segment index, fading out and then holding at the last entry. */
+    private static Color[] bodyFade() {
+        Color[] fade = new Color[FADE_SEGMENTS + 1];
+        for (int i = 0; i < fade.length; i++) {
+            float alpha = 1f - i * FADE_STEP;
+            fade[i] = new Color(SNAKE_BODY.getRed(), SNAKE_BODY.getGreen(), SNAKE_BODY.getBlue(),
+                    (int) (255 * alpha));
         }
-        return false;
+        return fade;
     }
 
-    private boolean checkSelfCollision() {
-        if (System.currentTimeMillis() < invincibilityUntil) return false;
-        return snake.collidesWithSelf();
+    private static BufferedImage newSprite() {
+        return new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
     }
 
-    private void eatFood() {
-        PowerUpType type = food.getType();
-        int points = type.getBasePoints();
-        if (System.currentTimeMillis() < doublePointsUntil) points *= 2;
-        score += points;
+    private static Graphics2D spriteGraphics(BufferedImage sprite) {
+        Graphics2D g = sprite.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g;
+    }
 
-        snake.grow(type.getGrowAmount());
+    private static BufferedImage headSprite() {
+        BufferedImage sprite = newSprite();
+        Graphics2D g = spriteGraphics(sprite);
+        g.setColor(SNAKE_HEAD);
+        g.fillRoundRect(1, 1, TILE_SIZE - 2, TILE_SIZE - 2, 6, 6);
+        g.setColor(SNAKE_HEAD_OUTLINE);
+        g.drawRoundRect(1, 1, TILE_SIZE - 2, TILE_SIZE - 2, 6, 6);
+        g.dispose();
+        return sprite;
+    }
 
-        switch (type) {
-            case SPEED_BOOST -> speedBoostUntil = System.currentTimeMillis() + type.getDurationMs();
-            case DOUBLE_POINTS -> doublePointsUntil = System.currentTimeMillis() + type.getDurationMs();
-            case INVINCIBILITY -> invincibilityUntil = System.currentTimeMillis() + type.getDurationMs();
-            default -> {}
+    private static BufferedImage[] bodySprites() {
+        BufferedImage[] sprites = new BufferedImage[BODY_FADE.length];
+        for (int i = 0; i < sprites.length; i++) {
+            sprites[i] = newSprite();
+            Graphics2D g = spriteGraphics(sprites[i]);
+            g.setColor(BODY_FADE[i]);
+            g.fillRoundRect(2, 2, TILE_SIZE - 4, TILE_SIZE - 4, 4, 4);
+            g.dispose();
         }
+        return sprites;
+    }
 
-        spawnNewFood();
+    private static BufferedImage[] foodSprites() {
+        BufferedImage[] sprites = new BufferedImage[FOOD_COLORS.length];
+        for (int i = 0; i < sprites.length; i++) {
+            sprites[i] = newSprite();
+            Graphics2D g = spriteGraphics(sprites[i]);
+            g.setColor(FOOD_COLORS[i]);
+            g.fillOval(2, 2, TILE_SIZE - 4, TILE_SIZE - 4);
+            g.setColor(FOOD_COLORS[i].brighter());
+            g.drawOval(2, 2, TILE_SIZE - 4, TILE_SIZE - 4);
+            g.dispose();
+        }
+        return sprites;
     }
 
-    private void spawnNewFood() {
-        List<Point> allObstaclePoints = obstacles.stream()
-                .flatMap(o -> o.getPositions().stream())
-                .collect(Collectors.toList());
-        food = Food.createRandom(GRID_WIDTH, GRID_HEIGHT, snake, allObstaclePoints, score);
+    private static int clampCamera(int camera, int boardSize, int viewSize) {
+        return Math.max(0, Math.min(camera, boardSize - viewSize));
     }
 
-    private void gameOver() {
+    private void gameOver(GameSession finished) {
+        if (finished != session || state == GameState.GAME_OVER || state == GameState.MENU) return;
         state = GameState.GAME_OVER;
-        if (timer != null) timer.stop();
-        parentFrame.showGameOver(score, highScores.getHighScore());
+        closeSession();
+        frame = session.getSnapshot();
+        repaint();
+        if (recorder != null) saveReplay();
+        deleteSavedGame();
+        parentFrame.showGameOver(frame.score(), highScores.getHighScore());
         repaint();
     }
 
+    private void saveReplay() {
+        lastReplay = recorder.finish();
+        try {
+            lastReplay.save(replayPath);
+            hasReplay = true;
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Shows {@code replay} from {@code tick}. It plays at once from the start,
+     * and waits paused anywhere else, so a moment of interest can be inspected.
+     */
+    public void watchReplay(Replay replay, long tick) {
+        closeSession();
+        recorder = null;
+        lastReplay = null;
+        ReplayViewer viewer = new ReplayViewer(replay);
+        viewer.seek(tick);
+        session = viewer;
+        frame = session.getSnapshot();
+        centerCamera();
+        staticLayerValid = false;
+        state = GameState.REPLAY;
+        if (tick <= 0) viewer.start();
+        startFrameTimer();
+        requestFocusInWindow();
+        repaint();
+    }
+
+    private void watchLastReplay() {
+        try {
+            watchReplay(Replay.load(replayPath), 0);
+        } catch (IOException e) {
+            hasReplay = false;
+            repaint();
+        }
+    }
+
+    /** Replay of the game that just finished, or {@code null} if it was not recorded. */
+    public Replay getLastReplay() {
+        return lastReplay;
+    }
+
     public void setDifficulty(Difficulty difficulty) {
         this.difficulty = difficulty;
-        this.currentDelay = difficulty.getDelayMs();
     }
 
     public void setWallMode(boolean wallMode) {
         this.wallMode = wallMode;
     }
 
+    public void setAutopilot(boolean autopilot) {
+        this.autopilot = autopilot;
+    }
+
+    /** Whether the current or last game was played by the autopilot, so its score is not a player's. */
+    public boolean isAutopilotGame() {
+        return autopilotGame;
+    }
+
+    /** Plays on the server at {@code server} from now on, or locally if {@code null}. */
+    public void setServer(InetSocketAddress server) {
+        this.server = server;
+    }
+
+    /** Whether games are played on a server, which limits the board size. */
+    public boolean isRemote() {
+        return server != null;
+    }
+
+    public void setBoardSize(int width, int height) {
+        this.boardWidth = width;
+        this.boardHeight = height;
+    }
+
+    /** Pauses the game and, if it runs locally, saves it so it can be resumed after a restart. */
     public void pauseGame() {
         if (state == GameState.PLAYING) {
             state = GameState.PAUSED;
-            if (timer != null) timer.stop();
+            stopLoop();
+            frame = session.getSnapshot();
+            if (session instanceof GameLoop local) saveGame(local.captureGame());
+            repaint();
+        }
+    }
+
+    /** Saves {@code snapshot} in the background; it can be resumed once the save has finished. */
+    private void saveGame(GameSnapshot snapshot) {
+        int generation = ++saveGeneration;
+        saveFileTasks = saveFileTasks.thenRunAsync(() -> {
+            try {
+                snapshot.save(savePath);
+            } catch (IOException e) {
+                System.err.println("Could not save the paused game to " + savePath + " (" + e + ")");
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (generation == saveGeneration) {
+                    hasSavedGame = true;
+                    repaint();
+                }
+            });
+        });
+    }
+
+    private void deleteSavedGame() {
+        // A save still running, or finished but not yet marked, may have written the file
+        saveGeneration++;
+        hasSavedGame = false;
+        saveFileTasks = saveFileTasks.thenRunAsync(() -> {
+            try {
+                Files.deleteIfExists(savePath);
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    /**
+     * Loads the game saved on the last pause and shows it paused. It is not
+     * recorded, since a replay has to start from the beginning of a game.
+     */
+    private void resumeSavedGame() {
+        GameEngine engine;
+        try {
+            engine = GameSnapshot.load(savePath).fork();
+        } catch (IOException e) {
+            deleteSavedGame();
+            repaint();
+            return;
         }
+        difficulty = engine.getDifficulty();
+        wallMode = engine.isWallMode();
+        boardWidth = engine.getGridWidth();
+        boardHeight = engine.getGridHeight();
+        recorder = null;
+        lastReplay = null;
+        autopilotGame = false;
+        session = new GameLoop(engine, null, null,
+                finished -> SwingUtilities.invokeLater(() -> gameOver(finished)));
+        frame = session.getSnapshot();
+        centerCamera();
+        staticLayerValid = false;
+        state = GameState.PAUSED;
+        requestFocusInWindow();
+        repaint();
     }
 
     public void resumeGame() {
         if (state == GameState.PAUSED) {
             state = GameState.PLAYING;
-            startTimer();
+            startLoop();
+            repaint();
         }
     }
 
@@ -192,9 +607,22 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
         return difficulty;
     }
 
+    public boolean isWallMode() {
+        return wallMode;
+    }
+
+    /** Shows the given engine as a running game without driving it; used by benchmarks. */
+    void display(GameEngine engine) {
+        closeSession();
+        this.frame = FrameSnapshot.capture(engine, System.nanoTime());
+        this.state = GameState.PLAYING;
+        centerCamera();
+        staticLayerValid = false;
+    }
+
     public void resetToMenu() {
         state = GameState.MENU;
-        if (timer != null) timer.stop();
+        closeSession();
         repaint();
     }
 
@@ -202,141 +630,375 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         if (state == GameState.MENU) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             drawMenu(g2d);
             return;
         }
 
-        drawGrid(g2d);
-        drawObstacles(g2d);
+        PaintEvent event = PAINT_EVENT.isEnabled() ? new PaintEvent() : null;
+        if (event != null) event.begin();
+        long start = System.nanoTime();
+        drawStaticLayer(g2d);
+        long mark = lap(GameMetrics.Layer.STATIC, start);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         drawFood(g2d);
+        mark = lap(GameMetrics.Layer.FOOD, mark);
         drawSnake(g2d);
+        mark = lap(GameMetrics.Layer.SNAKE, mark);
         drawHUD(g2d);
+        mark = lap(GameMetrics.Layer.HUD, mark);
 
         if (state == GameState.PAUSED) {
             drawPauseOverlay(g2d);
         } else if (state == GameState.GAME_OVER) {
             drawGameOverOverlay(g2d);
+        } else if (state == GameState.REPLAY) {
+            drawReplayBar(g2d);
         }
+        long end = lap(GameMetrics.Layer.OVERLAY, mark);
+        GameMetrics.get().recordPaint(end - start, layerNanos, end);
+        if (event != null) commit(event, g2d);
+    }
+
+    /** Charges the time since {@code mark} to {@code layer} and returns the current time. */
+    private long lap(GameMetrics.Layer layer, long mark) {
+        long now = System.nanoTime();
+        layerNanos[layer.ordinal()] = now - mark;
+        return now;
+    }
+
+    private void commit(PaintEvent event, Graphics2D g) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.staticNanos = layerNanos[GameMetrics.Layer.STATIC.ordinal()];
+        event.foodNanos = layerNanos[GameMetrics.Layer.FOOD.ordinal()];
+        event.snakeNanos = layerNanos[GameMetrics.Layer.SNAKE.ordinal()];
+        event.hudNanos = layerNanos[GameMetrics.Layer.HUD.ordinal()];
+        event.overlayNanos = layerNanos[GameMetrics.Layer.OVERLAY.ordinal()];
+        clipBounds.setBounds(0, 0, getWidth(), getHeight());
+        Rectangle clip = g.getClipBounds(clipBounds);
+        event.fullRepaint = clip.width >= getWidth() && clip.height >= getHeight();
+        event.commit();
+    }
+
+    private int visibleCols() {
+        return Math.min(VIEW_COLS, frame.board().getWidth());
+    }
+
+    private int visibleRows() {
+        return Math.min(VIEW_ROWS, frame.board().getHeight());
+    }
+
+    /** Screen x of a board column; boards smaller than the view are centered. */
+    private int screenX(int col) {
+        int origin = (VIEW_COLS - visibleCols()) * TILE_SIZE / 2;
+        return origin + (col - cameraX) * TILE_SIZE;
+    }
+
+    private int screenY(int row) {
+        int origin = (VIEW_ROWS - visibleRows()) * TILE_SIZE / 2;
+        return origin + (row - cameraY) * TILE_SIZE;
+    }
+
+    private boolean isVisible(int col, int row) {
+        return col >= cameraX && col < cameraX + visibleCols()
+                && row >= cameraY && row < cameraY + visibleRows();
+    }
+
+    private void drawStaticLayer(Graphics2D g) {
+        if (staticLayer == null || staticLayer.getWidth() != getWidth()
+                || staticLayer.getHeight() != getHeight()) {
+            GraphicsConfiguration config = getGraphicsConfiguration();
+            staticLayer = config != null
+                    ? config.createCompatibleImage(getWidth(), getHeight())
+                    : new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+            staticLayerValid = false;
+        }
+        if (!staticLayerValid) {
+            Graphics2D layer = staticLayer.createGraphics();
+            layer.setColor(BG_COLOR);
+            layer.fillRect(0, 0, staticLayer.getWidth(), staticLayer.getHeight());
+            drawGrid(layer);
+            drawObstacles(layer);
+            layer.dispose();
+            staticLayerValid = true;
+        }
+        g.drawImage(staticLayer, 0, 0, null);
     }
 
     private void drawGrid(Graphics2D g) {
         g.setColor(GRID_COLOR);
-        for (int x = 0; x <= GRID_WIDTH; x++) {
-            g.drawLine(x * TILE_SIZE, 0, x * TILE_SIZE, getHeight());
+        int cols = visibleCols();
+        int rows = visibleRows();
+        int left = screenX(cameraX);
+        int top = screenY(cameraY);
+        int right = left + cols * TILE_SIZE;
+        int bottom = top + rows * TILE_SIZE;
+        for (int x = 0; x <= cols; x++) {
+            g.drawLine(left + x * TILE_SIZE, top, left + x * TILE_SIZE, bottom);
         }
-        for (int y = 0; y <= GRID_HEIGHT; y++) {
-            g.drawLine(0, y * TILE_SIZE, getWidth(), y * TILE_SIZE);
+        for (int y = 0; y <= rows; y++) {
+            g.drawLine(left, top + y * TILE_SIZE, right, top + y * TILE_SIZE);
         }
     }
 
     private void drawSnake(Graphics2D g) {
-        List<Point> body = snake.getBody();
-        for (int i = 0; i < body.size(); i++) {
-            Point p = body.get(i);
-            int x = p.x * TILE_SIZE;
-            int y = p.y * TILE_SIZE;
-            if (i == 0) {
-                g.setColor(SNAKE_HEAD);
-                g.fillRoundRect(x + 1, y + 1, TILE_SIZE - 2, TILE_SIZE - 2, 6, 6);
-                g.setColor(SNAKE_HEAD.brighter());
-                g.drawRoundRect(x + 1, y + 1, TILE_SIZE - 2, TILE_SIZE - 2, 6, 6);
-            } else {
-                float alpha = 1f - (i * 0.02f);
-                g.setColor(new Color(SNAKE_BODY.getRed(), SNAKE_BODY.getGreen(), SNAKE_BODY.getBlue(), (int)(255 * alpha)));
-                g.fillRoundRect(x + 2, y + 2, TILE_SIZE - 4, TILE_SIZE - 4, 4, 4);
-            }
+        int[] segments = frame.segments();
+        Board board = frame.board();
+        clipBounds.setBounds(0, 0, getWidth(), getHeight());
+        Rectangle clip = g.getClipBounds(clipBounds);
+        boolean moving = state == GameState.PLAYING
+                || (session instanceof ReplayViewer viewer && viewer.isPlaying());
+        float progress = moving ? frame.progress(System.nanoTime()) : 1f;
+        int last = segments.length - 1;
+        // The tail trails a copy from the cell it left, and the head slides in from the cell behind it
+        if (frame.vacatedCell() >= 0) {
+            drawSliding(g, board, BODY_SPRITES[Math.min(last, FADE_SEGMENTS)],
+                    frame.vacatedCell(), segments[last], progress);
         }
+        for (int i = last; i > 0; i--) {
+            int col = board.xOf(segments[i]);
+            int row = board.yOf(segments[i]);
+            if (!isVisible(col, row)) continue;
+            int x = screenX(col);
+            int y = screenY(row);
+            if (!clip.intersects(x, y, TILE_SIZE, TILE_SIZE)) continue;
+            g.drawImage(BODY_SPRITES[Math.min(i, FADE_SEGMENTS)], x, y, null);
+        }
+        drawSliding(g, board, HEAD_SPRITE, segments[Math.min(1, last)], segments[0], progress);
     }
 
-    private void drawFood(Graphics2D g) {
-        Point pos = food.getPosition();
-        int x = pos.x * TILE_SIZE;
-        int y = pos.y * TILE_SIZE;
-
-        Color color = switch (food.getType()) {
-            case FOOD -> new Color(0xe74c3c);
-            case GOLDEN -> new Color(0xf1c40f);
-            case SPEED_BOOST -> new Color(0x3498db);
-            case GROW -> new Color(0x2ecc71);
-            case DOUBLE_POINTS -> new Color(0x9b59b6);
-            case INVINCIBILITY -> new Color(0xe67e22);
-        };
+    /** Draws a sprite part way from one cell to a neighbouring one; wraps jump straight to the target. */
+    private void drawSliding(Graphics2D g, Board board, BufferedImage sprite, int from, int to, float progress) {
+        int toCol = board.xOf(to);
+        int toRow = board.yOf(to);
+        int fromCol = board.xOf(from);
+        int fromRow = board.yOf(from);
+        if (Math.abs(toCol - fromCol) + Math.abs(toRow - fromRow) != 1) {
+            fromCol = toCol;
+            fromRow = toRow;
+        }
+        if (!isVisible(toCol, toRow) || !isVisible(fromCol, fromRow)) {
+            if (isVisible(toCol, toRow)) g.drawImage(sprite, screenX(toCol), screenY(toRow), null);
+            return;
+        }
+        int x = screenX(fromCol) + Math.round((toCol - fromCol) * TILE_SIZE * progress);
+        int y = screenY(fromRow) + Math.round((toRow - fromRow) * TILE_SIZE * progress);
+        g.drawImage(sprite, x, y, null);
+    }
 
-        g.setColor(color);
-        g.fillOval(x + 2, y + 2, TILE_SIZE - 4, TILE_SIZE - 4);
-        g.setColor(color.brighter());
-        g.drawOval(x + 2, y + 2, TILE_SIZE - 4, TILE_SIZE - 4);
+    private void drawFood(Graphics2D g) {
+        int cell = frame.foodCell();
+        if (cell < 0) return;
+        Board board = frame.board();
+        int col = board.xOf(cell);
+        int row = board.yOf(cell);
+        if (!isVisible(col, row)) return;
+        g.drawImage(FOOD_SPRITES[frame.foodType().ordinal()], screenX(col), screenY(row), null);
     }
 
     private void drawObstacles(Graphics2D g) {
-        g.setColor(new Color(0x555555));
-        for (Obstacle obs : obstacles) {
-            for (Point p : obs.getPositions()) {
-                int x = p.x * TILE_SIZE;
-                int y = p.y * TILE_SIZE;
-                g.fillRect(x + 1, y + 1, TILE_SIZE - 2, TILE_SIZE - 2);
+        Board board = frame.board();
+        g.setColor(OBSTACLE_COLOR);
+        for (int row = cameraY; row < cameraY + visibleRows(); row++) {
+            for (int col = cameraX; col < cameraX + visibleCols(); col++) {
+                if (board.hasObstacle(board.cellOf(col, row))) {
+                    g.fillRect(screenX(col) + 1, screenY(row) + 1, TILE_SIZE - 2, TILE_SIZE - 2);
+                }
             }
         }
     }
 
     private void drawHUD(Graphics2D g) {
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        g.drawString("Score: " + score, 10, 20);
+        g.setFont(HUD_FONT);
+        int length = formatNumber(SCORE_LABEL, frame.score());
+        g.drawChars(textBuffer, 0, length, 10, 20);
 
-        long now = System.currentTimeMillis();
-        if (now < speedBoostUntil) {
-            g.setColor(new Color(0x3498db));
+        if (frame.speedBoosted()) {
+            g.setColor(SPEED_COLOR);
             g.drawString("SPEED!", getWidth() - 60, 20);
         }
-        if (now < doublePointsUntil) {
-            g.setColor(new Color(0x9b59b6));
+        if (frame.doublePoints()) {
+            g.setColor(DOUBLE_POINTS_COLOR);
             g.drawString("2x", getWidth() - 90, 20);
         }
-        if (now < invincibilityUntil) {
-            g.setColor(new Color(0xe67e22));
+        if (frame.invincible()) {
+            g.setColor(SHIELD_COLOR);
             g.drawString("SHIELD", getWidth() - 140, 20);
         }
+        if (debugOverlay) drawDebugOverlay(g);
+    }
+
+    /** Live numbers from {@link GameMetrics}, built in a reused buffer so drawing them allocates nothing. */
+    private void drawDebugOverlay(Graphics2D g) {
+        GameMetrics metrics = GameMetrics.get();
+        g.setColor(DEBUG_SHADE);
+        g.fillRect(DEBUG_X, HUD_HEIGHT, DEBUG_WIDTH, DEBUG_LINES * DEBUG_LINE_HEIGHT + 6);
+        g.setColor(Color.WHITE);
+        g.setFont(DEBUG_FONT);
+        int y = HUD_HEIGHT + DEBUG_LINE_HEIGHT;
+
+        lineText.setLength(0);
+        lineText.append("fps ").append(Math.round(metrics.getFramesPerSecond()))
+                .append("  paint ").append(micros(metrics.getPaint().getRecent()))
+                .append(" µs  p99 ").append(metrics.getPaint().getPercentile(0.99) / 1_000)
+                .append(" µs");
+        y = drawDebugLine(g, y);
+
+        lineText.setLength(0);
+        lineText.append("tick ").append(micros(metrics.getTick().getRecent())).append(" µs");
+        for (TickProfile.Phase phase : TickProfile.Phase.values()) {
+            lineText.append("  ").append(phase.getLabel()).append(' ')
+                    .append(micros(metrics.getPhase(phase).getRecent()));
+        }
+        y = drawDebugLine(g, y);
+
+        lineText.setLength(0);
+        lineText.append("drift ").append(micros(metrics.getDrift().getRecent()))
+                .append(" µs  max ").append(metrics.getDrift().getMax() / 1_000)
+                .append(" µs  alloc ").append(Math.round(metrics.getAllocation().getRecent()))
+                .append(" B/tick");
+        y = drawDebugLine(g, y);
+
+        lineText.setLength(0);
+        if (session instanceof GameLoop loop) {
+            lineText.append("input ").append(loop.getLastInputLatencyMicros())
+                    .append(" µs  max ").append(loop.getMaxInputLatencyMicros())
+                    .append(" µs  dropped ").append(loop.getDroppedInputs());
+        } else if (session instanceof ReplayViewer) {
+            lineText.append("replay, ticks are read from the recording");
+        } else {
+            lineText.append("remote game, ticks run on the server");
+        }
+        drawDebugLine(g, y);
+    }
+
+    private static long micros(double nanos) {
+        return Math.round(nanos / 1_000);
+    }
+
+    private int drawDebugLine(Graphics2D g, int y) {
+        drawLineText(g, DEBUG_X + 6, y);
+        return y + DEBUG_LINE_HEIGHT;
+    }
+
+    private void drawLineText(Graphics2D g, int x, int y) {
+        int length = lineText.length();
+        if (length > lineChars.length) lineChars = new char[length * 2];
+        lineText.getChars(0, length, lineChars, 0);
+        g.drawChars(lineChars, 0, length, x, y);
+    }
+
+    /** Play state, speed, tick and score above a timeline of the whole recording. */
+    private void drawReplayBar(Graphics2D g) {
+        if (!(session instanceof ReplayViewer viewer)) return;
+        int top = getHeight() - REPLAY_BAR_HEIGHT;
+        g.setColor(DEBUG_SHADE);
+        g.fillRect(0, top, getWidth(), REPLAY_BAR_HEIGHT);
+
+        lineText.setLength(0);
+        lineText.append(viewer.isPlaying() ? "> " : "|| ");
+        double speed = viewer.getSpeed();
+        if (speed < 1) lineText.append(speed);
+        else lineText.append((int) speed);
+        lineText.append("x  tick ").append(viewer.getTick()).append(" / ")
+                .append(viewer.getReplay().getTickCount())
+                .append("  score ").append(frame.score());
+        g.setColor(Color.WHITE);
+        g.setFont(DEBUG_FONT);
+        drawLineText(g, REPLAY_BAR_MARGIN, top + 15);
+
+        int trackWidth = getWidth() - 2 * REPLAY_BAR_MARGIN;
+        int trackY = getHeight() - 10;
+        g.setColor(REPLAY_TRACK);
+        g.fillRect(REPLAY_BAR_MARGIN, trackY, trackWidth, 4);
+        long total = Math.max(1, viewer.getReplay().getTickCount());
+        g.setColor(SNAKE_HEAD);
+        g.fillRect(REPLAY_BAR_MARGIN, trackY, (int) (trackWidth * viewer.getTick() / total), 4);
+    }
+
+    /** Seeks a replay to the point of the timeline under the mouse. */
+    private void scrub(MouseEvent e) {
+        if (state != GameState.REPLAY || !(session instanceof ReplayViewer viewer)) return;
+        if (e.getY() < getHeight() - REPLAY_BAR_HEIGHT) return;
+        double fraction = (double) (e.getX() - REPLAY_BAR_MARGIN) / (getWidth() - 2 * REPLAY_BAR_MARGIN);
+        viewer.seek(Math.round(Math.max(0, Math.min(1, fraction)) * viewer.getReplay().getTickCount()));
+    }
+
+    /** Writes {@code label} followed by {@code value} into the text buffer and returns its length. */
+    private int formatNumber(char[] label, int value) {
+        System.arraycopy(label, 0, textBuffer, 0, label.length);
+        int end = label.length;
+        if (value < 0) {
+            textBuffer[end++] = '-';
+            value = -value;
+        }
+        int digitsStart = end;
+        do {
+            textBuffer[end++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = digitsStart, j = end - 1; i < j; i++, j--) {
+            char c = textBuffer[i];
+            textBuffer[i] = textBuffer[j];
+            textBuffer[j] = c;
+        }
+        return end;
+    }
+
+    private FontMetrics metrics(Font font) {
+        FontMetrics fm = fontMetrics.get(font);
+        if (fm == null) {
+            fm = getFontMetrics(font);
+            fontMetrics.put(font, fm);
+        }
+        return fm;
+    }
+
+    private void drawCentered(Graphics2D g, Font font, String text, int y) {
+        g.setFont(font);
+        g.drawString(text, (getWidth() - metrics(font).stringWidth(text)) / 2, y);
+    }
+
+    private void drawCentered(Graphics2D g, Font font, int length, int y) {
+        g.setFont(font);
+        g.drawChars(textBuffer, 0, length, (getWidth() - metrics(font).charsWidth(textBuffer, 0, length)) / 2, y);
     }
 
     private void drawPauseOverlay(Graphics2D g) {
-        g.setColor(new Color(0, 0, 0, 150));
+        g.setColor(PAUSE_SHADE);
         g.fillRect(0, 0, getWidth(), getHeight());
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Segoe UI", Font.BOLD, 36));
-        String text = "PAUSED";
-        FontMetrics fm = g.getFontMetrics();
-        g.drawString(text, (getWidth() - fm.stringWidth(text)) / 2, getHeight() / 2 - 20);
-        g.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-        g.drawString("Press SPACE to resume", (getWidth() - g.getFontMetrics().stringWidth("Press SPACE to resume")) / 2, getHeight() / 2 + 20);
+        drawCentered(g, PAUSE_FONT, "PAUSED", getHeight() / 2 - 20);
+        drawCentered(g, TEXT_FONT, "Press SPACE to resume", getHeight() / 2 + 20);
     }
 
     private void drawGameOverOverlay(Graphics2D g) {
-        g.setColor(new Color(0, 0, 0, 180));
+        g.setColor(GAME_OVER_SHADE);
         g.fillRect(0, 0, getWidth(), getHeight());
-        g.setColor(new Color(0xe74c3c));
-        g.setFont(new Font("Segoe UI", Font.BOLD, 42));
-        String text = "GAME OVER";
-        FontMetrics fm = g.getFontMetrics();
-        g.drawString(text, (getWidth() - fm.stringWidth(text)) / 2, getHeight() / 2 - 50);
+        g.setColor(GAME_OVER_COLOR);
+        drawCentered(g, GAME_OVER_FONT, frame.won() ? "YOU WIN" : "GAME OVER", getHeight() / 2 - 50);
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Segoe UI", Font.PLAIN, 20));
-        g.drawString("Score: " + score, (getWidth() - g.getFontMetrics().stringWidth("Score: " + score)) / 2, getHeight() / 2);
+        drawCentered(g, LARGE_TEXT_FONT, formatNumber(SCORE_LABEL, frame.score()), getHeight() / 2);
     }
 
     private void drawMenu(Graphics2D g) {
-        g.setColor(new Color(0x4ecca3));
-        g.setFont(new Font("Segoe UI", Font.BOLD, 48));
-        String title = "SNAKE";
-        FontMetrics fm = g.getFontMetrics();
-        g.drawString(title, (getWidth() - fm.stringWidth(title)) / 2, getHeight() / 3);
-        g.setFont(new Font("Segoe UI", Font.PLAIN, 18));
+        g.setColor(SNAKE_HEAD);
+        drawCentered(g, TITLE_FONT, "SNAKE", getHeight() / 3);
         g.setColor(Color.WHITE);
-        g.drawString("High Score: " + highScores.getHighScore(), (getWidth() - g.getFontMetrics().stringWidth("High Score: " + highScores.getHighScore())) / 2, getHeight() / 2);
-        g.drawString("Press SPACE to start", (getWidth() - g.getFontMetrics().stringWidth("Press SPACE to start")) / 2, getHeight() / 2 + 40);
+        drawCentered(g, MENU_FONT, formatNumber(HIGH_SCORE_LABEL, highScores.getHighScore()), getHeight() / 2);
+        drawCentered(g, MENU_FONT, "Press SPACE to start", getHeight() / 2 + 40);
+        int y = getHeight() / 2 + 70;
+        if (hasSavedGame) {
+            drawCentered(g, MENU_FONT, "Press R to resume your saved game", y);
+            y += 30;
+        }
+        if (hasReplay) {
+            drawCentered(g, MENU_FONT, "Press V to watch your last game", y);
+        }
     }
 
     @Override
@@ -345,10 +1007,23 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
         if (state == GameState.MENU) {
             if (key == KeyEvent.VK_SPACE) {
                 parentFrame.showGameSetup();
+            } else if (key == KeyEvent.VK_R && hasSavedGame) {
+                resumeSavedGame();
+            } else if (key == KeyEvent.VK_V && hasReplay) {
+                watchLastReplay();
             }
             return;
         }
+        if (key == KeyEvent.VK_F3) {
+            debugOverlay = !debugOverlay;
+            repaint();
+            return;
+        }
         if (state == GameState.GAME_OVER) return;
+        if (state == GameState.REPLAY) {
+            replayKeyPressed(e);
+            return;
+        }
 
         if (key == KeyEvent.VK_SPACE) {
             if (state == GameState.PAUSED) resumeGame();
@@ -359,15 +1034,51 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener {
         if (state != GameState.PLAYING) return;
 
         switch (key) {
-            case KeyEvent.VK_UP, KeyEvent.VK_W -> snake.setDirection(Direction.UP);
-            case KeyEvent.VK_DOWN, KeyEvent.VK_S -> snake.setDirection(Direction.DOWN);
-            case KeyEvent.VK_LEFT, KeyEvent.VK_A -> snake.setDirection(Direction.LEFT);
-            case KeyEvent.VK_RIGHT, KeyEvent.VK_D -> snake.setDirection(Direction.RIGHT);
+            case KeyEvent.VK_UP, KeyEvent.VK_W -> session.submit(Direction.UP);
+            case KeyEvent.VK_DOWN, KeyEvent.VK_S -> session.submit(Direction.DOWN);
+            case KeyEvent.VK_LEFT, KeyEvent.VK_A -> session.submit(Direction.LEFT);
+            case KeyEvent.VK_RIGHT, KeyEvent.VK_D -> session.submit(Direction.RIGHT);
             case KeyEvent.VK_ESCAPE -> pauseGame();
             default -> {}
         }
     }
 
+    private void replayKeyPressed(KeyEvent e) {
+        if (!(session instanceof ReplayViewer viewer)) return;
+        int key = e.getKeyCode();
+        long jump = e.isShiftDown() ? REPLAY_JUMP_TICKS : 0;
+        switch (key) {
+            case KeyEvent.VK_SPACE -> {
+                if (viewer.isPlaying()) viewer.stop();
+                else viewer.start();
+            }
+            case KeyEvent.VK_LEFT, KeyEvent.VK_A -> {
+                if (jump > 0) viewer.seek(viewer.getTick() - jump);
+                else viewer.stepBy(-1);
+            }
+            case KeyEvent.VK_RIGHT, KeyEvent.VK_D -> {
+                if (jump > 0) viewer.seek(viewer.getTick() + jump);
+                else viewer.stepBy(1);
+            }
+            case KeyEvent.VK_UP, KeyEvent.VK_W -> viewer.changeSpeed(1);
+            case KeyEvent.VK_DOWN, KeyEvent.VK_S -> viewer.changeSpeed(-1);
+            case KeyEvent.VK_HOME -> viewer.seek(0);
+            case KeyEvent.VK_END -> viewer.seek(viewer.getReplay().getTickCount());
+            case KeyEvent.VK_ESCAPE -> {
+                resetToMenu();
+                return;
+            }
+            default -> {
+                if (key >= KeyEvent.VK_0 && key <= KeyEvent.VK_9) {
+                    viewer.seek(viewer.getReplay().getTickCount() * (key - KeyEvent.VK_0) / 10);
+                } else {
+                    return;
+                }
+            }
+        }
+        repaint();
+    }
+
     @Override
     public void keyReleased(KeyEvent e) {}
 
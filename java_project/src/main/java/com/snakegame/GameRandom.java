@@ -0,0 +1,66 @@
+package com.snakegame;
+
+/**
+ * Seedable, splittable SplitMix64 generator. Every random decision in a game
+ * comes from one of these, so a seed plus the input stream reproduces a game
+ * exactly. The whole state is a single {@code long}, which makes it cheap to
+ * copy and to persist.
+ */
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    /** Returns an independent generator seeded from this one's stream. */
+    public GameRandom split() {
+        return new GameRandom(mix(nextLong() ^ GOLDEN_GAMMA));
+    }
+
+    /** Reseeds {@code target} as {@link #split} seeds the generator it returns, without allocating. */
+    public void splitInto(GameRandom target) {
+        target.state = mix(nextLong() ^ GOLDEN_GAMMA);
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /** Uniform int in {@code [0, bound)}. */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >>> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+        }
+        return r;
+    }
+
+    /** Uniform double in {@code [0, 1)}. */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,404 @@
+package com.snakegame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Authoritative game server. Every connection gets its own room with a
+ * {@link GameEngine}; the client sends key presses and receives a
+ * {@link NetProtocol} delta after each tick.
+ * <p>
+ * All rooms share one thread and one {@link Selector}. Rooms waiting for
+ * their next tick sit in a queue ordered by due time, and the selector sleeps
+ * until the earliest one is due or a socket is ready. A room's memory is
+ * bounded by its board, which is capped at {@link NetProtocol#MAX_SIDE}: the
+ * outgoing buffer holds one full state frame plus a backlog of deltas, and a
+ * client that lets it fill up is disconnected rather than buffered for.
+ * <p>
+ * Usage: {@code --server PORT [--max-rooms N]}
+ */
+public class GameServer implements Runnable, Closeable {
+    private static final int INPUT_BUFFER = 256;
+    private static final int DELTA_BACKLOG = 4096;
+    private static final int INPUT_CAPACITY = 4;
+    private static final int MIN_SIDE = 10;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final int maxRooms;
+    private final PriorityQueue<Room> schedule =
+            new PriorityQueue<>(Comparator.comparingLong((Room room) -> room.dueNanos));
+    private volatile int roomCount;
+    private int nextRoomId = 1;
+    private volatile boolean running = true;
+
+    public GameServer(InetSocketAddress address, int maxRooms) throws IOException {
+        this.maxRooms = maxRooms;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) {
+        int port = -1;
+        int maxRooms = 1024;
+        for (int i = 0; i + 1 < args.length; i++) {
+            switch (args[i]) {
+                case "--server" -> port = Integer.parseInt(args[++i]);
+                case "--max-rooms" -> maxRooms = Integer.parseInt(args[++i]);
+                default -> {
+                }
+            }
+        }
+        if (port < 0) {
+            System.err.println("Usage: --server PORT [--max-rooms N]");
+            System.exit(2);
+        }
+        try (GameServer server = new GameServer(new InetSocketAddress(port), maxRooms)) {
+            System.out.printf("Serving up to %,d rooms on port %d%n", maxRooms, server.getPort());
+            server.run();
+        } catch (IOException e) {
+            System.err.println("Server failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /** Rooms with a connected client. */
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    /** Runs the event loop on the calling thread until {@link #close()}. */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                Room next = schedule.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    long waitNanos = next.dueNanos - System.nanoTime();
+                    if (waitNanos <= 0) {
+                        selector.selectNow();
+                    } else {
+                        selector.select(Math.max(1, (waitNanos + 999_999) / 1_000_000));
+                    }
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    handle(key);
+                }
+                selector.selectedKeys().clear();
+                runDueTicks();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Selector failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    /** Stops the event loop and disconnects every client. */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) return;
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Room room = (Room) key.attachment();
+        try {
+            if (key.isReadable()) room.read();
+            if (key.isValid() && key.isWritable()) room.flush();
+        } catch (IOException | RuntimeException e) {
+            room.close();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = server.accept();
+            if (channel == null) return;
+            if (roomCount >= maxRooms) {
+                channel.close();
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Room room = new Room(channel);
+            room.key = channel.register(selector, SelectionKey.OP_READ, room);
+            roomCount++;
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void runDueTicks() {
+        long now = System.nanoTime();
+        while (!schedule.isEmpty() && schedule.peek().dueNanos <= now) {
+            Room room = schedule.poll();
+            room.scheduled = false;
+            room.tick();
+            if (room.isLive()) {
+                room.dueNanos = Math.max(room.dueNanos + room.delayNanos(), now);
+                room.schedule();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** One client and its game. Rooms start paused until the client sends {@code RESUME}. */
+    private final class Room {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(INPUT_BUFFER);
+        private final InputQueue inputs = new InputQueue(INPUT_CAPACITY);
+        private SelectionKey key;
+        private ByteBuffer out;
+        private GameEngine engine;
+        private boolean scheduled;
+        private boolean closed;
+        private long dueNanos;
+
+        private int headCell;
+        private int length;
+        private int foodCell;
+        private PowerUpType foodType;
+        private int effects;
+        private int delayMs;
+        private int score;
+
+        Room(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        boolean isLive() {
+            return !closed && engine != null && !engine.isOver();
+        }
+
+        long delayNanos() {
+            return engine.getTickDelayMs() * 1_000_000L;
+        }
+
+        void schedule() {
+            if (!scheduled && isLive()) {
+                scheduled = true;
+                schedule.add(this);
+            }
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            while (in.remaining() >= 2) {
+                int length = in.getShort(in.position()) & 0xFFFF;
+                if (length == 0 || length > INPUT_BUFFER - 2) {
+                    throw new IllegalArgumentException("Bad frame length " + length);
+                }
+                if (in.remaining() < 2 + length) break;
+                in.getShort();
+                int end = in.position() + length;
+                receive(in.get());
+                in.position(end);
+            }
+            in.compact();
+        }
+
+        private void receive(byte type) {
+            switch (type) {
+                case NetProtocol.JOIN -> join();
+                case NetProtocol.INPUT -> {
+                    if (engine != null) inputs.offer(NetProtocol.direction(in.get()), 0);
+                }
+                case NetProtocol.PAUSE -> {
+                    if (scheduled) {
+                        schedule.remove(this);
+                        scheduled = false;
+                    }
+                }
+                case NetProtocol.RESUME -> {
+                    if (engine != null && !scheduled) {
+                        dueNanos = System.nanoTime() + delayNanos();
+                        schedule();
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown message " + type);
+            }
+        }
+
+        private void join() {
+            if (engine != null) throw new IllegalStateException("Already joined");
+            Difficulty difficulty = Difficulty.values()[in.get()];
+            boolean wallMode = in.get() != 0;
+            int width = clampSide(in.getShort() & 0xFFFF);
+            int height = clampSide(in.getShort() & 0xFFFF);
+            long seed = in.getLong();
+            if (seed == 0) seed = ThreadLocalRandom.current().nextLong();
+            engine = new GameEngine(width, height, difficulty, wallMode, seed);
+            out = ByteBuffer.allocate(NetProtocol.maxFrameSize(width * height) + DELTA_BACKLOG);
+            sendWelcome(difficulty, wallMode);
+        }
+
+        private int clampSide(int side) {
+            return Math.max(MIN_SIDE, Math.min(NetProtocol.MAX_SIDE, side));
+        }
+
+        private void sendWelcome(Difficulty difficulty, boolean wallMode) {
+            Board board = engine.getBoard();
+            Snake snake = engine.getSnake();
+            rememberState();
+
+            int start = NetProtocol.beginFrame(out, NetProtocol.WELCOME);
+            out.putInt(nextRoomId++);
+            out.putShort((short) board.getWidth());
+            out.putShort((short) board.getHeight());
+            out.put((byte) difficulty.ordinal());
+            out.put((byte) (wallMode ? 1 : 0));
+            int obstacles = 0;
+            for (int cell = 0; cell < board.getCellCount(); cell++) {
+                if (board.hasObstacle(cell)) obstacles++;
+            }
+            NetProtocol.putVarint(out, obstacles);
+            for (int cell = 0; cell < board.getCellCount(); cell++) {
+                if (board.hasObstacle(cell)) NetProtocol.putVarint(out, cell);
+            }
+            NetProtocol.putVarint(out, snake.getLength());
+            for (int i = 0; i < snake.getLength(); i++) {
+                NetProtocol.putVarint(out, snake.getSegment(i));
+            }
+            out.put((byte) snake.getDirection().ordinal());
+            NetProtocol.putFood(out, foodCell, foodType);
+            out.put((byte) effects);
+            NetProtocol.putVarint(out, delayMs);
+            NetProtocol.putVarint(out, score);
+            NetProtocol.endFrame(out, start);
+            flushQuietly();
+        }
+
+        private void rememberState() {
+            Food food = engine.getFood();
+            headCell = engine.getSnake().getHeadCell();
+            length = engine.getSnake().getLength();
+            foodCell = engine.getFoodCell();
+            foodType = food == null ? null : food.getType();
+            effects = NetProtocol.effectBits(engine.isSpeedBoosted(), engine.isDoublePoints(),
+                    engine.isInvincible());
+            delayMs = engine.getTickDelayMs();
+            score = engine.getScore();
+        }
+
+        /** Steps the game and sends what changed. */
+        void tick() {
+            Snake snake = engine.getSnake();
+            engine.step(nextTurn(snake));
+
+            int oldHead = headCell;
+            int oldLength = length;
+            int oldFood = foodCell;
+            PowerUpType oldType = foodType;
+            int oldEffects = effects;
+            int oldDelay = delayMs;
+            int oldScore = score;
+            rememberState();
+
+            int flags = snake.getDirection().ordinal();
+            // The move adds a head; anything more the length lost came off the tail
+            int dropped = oldLength + 1 - length;
+            if (headCell != oldHead) {
+                flags |= NetProtocol.HEAD;
+                if (dropped > 0) flags |= NetProtocol.TAIL;
+            }
+            if (foodCell != oldFood || foodType != oldType) flags |= NetProtocol.FOOD;
+            if (effects != oldEffects || delayMs != oldDelay) flags |= NetProtocol.EFFECTS;
+            if (score != oldScore) flags |= NetProtocol.SCORE;
+            if (engine.isOver()) flags |= NetProtocol.OVER;
+
+            try {
+                int start = NetProtocol.beginFrame(out, NetProtocol.DELTA);
+                out.put((byte) flags);
+                if ((flags & NetProtocol.TAIL) != 0) NetProtocol.putVarint(out, dropped);
+                if ((flags & NetProtocol.FOOD) != 0) NetProtocol.putFood(out, foodCell, foodType);
+                if ((flags & NetProtocol.EFFECTS) != 0) {
+                    out.put((byte) effects);
+                    NetProtocol.putVarint(out, delayMs);
+                }
+                if ((flags & NetProtocol.SCORE) != 0) NetProtocol.putVarint(out, score);
+                if ((flags & NetProtocol.OVER) != 0) {
+                    DeathCause cause = engine.getDeathCause();
+                    out.put((byte) (engine.isWon() ? 1 : 0));
+                    out.put((byte) (cause == null ? 0 : cause.ordinal() + 1));
+                }
+                NetProtocol.endFrame(out, start);
+            } catch (BufferOverflowException e) {
+                close();
+                return;
+            }
+            flushQuietly();
+        }
+
+        private Direction nextTurn(Snake snake) {
+            while (!inputs.isEmpty()) {
+                Direction direction = inputs.peekDirection();
+                inputs.remove();
+                if (snake.canTurn(direction)) return direction;
+            }
+            return null;
+        }
+
+        private void flushQuietly() {
+            try {
+                flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /** Writes as much of the backlog as the socket takes and waits for writability if any is left. */
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key.interestOps() != ops) key.interestOps(ops);
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            roomCount--;
+            if (scheduled) {
+                schedule.remove(this);
+                scheduled = false;
+            }
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.snakegame;
+
+/**
+ * A running game as seen by the panel: something that accepts key presses
+ * and publishes a {@link FrameSnapshot} after every tick. {@link GameLoop}
+ * simulates the game locally; {@link GameClient} mirrors one hosted by a
+ * {@link GameServer}.
+ */
+public interface GameSession {
+    /** Starts the game, or resumes it after {@link #stop()}. */
+    void start();
+
+    /** Pauses the game; it can be resumed with {@link #start()}. */
+    void stop();
+
+    /** Ends the session for good. */
+    default void close() {
+        stop();
+    }
+
+    /** Queues a key press; must always be called from the same thread. */
+    void submit(Direction direction);
+
+    FrameSnapshot getSnapshot();
+}
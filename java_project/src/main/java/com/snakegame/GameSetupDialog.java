@@ -9,6 +9,9 @@ import java.awt.*;
 public class GameSetupDialog extends JDialog {
     private final JComboBox<Difficulty> difficultyCombo;
     private final JCheckBox wallModeCheck;
+    private final JCheckBox autopilotCheck;
+    private final JSpinner widthSpinner;
+    private final JSpinner heightSpinner;
     private final SnakeGame parentFrame;
     private final GamePanel gamePanel;
 
@@ -18,7 +21,7 @@ public class GameSetupDialog extends JDialog {
         this.gamePanel = gamePanel;
 
         setLayout(new BorderLayout(15, 15));
-        setSize(320, 220);
+        setSize(320, 310);
         setLocationRelativeTo(parentFrame);
         getContentPane().setBackground(new Color(0x1a1a2e));
 
@@ -45,6 +48,37 @@ public class GameSetupDialog extends JDialog {
         wallModeCheck.setOpaque(true);
         wallModeCheck.setAlignmentX(Component.LEFT_ALIGNMENT);
         center.add(wallModeCheck);
+        center.add(Box.createVerticalStrut(15));
+
+        // Servers host boards only up to NetProtocol.MAX_SIDE a side
+        int maxSide = gamePanel.isRemote() ? NetProtocol.MAX_SIDE : 2000;
+        JLabel sizeLabel = new JLabel(gamePanel.isRemote()
+                ? "Board size (server max " + maxSide + "):" : "Board size:");
+        sizeLabel.setForeground(Color.WHITE);
+        sizeLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        center.add(sizeLabel);
+        center.add(Box.createVerticalStrut(5));
+
+        widthSpinner = new JSpinner(new SpinnerNumberModel(GameEngine.DEFAULT_WIDTH, 10, maxSide, 10));
+        heightSpinner = new JSpinner(new SpinnerNumberModel(GameEngine.DEFAULT_HEIGHT, 10, maxSide, 10));
+        JPanel sizePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        sizePanel.setBackground(new Color(0x1a1a2e));
+        sizePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        sizePanel.setMaximumSize(new Dimension(250, 30));
+        JLabel byLabel = new JLabel(" x ");
+        byLabel.setForeground(Color.WHITE);
+        sizePanel.add(widthSpinner);
+        sizePanel.add(byLabel);
+        sizePanel.add(heightSpinner);
+        center.add(sizePanel);
+        center.add(Box.createVerticalStrut(15));
+
+        autopilotCheck = new JCheckBox("Autopilot (computer plays)", false);
+        autopilotCheck.setForeground(Color.WHITE);
+        autopilotCheck.setBackground(new Color(0x1a1a2e));
+        autopilotCheck.setOpaque(true);
+        autopilotCheck.setAlignmentX(Component.LEFT_ALIGNMENT);
+        center.add(autopilotCheck);
         center.add(Box.createVerticalStrut(20));
 
         JButton startBtn = new JButton("Start Game");
@@ -55,7 +89,10 @@ public class GameSetupDialog extends JDialog {
         startBtn.addActionListener(e -> {
             parentFrame.startGameWithSettings(
                     (Difficulty) difficultyCombo.getSelectedItem(),
-                    wallModeCheck.isSelected());
+                    wallModeCheck.isSelected(),
+                    (Integer) widthSpinner.getValue(),
+                    (Integer) heightSpinner.getValue(),
+                    autopilotCheck.isSelected());
             dispose();
         });
 
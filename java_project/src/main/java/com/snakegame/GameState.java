@@ -7,5 +7,7 @@ public enum GameState {
     MENU,
     PLAYING,
     PAUSED,
-    GAME_OVER
+    GAME_OVER,
+    /** Watching a recorded game. */
+    REPLAY
 }
@@ -0,0 +1,51 @@
+package com.snakegame;
+
+/**
+ * Baseline bot: heads for the food along whichever safe direction brings it
+ * closest, and only goes straight into danger when every option is blocked.
+ */
+public class GreedyController implements Controller {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Override
+    public Direction decide(GameEngine engine) {
+        Board board = engine.getBoard();
+        Snake snake = engine.getSnake();
+        Food food = engine.getFood();
+        int width = board.getWidth();
+        int height = board.getHeight();
+        int headX = snake.getHeadX();
+        int headY = snake.getHeadY();
+
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Direction dir : DIRECTIONS) {
+            if (dir.isOpposite(snake.getDirection())) continue;
+            int x = headX + dir.getDx();
+            int y = headY + dir.getDy();
+            if (!board.isInside(x, y)) {
+                if (engine.isWallMode()) continue;
+                x = Math.floorMod(x, width);
+                y = Math.floorMod(y, height);
+            }
+            int cell = board.cellOf(x, y);
+            if (board.hasObstacle(cell) || board.hasSnake(cell)) continue;
+
+            int distance = 0;
+            if (food != null) {
+                distance = axisDistance(x, food.getX(), width, engine.isWallMode())
+                        + axisDistance(y, food.getY(), height, engine.isWallMode());
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    private static int axisDistance(int from, int to, int size, boolean wallMode) {
+        int d = Math.abs(from - to);
+        return wallMode ? d : Math.min(d, size - d);
+    }
+}
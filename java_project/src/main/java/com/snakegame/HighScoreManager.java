@@ -2,64 +2,172 @@ package com.snakegame;
 
 import java.io.*;
 import java.nio.file.*;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages persistent high scores.
+ * <p>
+ * Every score is kept in a {@link Leaderboard} for rank queries and persisted
+ * through a {@link ScoreJournal}, so recording one never touches the disk on
+ * the calling thread. A {@code highscores.dat} file from older
+ * versions is imported the first time the journal is empty. If the journal
+ * cannot be opened, the error is reported on {@code System.err} and opening
+ * is retried with each new score; scores added meanwhile are written once it
+ * opens.
+ * <p>
+ * A score submitted with its {@link Replay} has the replay saved in the
+ * background under {@code replays/}, named by the entry's timestamp, so a
+ * suspicious score can be watched with {@code --replay}.
+ * <p>
+ * Queued scores are flushed by {@link #close}, or at exit if it was never
+ * called.
  */
-public class HighScoreManager {
-    private static final String SCORES_FILE = "highscores.dat";
-    private final List<ScoreEntry> scores;
-    private final Path filePath;
+public class HighScoreManager implements Closeable {
+    private static final String SCORES_FILE = "highscores.journal";
+    private static final String LEGACY_SCORES_FILE = "highscores.dat";
+    private static final String REPLAY_DIRECTORY = "replays";
+
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final Path directory;
+    private final Path replayDirectory;
+    private final List<ScoreEntry> unsaved = new ArrayList<>();
+    private ScoreJournal journal;
+    private Thread flushOnExit;
+    /** Journal entries already in the leaderboard, which a retried open passes again. */
+    private int recovered;
+    private boolean failureReported;
 
     public HighScoreManager() {
-        this.scores = new ArrayList<>();
-        this.filePath = Paths.get(System.getProperty("user.dir"), SCORES_FILE);
-        load();
+        this(Paths.get(System.getProperty("user.dir")));
+    }
+
+    HighScoreManager(Path directory) {
+        this.directory = directory;
+        replayDirectory = directory.resolve(REPLAY_DIRECTORY);
+        openJournal();
+        if (journal != null && leaderboard.size() == 0) {
+            importLegacy(directory.resolve(LEGACY_SCORES_FILE));
+        }
     }
 
-    public void addScore(String playerName, int score, Difficulty difficulty) {
-        scores.add(new ScoreEntry(playerName, score, difficulty, System.currentTimeMillis()));
-        scores.sort((a, b) -> Integer.compare(b.score(), a.score()));
-        if (scores.size() > 10) {
-            scores.subList(10, scores.size()).clear();
+    public void addScore(String playerName, int score, Difficulty difficulty, boolean wallMode) {
+        addScore(playerName, score, difficulty, wallMode, null);
+    }
+
+    /** Adds a score and keeps {@code replay}, the game it was scored in, if not {@code null}. */
+    public void addScore(String playerName, int score, Difficulty difficulty, boolean wallMode,
+                         Replay replay) {
+        ScoreEntry entry = new ScoreEntry(playerName, score, difficulty, wallMode,
+                System.currentTimeMillis());
+        leaderboard.add(entry);
+        save(entry);
+        if (replay != null) {
+            Path path = getReplayPath(entry);
+            CompletableFuture.runAsync(() -> saveReplay(replay, path));
+        }
+    }
+
+    /** Where the replay of {@code entry} is kept, if it was submitted with one. */
+    public Path getReplayPath(ScoreEntry entry) {
+        return replayDirectory.resolve(entry.timestamp() + ".replay");
+    }
+
+    private static void saveReplay(Replay replay, Path path) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            replay.save(temp);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignored) {
         }
-        save();
     }
 
-    public List<ScoreEntry> getTopScores() {
-        return new ArrayList<>(scores);
+    public List<ScoreEntry> getTopScores(Difficulty difficulty, boolean wallMode, int count) {
+        return leaderboard.top(difficulty, wallMode, count);
     }
 
     public int getHighScore() {
-        return scores.isEmpty() ? 0 : scores.get(0).score();
+        return leaderboard.getHighScore();
     }
 
-    @SuppressWarnings("unchecked")
-    private void load() {
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    private synchronized void save(ScoreEntry entry) {
+        if (journal == null) {
+            unsaved.add(entry);
+            openJournal();
+        } else {
+            journal.append(entry);
+        }
+    }
+
+    private synchronized void openJournal() {
+        Path path = directory.resolve(SCORES_FILE);
+        ScoreJournal opened = new ScoreJournal(path);
+        int[] delivered = {0};
         try {
-            if (Files.exists(filePath)) {
-                try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(filePath))) {
-                    List<ScoreEntry> loaded = (List<ScoreEntry>) ois.readObject();
-                    scores.clear();
-                    scores.addAll(loaded);
+            opened.open(entry -> {
+                if (delivered[0]++ == recovered) {
+                    leaderboard.add(entry);
+                    recovered++;
                 }
+            });
+        } catch (IOException e) {
+            if (!failureReported) {
+                System.err.println("High scores cannot be saved to " + path + " (" + e
+                        + "); retrying with the next score");
+                failureReported = true;
             }
-        } catch (Exception e) {
-            scores.clear();
+            return;
         }
+        if (opened.getSetAside() != null) {
+            System.err.println("Unreadable high score file " + path + " moved to " + opened.getSetAside());
+        }
+        journal = opened;
+        flushOnExit = new Thread(journal::close, "score-journal-flush");
+        Runtime.getRuntime().addShutdownHook(flushOnExit);
+        unsaved.forEach(journal::append);
+        unsaved.clear();
     }
 
-    private void save() {
+    /** Writes the scores still queued and releases the journal. */
+    @Override
+    public synchronized void close() {
+        if (journal == null) return;
         try {
-            try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(filePath))) {
-                oos.writeObject(scores);
+            Runtime.getRuntime().removeShutdownHook(flushOnExit);
+        } catch (IllegalStateException shuttingDown) {
+            // The hook is already running and closes the journal itself
+            return;
+        }
+        journal.close();
+        journal = null;
+    }
+
+    /** Scores in {@code highscores.dat} predate recording wall mode; they count under the default, walls on. */
+    @SuppressWarnings("unchecked")
+    private void importLegacy(Path legacyPath) {
+        if (!Files.exists(legacyPath)) return;
+        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(legacyPath))) {
+            for (ScoreEntry legacy : (List<ScoreEntry>) ois.readObject()) {
+                ScoreEntry entry = new ScoreEntry(legacy.playerName(), legacy.score(), legacy.difficulty(),
+                        true, legacy.timestamp());
+                leaderboard.add(entry);
+                journal.append(entry);
             }
-        } catch (IOException ignored) {
+        } catch (Exception ignored) {
         }
     }
 
-    public record ScoreEntry(String playerName, int score, Difficulty difficulty, long timestamp)
-            implements Serializable {
+    /**
+     * Entries saved before wall mode was recorded deserialize with {@code wallMode}
+     * false; {@link #importLegacy} corrects them.
+     */
+    public record ScoreEntry(String playerName, int score, Difficulty difficulty, boolean wallMode,
+                             long timestamp) implements Serializable {
     }
 }
@@ -0,0 +1,99 @@
+package com.snakegame;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency histogram with four buckets per power of two, so any recorded value
+ * is reported within 25%. Recording is a few field updates and never
+ * allocates. Each histogram has a single writing thread; readers on other
+ * threads may see a sample half recorded, which is fine for monitoring.
+ * <p>
+ * Besides the totals it keeps an exponentially weighted moving average that
+ * follows roughly the last 16 samples, for live displays.
+ */
+public class Histogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private volatile long count;
+    private volatile long sum;
+    private volatile long max;
+    private volatile double recent;
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[bucketOf(value)]++;
+        sum += value;
+        if (value > max) max = value;
+        recent = count == 0 ? value : recent + (value - recent) / 16;
+        count++;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int log = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (log - 2)) & (SUB_BUCKETS - 1);
+        return (log - 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Largest value that lands in {@code bucket}. */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int log = bucket / SUB_BUCKETS + 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (log - 2);
+        return lower + (1L << (log - 2)) - 1;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        long n = count;
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /** Moving average of the latest samples. */
+    public double getRecent() {
+        return recent;
+    }
+
+    /** Upper bound of the bucket holding the {@code fraction} quantile, e.g. 0.99. */
+    public long getPercentile(double fraction) {
+        long n = count;
+        if (n == 0) return 0;
+        long target = (long) Math.ceil(fraction * n);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= target) return Math.min(upperBound(bucket), max);
+        }
+        return max;
+    }
+
+    /** Non-empty buckets as upper bound (scaled by {@code divisor}) to count, in ascending order. */
+    public Map<String, Long> getBuckets(long divisor, String unit) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (counts[bucket] != 0) {
+                buckets.put("<= " + (upperBound(bucket) / divisor) + " " + unit, counts[bucket]);
+            }
+        }
+        return buckets;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+        recent = 0;
+    }
+}
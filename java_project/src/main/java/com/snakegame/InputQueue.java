@@ -0,0 +1,75 @@
+package com.snakegame;
+
+/**
+ * Bounded single-producer, single-consumer queue of direction key presses,
+ * each stamped with {@link System#nanoTime()} when it arrived. The input
+ * thread offers and the game loop polls; neither side locks or allocates.
+ * <p>
+ * A key held down repeats the same direction, which can never be a turn on
+ * its own, so consecutive duplicates are dropped on the way in to keep the
+ * queue free for real turns.
+ */
+public class InputQueue {
+    private final Direction[] directions;
+    private final long[] timestamps;
+    private final int mask;
+    /** Next slot to read; written only by the consumer. */
+    private volatile long head;
+    /** Next slot to write; written only by the producer. */
+    private volatile long tail;
+    private Direction lastOffered;
+    private volatile long dropped;
+
+    /** {@code capacity} is rounded up to a power of two. */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.directions = new Direction[size];
+        this.timestamps = new long[size];
+        this.mask = size - 1;
+    }
+
+    /** Producer side. Returns false if the press was a repeat or the queue was full. */
+    public boolean offer(Direction direction, long nanos) {
+        if (direction == lastOffered && head != tail) return false;
+        long t = tail;
+        if (t - head == directions.length) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) (t & mask);
+        directions[slot] = direction;
+        timestamps[slot] = nanos;
+        lastOffered = direction;
+        tail = t + 1;
+        return true;
+    }
+
+    /** Consumer side. */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /** Direction at the front of the queue; only valid when not empty. */
+    public Direction peekDirection() {
+        return directions[(int) (head & mask)];
+    }
+
+    /** Arrival time of the front entry; only valid when not empty. */
+    public long peekTimestamp() {
+        return timestamps[(int) (head & mask)];
+    }
+
+    public void remove() {
+        head = head + 1;
+    }
+
+    /** Consumer side; drops everything queued so far. */
+    public void clear() {
+        head = tail;
+    }
+
+    /** Presses rejected because the queue was full. */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,227 @@
+package com.snakegame;
+
+import com.snakegame.HighScoreManager.ScoreEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranked score table split by difficulty and wall mode. Each partition is an
+ * order-statistic treap (a randomized binary search tree whose nodes also
+ * count their subtree), so inserts, top-K and rank queries all take
+ * O(log n) however many scores it holds. Partitions have their own lock, so
+ * writers in different partitions never wait for each other.
+ * <p>
+ * Entries are ordered by score, highest first; equal scores rank the earlier
+ * one first. A score's rank is one more than the number of strictly higher
+ * scores, so ties share a place.
+ */
+public class Leaderboard {
+    private final Partition[] partitions = new Partition[Difficulty.values().length * 2];
+
+    public Leaderboard() {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+
+    public void add(ScoreEntry entry) {
+        partition(entry.difficulty(), entry.wallMode()).insert(entry);
+    }
+
+    /** The best {@code k} entries, highest first. */
+    public List<ScoreEntry> top(Difficulty difficulty, boolean wallMode, int k) {
+        return partition(difficulty, wallMode).top(k);
+    }
+
+    /** Place {@code score} has, or would have, in the partition. */
+    public long rank(Difficulty difficulty, boolean wallMode, int score) {
+        return partition(difficulty, wallMode).countHigher(score) + 1;
+    }
+
+    /**
+     * Share of the partition, in percent, that {@code score} would be within
+     * if it were added now: 1 means it would be in the top 1%.
+     */
+    public double topPercent(Difficulty difficulty, boolean wallMode, int score) {
+        Partition partition = partition(difficulty, wallMode);
+        partition.lock.readLock().lock();
+        try {
+            return 100.0 * (countHigher(partition.root, score) + 1) / (size(partition.root) + 1);
+        } finally {
+            partition.lock.readLock().unlock();
+        }
+    }
+
+    public long size(Difficulty difficulty, boolean wallMode) {
+        return partition(difficulty, wallMode).size();
+    }
+
+    /** Entries across all partitions. */
+    public long size() {
+        long total = 0;
+        for (Partition partition : partitions) {
+            total += partition.size();
+        }
+        return total;
+    }
+
+    /** Highest score in any partition, or 0 when empty. */
+    public int getHighScore() {
+        int best = 0;
+        for (Partition partition : partitions) {
+            List<ScoreEntry> top = partition.top(1);
+            if (!top.isEmpty()) best = Math.max(best, top.get(0).score());
+        }
+        return best;
+    }
+
+    /** Every entry, partition by partition, each highest first. */
+    public List<ScoreEntry> entries() {
+        List<ScoreEntry> all = new ArrayList<>();
+        for (Partition partition : partitions) {
+            all.addAll(partition.top(Integer.MAX_VALUE));
+        }
+        return all;
+    }
+
+    private Partition partition(Difficulty difficulty, boolean wallMode) {
+        return partitions[difficulty.ordinal() * 2 + (wallMode ? 1 : 0)];
+    }
+
+    private static final class Node {
+        final ScoreEntry entry;
+        final long sequence;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(ScoreEntry entry, long sequence, int priority) {
+            this.entry = entry;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+
+        /** Whether this node ranks ahead of {@code other}. */
+        boolean before(Node other) {
+            if (entry.score() != other.entry.score()) return entry.score() > other.entry.score();
+            if (entry.timestamp() != other.entry.timestamp()) return entry.timestamp() < other.entry.timestamp();
+            return sequence < other.sequence;
+        }
+    }
+
+    private static final class Partition {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        final GameRandom priorities;
+        Node root;
+        long sequence;
+
+        Partition(int index) {
+            this.priorities = new GameRandom(index);
+        }
+
+        void insert(ScoreEntry entry) {
+            lock.writeLock().lock();
+            try {
+                root = Leaderboard.insert(root, new Node(entry, sequence++, (int) priorities.nextLong()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<ScoreEntry> top(int k) {
+            lock.readLock().lock();
+            try {
+                List<ScoreEntry> result = new ArrayList<>(Math.min(k, Leaderboard.size(root)));
+                collect(root, k, result);
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long countHigher(int score) {
+            lock.readLock().lock();
+            try {
+                return Leaderboard.countHigher(root, score);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long size() {
+            lock.readLock().lock();
+            try {
+                return Leaderboard.size(root);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (added.before(node)) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /** Number of entries scoring strictly more than {@code score}. */
+    private static long countHigher(Node node, int score) {
+        long count = 0;
+        while (node != null) {
+            if (node.entry.score() > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /** In-order walk that stops after {@code k} entries. */
+    private static void collect(Node node, int k, List<ScoreEntry> out) {
+        while (node != null && out.size() < k) {
+            collect(node.left, k, out);
+            if (out.size() >= k) return;
+            out.add(node.entry);
+            node = node.right;
+        }
+    }
+}
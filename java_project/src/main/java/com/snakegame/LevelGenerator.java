@@ -0,0 +1,54 @@
+package com.snakegame;
+
+/**
+ * Fills one tile of a level with walls. Implementations must only write to
+ * the grid they are given and draw every random number from {@code random},
+ * so that {@link LevelPipeline} can run tiles in parallel and still build the
+ * same level from the same seed. They need not keep the level connected;
+ * the pipeline repairs that afterwards.
+ */
+public interface LevelGenerator {
+    void generate(LevelGrid grid, GameRandom random);
+
+    /** Small blobs of one to three cells, {@code blobsPerCell} of them per cell on average. */
+    static LevelGenerator scatter(double blobsPerCell) {
+        return new ScatterGenerator(blobsPerCell);
+    }
+
+    /** A braided maze with passages {@code corridor} cells wide. */
+    static LevelGenerator maze(int corridor) {
+        return new MazeGenerator(corridor);
+    }
+
+    /** Rooms split off by walls with doorways, at most {@code maxRoom} cells across. */
+    static LevelGenerator rooms(int maxRoom) {
+        return new RoomsGenerator(maxRoom);
+    }
+
+    /** {@code inner} drawn in the top-left quarter and mirrored into the other three. */
+    static LevelGenerator symmetric(LevelGenerator inner) {
+        return new SymmetricGenerator(inner);
+    }
+
+    /** The scattered blocks of the classic game, as many as the difficulty asks for. */
+    static LevelGenerator forDifficulty(Difficulty difficulty, int width, int height) {
+        return scatter(difficulty.getObstacleCount(width, height) / ((double) width * height));
+    }
+
+    /**
+     * Looks up a generator by name: {@code scatter}, {@code maze}, {@code rooms}
+     * or {@code symmetric} (a mirrored scatter).
+     *
+     * @throws IllegalArgumentException for any other name
+     */
+    static LevelGenerator named(String name, Difficulty difficulty, int width, int height) {
+        return switch (name) {
+            case "scatter" -> forDifficulty(difficulty, width, height);
+            case "maze" -> maze(3);
+            case "rooms" -> rooms(16);
+            case "symmetric" -> symmetric(forDifficulty(difficulty, width, height));
+            default -> throw new IllegalArgumentException("Unknown level " + name
+                    + "; expected scatter, maze, rooms or symmetric");
+        };
+    }
+}
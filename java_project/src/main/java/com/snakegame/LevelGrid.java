@@ -0,0 +1,66 @@
+package com.snakegame;
+
+/**
+ * A rectangular window onto a level being generated, in local coordinates.
+ * Generators only ever see the tile they were given, so tiles can be filled
+ * in parallel without stepping on each other.
+ */
+public final class LevelGrid {
+    static final byte FREE = 0;
+    static final byte WALL = 1;
+
+    private final byte[] cells;
+    private final int stride;
+    private final int originX;
+    private final int originY;
+    private final int width;
+    private final int height;
+
+    LevelGrid(byte[] cells, int stride, int originX, int originY, int width, int height) {
+        this.cells = cells;
+        this.stride = stride;
+        this.originX = originX;
+        this.originY = originY;
+        this.width = width;
+        this.height = height;
+    }
+
+    /** The part of this grid starting at {@code (x, y)}, clipped to it. */
+    public LevelGrid sub(int x, int y, int width, int height) {
+        return new LevelGrid(cells, stride, originX + x, originY + y,
+                Math.min(width, this.width - x), Math.min(height, this.height - y));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean isWall(int x, int y) {
+        return cells[index(x, y)] == WALL;
+    }
+
+    public void setWall(int x, int y) {
+        cells[index(x, y)] = WALL;
+    }
+
+    public void clear(int x, int y) {
+        cells[index(x, y)] = FREE;
+    }
+
+    /** Sets a wall if {@code (x, y)} is inside the grid and ignores it otherwise. */
+    public void setWallIfInside(int x, int y) {
+        if (isInside(x, y)) setWall(x, y);
+    }
+
+    private int index(int x, int y) {
+        return (originY + y) * stride + originX + x;
+    }
+}
@@ -0,0 +1,58 @@
+package com.snakegame;
+
+/**
+ * The walls of a generated level, fixed for the rest of the game. The walls
+ * are held in a bitset that is never handed out, so a layout can be shared
+ * between forks and threads freely.
+ */
+public final class LevelLayout {
+    private final int width;
+    private final int height;
+    private final long[] walls;
+    private final int wallCount;
+
+    /** Builds a layout from a grid where non-zero bytes are walls. */
+    LevelLayout(int width, int height, byte[] cells) {
+        this.width = width;
+        this.height = height;
+        this.walls = new long[(cells.length + 63) >> 6];
+        int count = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != LevelGrid.FREE) {
+                walls[cell >> 6] |= 1L << cell;
+                count++;
+            }
+        }
+        this.wallCount = count;
+    }
+
+    /** An empty layout. */
+    public static LevelLayout empty(int width, int height) {
+        return new LevelLayout(width, height, new byte[width * height]);
+    }
+
+    public boolean isWall(int cell) {
+        return (walls[cell >> 6] & (1L << cell)) != 0;
+    }
+
+    /** Marks every wall as an obstacle on {@code board}. */
+    public void applyTo(Board board) {
+        for (int word = 0; word < walls.length; word++) {
+            for (long bits = walls[word]; bits != 0; bits &= bits - 1) {
+                board.setObstacle((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    public int getWallCount() {
+        return wallCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,308 @@
+package com.snakegame;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a {@link LevelLayout} in three stages:
+ * <ol>
+ * <li>The board is cut into tiles of {@value #TILE} cells a side, and a
+ * {@link LevelGenerator} fills each tile in parallel. Each tile draws from
+ * its own generator split off the level seed in tile order, so the level
+ * does not depend on the number of threads.</li>
+ * <li>Reserved cells, such as where the snake starts, are cleared. Then every
+ * region of free cells that the largest region cannot reach is linked to it
+ * by knocking out the walls on a shortest path between them.</li>
+ * <li>Dead ends are opened up. A dead end is a free cell with walls or board
+ * edges on three sides. A snake that goes in cannot get out, so the wall
+ * facing its opening is removed, and so on until none are left.</li>
+ * </ol>
+ * Stages two and three run over a flat byte grid in linear time. Removing
+ * walls only ever adds connections, so the result keeps every free cell
+ * reachable from every other.
+ * <p>
+ * A pipeline keeps its grid and scratch arrays between builds, so one that
+ * builds level after level for the same board size allocates little beyond
+ * each {@link LevelLayout}. It is not safe to build on from several threads.
+ */
+public class LevelPipeline {
+    static final int TILE = 256;
+
+    private final int width;
+    private final int height;
+    private final boolean wrap;
+    private final int cellCount;
+    private final int tilesX;
+    private final byte[] cells;
+    private final int[] around = new int[4];
+    private final GameRandom[] randoms;
+    private final LevelGrid[] tiles;
+    /* Scratch for connect and openDeadEnds, allocated on first use. */
+    private int[] root;
+    private int[] size;
+    private int[] parent;
+    private int[] queue;
+    private int[] work;
+    private int[] regions = new int[16];
+
+    /** A pipeline for levels of one size; see {@link #build(LevelGenerator, int[], GameRandom)}. */
+    LevelPipeline(int width, int height, boolean wrap) {
+        this.width = width;
+        this.height = height;
+        this.wrap = wrap;
+        this.cellCount = width * height;
+        this.cells = new byte[cellCount];
+        tilesX = (width + TILE - 1) / TILE;
+        int tilesY = (height + TILE - 1) / TILE;
+        randoms = new GameRandom[tilesX * tilesY];
+        tiles = new LevelGrid[randoms.length];
+        for (int tile = 0; tile < tiles.length; tile++) {
+            int x = tile % tilesX * TILE;
+            int y = tile / tilesX * TILE;
+            randoms[tile] = new GameRandom(0);
+            tiles[tile] = new LevelGrid(cells, width, x, y, Math.min(TILE, width - x), Math.min(TILE, height - y));
+        }
+    }
+
+    /**
+     * Generates a level with {@code generator}.
+     *
+     * @param wrap     whether the snake wraps around the edges, which makes cells on
+     *                 opposite edges neighbours
+     * @param reserved cells that must stay free
+     */
+    public static LevelLayout build(int width, int height, boolean wrap, LevelGenerator generator,
+                                    int[] reserved, GameRandom random) {
+        return new LevelPipeline(width, height, wrap).build(generator, reserved, random);
+    }
+
+    /** Generates a level of this pipeline's size, reusing its arrays from the last build. */
+    LevelLayout build(LevelGenerator generator, int[] reserved, GameRandom random) {
+        Arrays.fill(cells, LevelGrid.FREE);
+        generate(generator, random);
+        for (int cell : reserved) {
+            cells[cell] = LevelGrid.FREE;
+        }
+        connect();
+        openDeadEnds();
+        return new LevelLayout(width, height, cells);
+    }
+
+    private void generate(LevelGenerator generator, GameRandom random) {
+        for (GameRandom tileRandom : randoms) {
+            random.splitInto(tileRandom);
+        }
+        if (tiles.length == 1) {
+            generator.generate(tiles[0], randoms[0]);
+            return;
+        }
+        IntStream.range(0, tiles.length).parallel()
+                .forEach(tile -> generator.generate(tiles[tile], randoms[tile]));
+    }
+
+    /**
+     * Fills {@link #around} with the neighbours of {@code cell} to the right,
+     * below, left and above, or -1 past an edge without wrapping.
+     */
+    private void neighbours(int cell) {
+        int y = cell / width;
+        neighbours(cell, cell - y * width, y);
+    }
+
+    private void neighbours(int cell, int x, int y) {
+        around[0] = x + 1 < width ? cell + 1 : wrap ? cell - x : -1;
+        around[1] = y + 1 < height ? cell + width : wrap ? x : -1;
+        around[2] = x > 0 ? cell - 1 : wrap ? cell + width - 1 : -1;
+        around[3] = y > 0 ? cell - width : wrap ? cellCount - width + x : -1;
+    }
+
+    /**
+     * Links every region of free cells to the largest one. Regions are
+     * labelled with a union-find over one row-major scan. Then, from each
+     * region not yet joined to the largest, a breadth-first search through
+     * walls and free cells alike finds the nearest free cell outside it, and
+     * the walls on the way are cleared. Every link merges two sets, so once
+     * each region has had its turn only one set is left.
+     */
+    private void connect() {
+        if (root == null) root = new int[cellCount];
+        int[] root = this.root;
+        for (int y = 0, cell = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, cell++) {
+                root[cell] = cell;
+                if (cells[cell] != LevelGrid.FREE) continue;
+                // Links always point to a lower cell, so a cell can simply join the region on its left
+                if (x > 0 && cells[cell - 1] == LevelGrid.FREE) root[cell] = root[cell - 1];
+                if (y > 0 && cells[cell - width] == LevelGrid.FREE && root[cell - width] != root[cell]) {
+                    if (root[cell] == cell) root[cell] = root[cell - width];
+                    else union(root, cell, cell - width);
+                }
+            }
+        }
+        if (wrap) {
+            for (int y = 0; y < height; y++) {
+                int first = y * width;
+                int last = first + width - 1;
+                if (cells[first] == LevelGrid.FREE && cells[last] == LevelGrid.FREE) union(root, first, last);
+            }
+            for (int x = 0; x < width; x++) {
+                int last = cellCount - width + x;
+                if (cells[x] == LevelGrid.FREE && cells[last] == LevelGrid.FREE) union(root, x, last);
+            }
+        }
+
+        if (size == null) size = new int[cellCount];
+        int[] size = this.size;
+        Arrays.fill(size, 0);
+        int regionCount = 0;
+        int largest = -1;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cells[cell] != LevelGrid.FREE) continue;
+            int r = find(root, cell);
+            if (size[r]++ == 0) {
+                if (regionCount == regions.length) regions = Arrays.copyOf(regions, regionCount * 2);
+                regions[regionCount++] = r;
+            }
+            if (largest < 0 || size[r] > size[largest]) largest = r;
+        }
+        if (regionCount <= 1) return;
+
+        // Most regions are split by a single wall, which can be knocked through in place
+        for (int y = 0, cell = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, cell++) {
+                if (cells[cell] == LevelGrid.FREE) continue;
+                if (x > 0 && x + 1 < width) bridge(root, cell, cell - 1, cell + 1);
+                if (cells[cell] != LevelGrid.FREE && y > 0 && y + 1 < height) {
+                    bridge(root, cell, cell - width, cell + width);
+                }
+            }
+        }
+
+        // size doubles as the search's visit stamps from here on
+        Arrays.fill(size, 0);
+        if (parent == null) {
+            parent = new int[cellCount];
+            queue = new int[cellCount];
+        }
+        int[] parent = this.parent;
+        int[] queue = this.queue;
+        int stamp = 0;
+        for (int i = 0; i < regionCount; i++) {
+            int cell = regions[i];
+            int own = find(root, cell);
+            if (own == find(root, largest)) continue;
+            stamp++;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = cell;
+            size[cell] = stamp;
+            parent[cell] = -1;
+            int found = -1;
+            while (found < 0) {
+                int at = queue[head++];
+                neighbours(at);
+                for (int next : around) {
+                    if (next < 0 || size[next] == stamp) continue;
+                    size[next] = stamp;
+                    parent[next] = at;
+                    if (cells[next] == LevelGrid.FREE && find(root, next) != own) {
+                        found = next;
+                        break;
+                    }
+                    queue[tail++] = next;
+                }
+            }
+            for (int at = parent[found]; at >= 0; at = parent[at]) {
+                cells[at] = LevelGrid.FREE;
+                union(root, at, found);
+            }
+            union(root, cell, found);
+        }
+    }
+
+    /** Clears the wall between two free cells if that joins two regions. */
+    private void bridge(int[] root, int wall, int a, int b) {
+        if (cells[a] != LevelGrid.FREE || cells[b] != LevelGrid.FREE) return;
+        if (find(root, a) == find(root, b)) return;
+        cells[wall] = LevelGrid.FREE;
+        union(root, a, wall);
+        union(root, b, wall);
+    }
+
+    private static int find(int[] root, int cell) {
+        while (root[cell] != cell) {
+            root[cell] = root[root[cell]];
+            cell = root[cell];
+        }
+        return cell;
+    }
+
+    private static void union(int[] root, int a, int b) {
+        int ra = find(root, a);
+        int rb = find(root, b);
+        if (ra != rb) root[Math.max(ra, rb)] = Math.min(ra, rb);
+    }
+
+    /** Clears a wall next to every free cell that has only one way out, until there are none. */
+    private void openDeadEnds() {
+        if (work == null) work = new int[cellCount];
+        int[] work = this.work;
+        int top = 0;
+        for (int y = 0, cell = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, cell++) {
+                if (cells[cell] != LevelGrid.FREE) continue;
+                if (x > 0 && x + 1 < width && y > 0 && y + 1 < height) {
+                    // Walls are 1 and free cells 0, so this counts the blocked sides
+                    if (cells[cell - 1] + cells[cell + 1] + cells[cell - width] + cells[cell + width] >= 3) {
+                        work[top++] = cell;
+                    }
+                    continue;
+                }
+                neighbours(cell, x, y);
+                if (openSides() <= 1) work[top++] = cell;
+            }
+        }
+        while (top > 0) {
+            int cell = work[--top];
+            if (!isDeadEnd(cell)) continue;
+            int wall = wallToOpen(cell);
+            if (wall < 0) continue;
+            cells[wall] = LevelGrid.FREE;
+            // The opened cell, or one next to it, may be a dead end now
+            if (top + 5 > work.length) work = this.work = Arrays.copyOf(work, work.length * 2);
+            work[top++] = wall;
+            neighbours(wall);
+            for (int next : around) {
+                if (next >= 0 && cells[next] == LevelGrid.FREE) work[top++] = next;
+            }
+        }
+    }
+
+    private boolean isDeadEnd(int cell) {
+        neighbours(cell);
+        return openSides() <= 1;
+    }
+
+    /** Free cells among {@link #around}. */
+    private int openSides() {
+        int open = 0;
+        for (int next : around) {
+            if (next >= 0 && cells[next] == LevelGrid.FREE) open++;
+        }
+        return open;
+    }
+
+    /** The wall facing a dead end's opening, or any wall beside it; -1 if it is walled in only by edges. */
+    private int wallToOpen(int cell) {
+        neighbours(cell);
+        int fallback = -1;
+        for (int dir = 0; dir < 4; dir++) {
+            int next = around[dir];
+            if (next < 0 || cells[next] == LevelGrid.FREE) continue;
+            int opposite = around[(dir + 2) & 3];
+            if (opposite >= 0 && cells[opposite] == LevelGrid.FREE) return next;
+            if (fallback < 0) fallback = next;
+        }
+        return fallback;
+    }
+}
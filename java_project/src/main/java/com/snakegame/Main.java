@@ -1,10 +1,26 @@
 package com.snakegame;
 
+import java.util.Arrays;
+
 /**
- * Entry point for the Advanced Snake Game.
+ * Entry point for the Advanced Snake Game. Pass {@code --headless} to run a
+ * parallel batch of simulated games instead of opening the window, or
+ * {@code --arena} to run a headless multi-snake battle, or {@code --tournament}
+ * to play bots against each other. {@code --server PORT} hosts games for
+ * clients started with {@code --connect host:port}.
  */
 public class Main {
     public static void main(String[] args) {
-        SnakeGame.main(args);
+        if (Arrays.asList(args).contains("--server")) {
+            GameServer.main(args);
+        } else if (Arrays.asList(args).contains("--tournament")) {
+            TournamentRunner.main(args);
+        } else if (Arrays.asList(args).contains("--arena")) {
+            ArenaRunner.main(args);
+        } else if (Arrays.asList(args).contains("--headless")) {
+            BatchRunner.main(args);
+        } else {
+            SnakeGame.main(args);
+        }
     }
 }
@@ -0,0 +1,80 @@
+package com.snakegame;
+
+/**
+ * A maze carved by a randomized depth-first search over rooms
+ * {@code corridor} cells wide, with a quarter of the remaining inner walls
+ * knocked through afterwards. The loops this adds give a snake room to turn
+ * back, which a perfect maze would not.
+ */
+public class MazeGenerator implements LevelGenerator {
+    private static final double BRAID = 0.25;
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+
+    private final int pitch;
+
+    public MazeGenerator(int corridor) {
+        if (corridor < 1) throw new IllegalArgumentException("Corridors must be at least one cell wide");
+        this.pitch = corridor + 1;
+    }
+
+    @Override
+    public void generate(LevelGrid grid, GameRandom random) {
+        int cols = (grid.getWidth() - 1) / pitch;
+        int rows = (grid.getHeight() - 1) / pitch;
+        if (cols < 2 || rows < 2) return;
+        int spanX = cols * pitch;
+        int spanY = rows * pitch;
+        for (int y = 0; y <= spanY; y++) {
+            for (int x = 0; x <= spanX; x++) {
+                if (x % pitch == 0 || y % pitch == 0) grid.setWall(x, y);
+            }
+        }
+
+        boolean[] visited = new boolean[cols * rows];
+        int[] stack = new int[cols * rows];
+        int[] options = new int[4];
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        while (top > 0) {
+            int room = stack[top - 1];
+            int col = room % cols;
+            int row = room / cols;
+            int count = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                int c = col + DX[dir];
+                int r = row + DY[dir];
+                if (c >= 0 && c < cols && r >= 0 && r < rows && !visited[r * cols + c]) {
+                    options[count++] = dir;
+                }
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int dir = options[random.nextInt(count)];
+            openWall(grid, col, row, dir);
+            int next = (row + DY[dir]) * cols + col + DX[dir];
+            visited[next] = true;
+            stack[top++] = next;
+        }
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (col + 1 < cols && random.nextDouble() < BRAID) openWall(grid, col, row, 0);
+                if (row + 1 < rows && random.nextDouble() < BRAID) openWall(grid, col, row, 1);
+            }
+        }
+    }
+
+    /** Clears the wall between a room and its neighbour in direction {@code dir}. */
+    private void openWall(LevelGrid grid, int col, int row, int dir) {
+        int x = col * pitch + (DX[dir] > 0 ? pitch : DX[dir] < 0 ? 0 : 1);
+        int y = row * pitch + (DY[dir] > 0 ? pitch : DY[dir] < 0 ? 0 : 1);
+        for (int i = 0; i < pitch - 1; i++) {
+            if (DX[dir] != 0) grid.clear(x, y + i);
+            else grid.clear(x + i, y);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.snakegame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by {@link GameServer} and {@link GameClient}.
+ * <p>
+ * Every message is a frame {@code [u16 length][u8 type][payload]}, where the
+ * length counts the type byte and payload. Cells and counts are unsigned
+ * varints. The client joins with its settings, the server answers with the
+ * full state once, and after that sends one delta per tick:
+ * <pre>
+ * flags  u8   bits 0-1 head direction, then HEAD, TAIL, FOOD, EFFECTS, SCORE, OVER
+ * TAIL   varint segments dropped from the tail
+ * FOOD   varint cell + 1 (0 if none), u8 type
+ * EFFECTS u8 effect bits, varint tick delay in ms
+ * SCORE  varint score
+ * OVER   u8 won, u8 death cause + 1 (0 if none)
+ * </pre>
+ * The new head is always next to the old one, so a normal tick is a five
+ * byte frame. A move drops one tail segment unless the snake is growing,
+ * and eating food that shrinks the snake drops more on the same tick.
+ */
+public class NetProtocol {
+    public static final byte JOIN = 1;
+    public static final byte INPUT = 2;
+    public static final byte PAUSE = 3;
+    public static final byte RESUME = 4;
+
+    public static final byte WELCOME = 1;
+    public static final byte DELTA = 2;
+
+    public static final int HEAD = 1 << 2;
+    public static final int TAIL = 1 << 3;
+    public static final int FOOD = 1 << 4;
+    public static final int EFFECTS = 1 << 5;
+    public static final int SCORE = 1 << 6;
+    public static final int OVER = 1 << 7;
+
+    public static final int SPEED_BOOSTED = 1;
+    public static final int DOUBLE_POINTS = 2;
+    public static final int INVINCIBLE = 4;
+
+    /** Bytes in front of every payload: the length and the type. */
+    public static final int FRAME_HEADER = 3;
+    /** Largest board side a server hosts, which bounds every frame and buffer. */
+    public static final int MAX_SIDE = 100;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final PowerUpType[] FOOD_TYPES = PowerUpType.values();
+
+    private NetProtocol() {
+    }
+
+    /** Upper bound on any frame for a board of {@code cells} cells. */
+    public static int maxFrameSize(int cells) {
+        return 64 + 3 * cells;
+    }
+
+    /** Starts a frame; finish it with {@link #endFrame} once the payload is written. */
+    public static int beginFrame(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putShort((short) 0);
+        out.put(type);
+        return start;
+    }
+
+    public static void endFrame(ByteBuffer out, int start) {
+        out.putShort(start, (short) (out.position() - start - 2));
+    }
+
+    public static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public static int effectBits(boolean speedBoosted, boolean doublePoints, boolean invincible) {
+        return (speedBoosted ? SPEED_BOOSTED : 0) | (doublePoints ? DOUBLE_POINTS : 0)
+                | (invincible ? INVINCIBLE : 0);
+    }
+
+    public static void putFood(ByteBuffer out, int cell, PowerUpType type) {
+        putVarint(out, cell + 1);
+        if (cell >= 0) out.put((byte) type.ordinal());
+    }
+
+    public static Direction direction(int ordinal) {
+        return DIRECTIONS[ordinal];
+    }
+
+    public static PowerUpType foodType(int ordinal) {
+        return FOOD_TYPES[ordinal];
+    }
+}
@@ -0,0 +1,38 @@
+package com.snakegame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event for one paint of the game panel, with the time spent on each layer. */
+@Name("com.snakegame.Paint")
+@Label("Game Paint")
+@Category("Snake")
+@Description("One paintComponent call of the game panel")
+public class PaintEvent extends Event {
+    @Label("Static Layer")
+    @Timespan(Timespan.NANOSECONDS)
+    long staticNanos;
+
+    @Label("Food")
+    @Timespan(Timespan.NANOSECONDS)
+    long foodNanos;
+
+    @Label("Snake")
+    @Timespan(Timespan.NANOSECONDS)
+    long snakeNanos;
+
+    @Label("HUD")
+    @Timespan(Timespan.NANOSECONDS)
+    long hudNanos;
+
+    @Label("Overlay")
+    @Timespan(Timespan.NANOSECONDS)
+    long overlayNanos;
+
+    @Label("Full Repaint")
+    boolean fullRepaint;
+}
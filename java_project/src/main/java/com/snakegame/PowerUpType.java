@@ -5,29 +5,29 @@ package com.snakegame;
  */
 public enum PowerUpType {
     /** Standard food - increases score and snake length */
-    FOOD(100, 1, 0, false, 0),
+    FOOD(100, 1, 0, null, 0),
     /** Golden food - double points */
-    GOLDEN(200, 1, 0, false, 0),
+    GOLDEN(200, 1, 0, null, 0),
     /** Speed boost - temporarily increases game speed */
-    SPEED_BOOST(50, 1, 0, true, 5000),
+    SPEED_BOOST(50, 1, 0, EffectType.SPEED_BOOST, 5000),
     /** Grow - instant +3 segments */
-    GROW(150, 3, 0, false, 0),
+    GROW(150, 3, 0, null, 0),
     /** Double points - 2x score for a duration */
-    DOUBLE_POINTS(75, 1, 0, true, 8000),
+    DOUBLE_POINTS(75, 1, 0, EffectType.DOUBLE_POINTS, 8000),
     /** Invincibility - no death from walls/self for duration */
-    INVINCIBILITY(100, 1, 0, true, 6000);
+    INVINCIBILITY(100, 1, 0, EffectType.INVINCIBILITY, 6000);
 
     private final int basePoints;
     private final int growAmount;
     private final int shrinkAmount;
-    private final boolean temporary;
+    private final EffectType effect;
     private final int durationMs;
 
-    PowerUpType(int basePoints, int growAmount, int shrinkAmount, boolean temporary, int durationMs) {
+    PowerUpType(int basePoints, int growAmount, int shrinkAmount, EffectType effect, int durationMs) {
         this.basePoints = basePoints;
         this.growAmount = growAmount;
         this.shrinkAmount = shrinkAmount;
-        this.temporary = temporary;
+        this.effect = effect;
         this.durationMs = durationMs;
     }
 
@@ -44,7 +44,12 @@ public enum PowerUpType {
     }
 
     public boolean isTemporary() {
-        return temporary;
+        return effect != null;
+    }
+
+    /** Effect started when eaten, or {@code null} for food without one. */
+    public EffectType getEffect() {
+        return effect;
     }
 
     public int getDurationMs() {
@@ -0,0 +1,403 @@
+package com.snakegame;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * A recorded game: the settings and seed it started from plus every input
+ * passed to {@link GameEngine#step(Direction)}. Because the engine is
+ * deterministic, feeding the inputs back reproduces the game bit for bit.
+ * <p>
+ * Inputs are stored as one varint per turn, {@code (ticksSinceLastInput << 2) | direction},
+ * so a game costs roughly one byte per key press and nothing for straight runs.
+ * <p>
+ * Every {@value #KEYFRAME_INTERVAL} ticks the recorder also stores the whole
+ * game state as a keyframe, indexed by tick together with where the inputs
+ * after it start. A {@link Cursor} seeks by binary searching that index,
+ * loading the keyframe at or before the target and playing the few ticks
+ * left, so any tick of a long game is reached in a keyframe interval's work.
+ */
+public class Replay {
+    private static final int MAGIC = 0x534e4b52; // "SNKR"
+    /**
+     * Version 2: food placement no longer depends on the board's history.
+     * Version 3: food types come from the spawn table.
+     * Version 4: levels come from {@link LevelPipeline}. Older replays diverge.
+     * Version 5: keyframes, in the engine's snapshot format.
+     * Version 6: effects last their nominal time under a speed boost. Older replays diverge.
+     * Version 7: effects keep their nominal time when a speed boost starts or ends while
+     * they run. Older replays diverge.
+     */
+    private static final int VERSION = 7;
+    /** Ticks between keyframes unless the recorder is told otherwise. */
+    public static final int KEYFRAME_INTERVAL = 1024;
+
+    private final long seed;
+    private final Difficulty difficulty;
+    private final boolean wallMode;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final long tickCount;
+    private final byte[] inputs;
+    private final int keyframeInterval;
+    private final Keyframe[] keyframes;
+    private final byte[] keyframeData;
+
+    Replay(long seed, Difficulty difficulty, boolean wallMode, int gridWidth, int gridHeight,
+           long tickCount, byte[] inputs, int keyframeInterval, Keyframe[] keyframes,
+           byte[] keyframeData) {
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.wallMode = wallMode;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.tickCount = tickCount;
+        this.inputs = inputs;
+        this.keyframeInterval = keyframeInterval;
+        this.keyframes = keyframes;
+        this.keyframeData = keyframeData;
+    }
+
+    /** Creates an engine in the state the recorded game started from. */
+    public GameEngine newEngine() {
+        return new GameEngine(gridWidth, gridHeight, difficulty, wallMode, seed);
+    }
+
+    /** Replays every recorded tick and returns the engine in its final state. */
+    public GameEngine run() {
+        GameEngine engine = newEngine();
+        Player player = player();
+        while (player.hasNext()) {
+            engine.step(player.next());
+        }
+        return engine;
+    }
+
+    public Player player() {
+        return new Player(0, 0, 0);
+    }
+
+    /** A cursor at tick 0. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        data.writeByte(difficulty.ordinal());
+        data.writeBoolean(wallMode);
+        data.writeInt(gridWidth);
+        data.writeInt(gridHeight);
+        data.writeLong(tickCount);
+        data.writeInt(inputs.length);
+        data.write(inputs);
+        data.writeInt(keyframeInterval);
+        data.writeInt(keyframes.length);
+        for (Keyframe keyframe : keyframes) {
+            data.writeLong(keyframe.tick());
+            data.writeInt(keyframe.inputOffset());
+            data.writeLong(keyframe.lastInputTick());
+            data.writeInt(keyframe.offset());
+            data.writeInt(keyframe.length());
+        }
+        data.writeInt(keyframeData.length);
+        data.write(keyframeData);
+        data.flush();
+    }
+
+    public static Replay read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        long seed = data.readLong();
+        Difficulty difficulty = Difficulty.values()[data.readUnsignedByte()];
+        boolean wallMode = data.readBoolean();
+        int gridWidth = data.readInt();
+        int gridHeight = data.readInt();
+        long tickCount = data.readLong();
+        byte[] inputs = new byte[data.readInt()];
+        data.readFully(inputs);
+        int keyframeInterval = data.readInt();
+        Keyframe[] keyframes = new Keyframe[data.readInt()];
+        for (int i = 0; i < keyframes.length; i++) {
+            keyframes[i] = new Keyframe(data.readLong(), data.readInt(), data.readLong(),
+                    data.readInt(), data.readInt());
+        }
+        byte[] keyframeData = new byte[data.readInt()];
+        data.readFully(keyframeData);
+        return new Replay(seed, difficulty, wallMode, gridWidth, gridHeight, tickCount, inputs,
+                keyframeInterval, keyframes, keyframeData);
+    }
+
+    public void save(Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            write(out);
+        }
+    }
+
+    public static Replay load(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public boolean isWallMode() {
+        return wallMode;
+    }
+
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public int getKeyframeCount() {
+        return keyframes.length;
+    }
+
+    /** Index of the last keyframe at or before {@code tick}, or -1 if there is none. */
+    private int keyframeBefore(long tick) {
+        int low = 0;
+        int high = keyframes.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keyframes[mid].tick() <= tick) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high;
+    }
+
+    /**
+     * Game state after {@code tick} ticks, written without walls, and where in
+     * the inputs to carry on: the input stream offset and the tick of the
+     * input before it, which the next input's delta counts from.
+     */
+    record Keyframe(long tick, int inputOffset, long lastInputTick, int offset, int length) {
+    }
+
+    /** Walks the recorded input stream one tick at a time. */
+    public class Player {
+        private int offset;
+        private long tick;
+        private long nextInputTick = -1;
+        private Direction nextInput;
+
+        private Player(int offset, long lastInputTick, long tick) {
+            this.offset = offset;
+            this.tick = tick;
+            readNextInput(lastInputTick);
+        }
+
+        public boolean hasNext() {
+            return tick < tickCount;
+        }
+
+        /** Input for the next tick, or {@code null} if no key was pressed. */
+        public Direction next() {
+            Direction input = null;
+            if (tick == nextInputTick) {
+                input = nextInput;
+                readNextInput(tick);
+            }
+            tick++;
+            return input;
+        }
+
+        public long getTick() {
+            return tick;
+        }
+
+        private void readNextInput(long fromTick) {
+            if (offset >= inputs.length) {
+                nextInputTick = -1;
+                return;
+            }
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = inputs[offset++];
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            nextInput = Direction.values()[(int) (value & 3)];
+            nextInputTick = fromTick + (value >>> 2);
+        }
+    }
+
+    /**
+     * An engine positioned at some tick of the replay, which can step forward
+     * or {@link #seek} anywhere. Keyframes share the level of the engine the
+     * cursor starts with, so seeking does not generate it again.
+     */
+    public class Cursor {
+        private final LevelLayout layout;
+        private GameEngine engine;
+        private Player player;
+
+        private Cursor() {
+            engine = newEngine();
+            layout = engine.getLayout();
+            player = player();
+        }
+
+        public boolean hasNext() {
+            return player.hasNext();
+        }
+
+        /** Plays the next recorded tick. */
+        public StepResult step() {
+            return engine.step(player.next());
+        }
+
+        /**
+         * Moves to {@code tick}, clamped to the recording. Going back, or
+         * forward past a keyframe, starts from the nearest keyframe before the
+         * target; only then are ticks played.
+         */
+        public void seek(long tick) {
+            long target = Math.max(0, Math.min(tick, tickCount));
+            int k = keyframeBefore(target);
+            long from = k < 0 ? 0 : keyframes[k].tick();
+            if (target < getTick() || from > getTick()) {
+                if (k < 0) {
+                    engine = newEngine();
+                    player = player();
+                } else {
+                    load(keyframes[k]);
+                }
+            }
+            while (getTick() < target) {
+                step();
+            }
+        }
+
+        private void load(Keyframe keyframe) {
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(keyframeData, keyframe.offset(), keyframe.length()));
+            try {
+                engine = GameEngine.readState(in, layout);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            player = new Player(keyframe.inputOffset(), keyframe.lastInputTick(), keyframe.tick());
+        }
+
+        public long getTick() {
+            return player.getTick();
+        }
+
+        /** The engine at the current tick; only read it, and only until the next step or seek. */
+        public GameEngine getEngine() {
+            return engine;
+        }
+
+        public Replay getReplay() {
+            return Replay.this;
+        }
+    }
+
+    /**
+     * Accumulates inputs tick by tick while a game is played, and a keyframe
+     * of the engine it was created for every {@code keyframeInterval} ticks.
+     */
+    public static class Recorder {
+        private final GameEngine engine;
+        private final int keyframeInterval;
+        private final long seed;
+        private final Difficulty difficulty;
+        private final boolean wallMode;
+        private final int gridWidth;
+        private final int gridHeight;
+        private byte[] buffer = new byte[256];
+        private int size;
+        private long tick;
+        private long lastInputTick;
+        private Keyframe[] keyframes = new Keyframe[16];
+        private int keyframeCount;
+        private final ByteArrayOutputStream keyframeData = new ByteArrayOutputStream();
+        private final DataOutputStream keyframeOut = new DataOutputStream(keyframeData);
+
+        /** Records {@code engine}, which must be at tick 0, with the default keyframe interval. */
+        public Recorder(GameEngine engine) {
+            this(engine, KEYFRAME_INTERVAL);
+        }
+
+        public Recorder(GameEngine engine, int keyframeInterval) {
+            this.engine = engine;
+            this.keyframeInterval = keyframeInterval;
+            this.seed = engine.getSeed();
+            this.difficulty = engine.getDifficulty();
+            this.wallMode = engine.isWallMode();
+            this.gridWidth = engine.getGridWidth();
+            this.gridHeight = engine.getGridHeight();
+        }
+
+        /** Records the input passed to the engine for the current tick; call after the step. */
+        public void record(Direction input) {
+            if (input != null) {
+                writeVarint(((tick - lastInputTick) << 2) | input.ordinal());
+                lastInputTick = tick;
+            }
+            tick++;
+            if (tick % keyframeInterval == 0 && !engine.isOver()) {
+                writeKeyframe();
+            }
+        }
+
+        public Replay finish() {
+            return new Replay(seed, difficulty, wallMode, gridWidth, gridHeight, tick,
+                    Arrays.copyOf(buffer, size), keyframeInterval,
+                    Arrays.copyOf(keyframes, keyframeCount), keyframeData.toByteArray());
+        }
+
+        private void writeKeyframe() {
+            int offset = keyframeData.size();
+            try {
+                engine.writeState(keyframeOut, false);
+                keyframeOut.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (keyframeCount == keyframes.length) {
+                keyframes = Arrays.copyOf(keyframes, keyframeCount * 2);
+            }
+            keyframes[keyframeCount++] = new Keyframe(tick, size, lastInputTick, offset,
+                    keyframeData.size() - offset);
+        }
+
+        private void writeVarint(long value) {
+            if (size + 10 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            while ((value & ~0x7fL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+    }
+}
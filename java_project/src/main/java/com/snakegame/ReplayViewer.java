@@ -0,0 +1,114 @@
+package com.snakegame;
+
+/**
+ * Plays a {@link Replay} back for the panel, with pause, variable speed,
+ * single steps either way and seeking through a {@link Replay.Cursor}.
+ * <p>
+ * There is no thread: ticks that have come due are played when the panel
+ * asks for the next snapshot, so everything happens on the thread that calls
+ * it, normally the event dispatch thread.
+ */
+public class ReplayViewer implements GameSession {
+    /** Playback speeds, as multiples of real time. */
+    private static final double[] SPEEDS = {0.25, 0.5, 1, 2, 4, 8, 16, 32, 64};
+    private static final int NORMAL_SPEED = 2;
+    /** Ticks played per snapshot at most, so a long stall does not freeze the window. */
+    private static final int MAX_TICKS_PER_FRAME = 1_000;
+
+    private final Replay.Cursor cursor;
+    private final Replay replay;
+    private int speed = NORMAL_SPEED;
+    private boolean playing;
+    private long nextTickNanos;
+    private FrameSnapshot snapshot;
+
+    public ReplayViewer(Replay replay) {
+        this.replay = replay;
+        this.cursor = replay.cursor();
+        publish(System.nanoTime());
+    }
+
+    /** Plays from the current tick; at the end it starts over. */
+    @Override
+    public void start() {
+        if (playing) return;
+        if (!cursor.hasNext()) seek(0);
+        playing = true;
+        nextTickNanos = System.nanoTime() + tickNanos();
+        publish(System.nanoTime());
+    }
+
+    @Override
+    public void stop() {
+        playing = false;
+    }
+
+    /** Replays take no input. */
+    @Override
+    public void submit(Direction direction) {
+    }
+
+    @Override
+    public FrameSnapshot getSnapshot() {
+        if (playing) advance(System.nanoTime());
+        return snapshot;
+    }
+
+    private void advance(long now) {
+        int played = 0;
+        while (now - nextTickNanos >= 0 && played < MAX_TICKS_PER_FRAME) {
+            if (!cursor.hasNext()) {
+                playing = false;
+                break;
+            }
+            cursor.step();
+            played++;
+            nextTickNanos += tickNanos();
+        }
+        if (played == MAX_TICKS_PER_FRAME) nextTickNanos = now + tickNanos();
+        if (played > 0) publish(now);
+    }
+
+    /** Jumps to {@code tick}, clamped to the recording, and keeps playing if it was. */
+    public void seek(long tick) {
+        cursor.seek(tick);
+        nextTickNanos = System.nanoTime() + tickNanos();
+        publish(System.nanoTime());
+    }
+
+    /** Pauses and moves {@code ticks} forward, or back if negative. */
+    public void stepBy(long ticks) {
+        playing = false;
+        seek(cursor.getTick() + ticks);
+    }
+
+    /** Moves one step up or down the speed list, returning the new speed. */
+    public double changeSpeed(int steps) {
+        speed = Math.max(0, Math.min(SPEEDS.length - 1, speed + steps));
+        return SPEEDS[speed];
+    }
+
+    private long tickNanos() {
+        return (long) (cursor.getEngine().getTickDelayMs() * 1_000_000L / SPEEDS[speed]);
+    }
+
+    private void publish(long now) {
+        snapshot = FrameSnapshot.capture(cursor.getEngine(), now, tickNanos());
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public double getSpeed() {
+        return SPEEDS[speed];
+    }
+
+    public long getTick() {
+        return cursor.getTick();
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+}
@@ -0,0 +1,64 @@
+package com.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Splits the tile into rooms by binary space partitioning: each area larger
+ * than the maximum room is cut by a wall at a random offset, and every cut
+ * leaves a doorway three cells wide.
+ */
+public class RoomsGenerator implements LevelGenerator {
+    private static final int DOOR = 3;
+    private static final int MIN_ROOM = 4;
+
+    private final int maxRoom;
+
+    public RoomsGenerator(int maxRoom) {
+        if (maxRoom < 2 * MIN_ROOM + 1) throw new IllegalArgumentException("Rooms need at least " + (2 * MIN_ROOM + 1) + " cells");
+        this.maxRoom = maxRoom;
+    }
+
+    @Override
+    public void generate(LevelGrid grid, GameRandom random) {
+        // Pending areas as x, y, width, height
+        int[] areas = new int[64];
+        int top = 0;
+        areas[top++] = 0;
+        areas[top++] = 0;
+        areas[top++] = grid.getWidth();
+        areas[top++] = grid.getHeight();
+        while (top > 0) {
+            int h = areas[--top];
+            int w = areas[--top];
+            int y = areas[--top];
+            int x = areas[--top];
+            boolean vertical = w >= h;
+            int span = vertical ? w : h;
+            if (span <= maxRoom) continue;
+            int cut = MIN_ROOM + random.nextInt(span - 2 * MIN_ROOM);
+            int length = vertical ? h : w;
+            int door = length <= DOOR ? 0 : random.nextInt(length - DOOR + 1);
+            for (int i = 0; i < length; i++) {
+                if (i >= door && i < door + DOOR) continue;
+                if (vertical) grid.setWall(x + cut, y + i);
+                else grid.setWall(x + i, y + cut);
+            }
+            if (top + 8 > areas.length) areas = Arrays.copyOf(areas, areas.length * 2);
+            if (vertical) {
+                top = push(areas, top, x, y, cut, h);
+                top = push(areas, top, x + cut + 1, y, w - cut - 1, h);
+            } else {
+                top = push(areas, top, x, y, w, cut);
+                top = push(areas, top, x, y + cut + 1, w, h - cut - 1);
+            }
+        }
+    }
+
+    private static int push(int[] areas, int top, int x, int y, int w, int h) {
+        areas[top++] = x;
+        areas[top++] = y;
+        areas[top++] = w;
+        areas[top++] = h;
+        return top;
+    }
+}
@@ -0,0 +1,29 @@
+package com.snakegame;
+
+/**
+ * Drops blobs of one to three walls at random, each cell of a blob within a
+ * step of the blob's start. Blobs may overlap; the count is spread over tiles
+ * by area, so density is the same on every board size.
+ */
+public class ScatterGenerator implements LevelGenerator {
+    private final double blobsPerCell;
+
+    public ScatterGenerator(double blobsPerCell) {
+        this.blobsPerCell = blobsPerCell;
+    }
+
+    @Override
+    public void generate(LevelGrid grid, GameRandom random) {
+        double expected = blobsPerCell * grid.getWidth() * grid.getHeight();
+        int blobs = (int) expected;
+        if (random.nextDouble() < expected - blobs) blobs++;
+        for (int i = 0; i < blobs; i++) {
+            int size = 1 + random.nextInt(3);
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            for (int j = 0; j < size; j++) {
+                grid.setWallIfInside(x + random.nextInt(3) - 1, y + random.nextInt(3) - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.snakegame;
+
+import com.snakegame.HighScoreManager.ScoreEntry;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of score entries. Each record is framed as
+ * {@code [length][crc32][payload]}. Recovery streams the file once through a
+ * fixed buffer and hands each record on as soon as it checks out, so the
+ * journal is never held in memory. A damaged record is skipped by scanning
+ * ahead for the next intact frame, so it costs only itself, and bytes after
+ * the last intact record are a torn write that is cut off. A file whose
+ * header is not a journal this version can read is never truncated: it is
+ * moved aside, see {@link #getSetAside}, and a fresh journal is started.
+ * <p>
+ * Appends only enqueue; a background writer drains the queue in batches,
+ * writes them with one call and forces them to disk. Once enough records
+ * have been appended the writer compacts the file, streaming the entries
+ * the retain policy keeps into a temporary file that atomically replaces
+ * the journal. Damaged regions are left behind, so a journal that keeps
+ * every entry is still compacted when recovery had to skip any; otherwise
+ * such a journal has nothing to gain and is left alone. Version 1 files,
+ * which predate wall mode, are compacted into the current format at open.
+ */
+public class ScoreJournal implements Closeable {
+    private static final int MAGIC = 0x534e4b4a; // "SNKJ"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 5;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 64 * 1024;
+    /** Holds any record whole, with room to read ahead of it. */
+    private static final int READ_BUFFER_BYTES = 2 * (RECORD_HEADER_BYTES + MAX_PAYLOAD_BYTES);
+    /** Compaction writes its output in pieces of about this size. */
+    private static final int WRITE_CHUNK_BYTES = 64 * 1024;
+    private static final int DEFAULT_COMPACT_AFTER = 256;
+    private static final Predicate<ScoreEntry> KEEP_ALL = entry -> true;
+    private static final long RETRY_MILLIS = 1000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final ScoreEntry CLOSE = new ScoreEntry("", 0, Difficulty.EASY, false, 0);
+
+    private final Path path;
+    private final Predicate<ScoreEntry> retain;
+    private final int compactAfter;
+    private final BlockingQueue<ScoreEntry> pending = new LinkedBlockingQueue<>();
+    private Thread writer;
+
+    /* Owned by the writer thread once it has started. */
+    private FileChannel channel;
+    private long validLength;
+    /** Bytes recovery skipped over between intact records since the last compaction. */
+    private long damagedBytes;
+    private int appendedSinceCompaction;
+    private Path setAside;
+    private int recoveredVersion = VERSION;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    /** File offset of {@link #readBuffer}'s first byte. */
+    private long readStart;
+    private boolean readAll;
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    private final DataOutputStream encoder = new DataOutputStream(encoded);
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final DataOutputStream payloadEncoder = new DataOutputStream(payload);
+    private final CRC32 crc = new CRC32();
+
+    /** A journal that keeps every entry. */
+    public ScoreJournal(Path path) {
+        this(path, KEEP_ALL, DEFAULT_COMPACT_AFTER);
+    }
+
+    /**
+     * @param retain       picks the entries worth keeping when the file is compacted
+     * @param compactAfter appended records that trigger a compaction
+     */
+    public ScoreJournal(Path path, Predicate<ScoreEntry> retain, int compactAfter) {
+        this.path = path;
+        this.retain = retain;
+        this.compactAfter = compactAfter;
+    }
+
+    /**
+     * Passes every intact record to {@code sink} as it is read, cuts off a
+     * torn tail and starts the writer. A missing file starts a fresh journal.
+     * Records reach {@code sink} before the journal has finished opening; if
+     * it then fails, a retry passes the same records again in the same order.
+     */
+    public void open(Consumer<ScoreEntry> sink) throws IOException {
+        validLength = 0;
+        damagedBytes = 0;
+        appendedSinceCompaction = 0;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // A shorter file is a torn header write with nothing in it to lose
+            if (channel.size() >= HEADER_BYTES) {
+                int version = readVersion();
+                if (version < 0) {
+                    channel.close();
+                    setAside = path.resolveSibling(path.getFileName() + "." + System.currentTimeMillis()
+                            + ".unreadable");
+                    Files.move(path, setAside);
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                            StandardOpenOption.WRITE);
+                } else {
+                    recoveredVersion = version;
+                    validLength = scan(version, entry -> {
+                        appendedSinceCompaction++;
+                        sink.accept(entry);
+                    });
+                }
+            }
+            if (validLength < HEADER_BYTES) {
+                channel.truncate(0);
+                writeFully(ByteBuffer.wrap(header()), 0);
+                validLength = HEADER_BYTES;
+            } else if (channel.size() > validLength) {
+                channel.truncate(validLength);
+            }
+            channel.force(true);
+            if (recoveredVersion < VERSION) {
+                compact(recoveredVersion);
+                recoveredVersion = VERSION;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        writer = new Thread(this::writeLoop, "score-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Where an unreadable file found by {@link #open} was moved, or {@code null} if there was none. */
+    public Path getSetAside() {
+        return setAside;
+    }
+
+    /** Queues an entry for the writer; never blocks on I/O. */
+    public void append(ScoreEntry entry) {
+        pending.add(entry);
+    }
+
+    /** Writes everything queued so far and stops the writer. */
+    @Override
+    public void close() {
+        if (writer == null) return;
+        pending.add(CLOSE);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** The version in the file's header, or -1 if it is not a journal this version can read. */
+    private int readVersion() throws IOException {
+        readBuffer.clear().limit(HEADER_BYTES);
+        while (readBuffer.hasRemaining() && channel.read(readBuffer, readBuffer.position()) >= 0) {
+            // Keep reading; the caller checked the file is long enough
+        }
+        int version = readBuffer.get(4) & 0xff;
+        return readBuffer.getInt(0) == MAGIC && version >= 1 && version <= VERSION ? version : -1;
+    }
+
+    /**
+     * Passes every intact record after the header to {@code sink} and returns
+     * where the last one ends. Where a record is damaged, every later offset is
+     * tried until a frame with a sane length and a matching checksum turns up;
+     * the bytes passed over count towards {@link #damagedBytes}.
+     */
+    private long scan(int version, RecordSink sink) throws IOException {
+        readBuffer.clear().limit(0);
+        readStart = HEADER_BYTES;
+        readAll = false;
+        long end = HEADER_BYTES;
+        long at = HEADER_BYTES;
+        while (fill(at, RECORD_HEADER_BYTES)) {
+            int length = readBuffer.getInt((int) (at - readStart));
+            ScoreEntry entry = null;
+            if (length > 0 && length <= MAX_PAYLOAD_BYTES && fill(at, RECORD_HEADER_BYTES + length)) {
+                entry = readRecord((int) (at - readStart), length, version);
+            }
+            if (entry == null) {
+                at++;
+                continue;
+            }
+            damagedBytes += at - end;
+            sink.accept(entry);
+            at += RECORD_HEADER_BYTES + length;
+            end = at;
+        }
+        return end;
+    }
+
+    /**
+     * Makes {@link #readBuffer} hold the {@code bytes} bytes at file offset
+     * {@code at}, sliding it forward and reading more if it does not, and
+     * returns whether the file has that many.
+     */
+    private boolean fill(long at, int bytes) throws IOException {
+        int index = (int) (at - readStart);
+        if (readBuffer.limit() - index >= bytes) return true;
+        if (readAll) return false;
+        readBuffer.position(index);
+        readBuffer.compact();
+        readStart = at;
+        while (readBuffer.hasRemaining()) {
+            if (channel.read(readBuffer, readStart + readBuffer.position()) < 0) {
+                readAll = true;
+                break;
+            }
+        }
+        readBuffer.flip();
+        return readBuffer.limit() >= bytes;
+    }
+
+    /** The record framed at {@code index} in the read buffer, or {@code null} if it is corrupt. */
+    private ScoreEntry readRecord(int index, int length, int version) {
+        int start = index + RECORD_HEADER_BYTES;
+        crc.reset();
+        crc.update(readBuffer.array(), start, length);
+        if ((int) crc.getValue() != readBuffer.getInt(index + 4)) return null;
+        return decode(readBuffer.array(), start, length, version);
+    }
+
+    private void writeLoop() {
+        List<ScoreEntry> batch = new ArrayList<>();
+        boolean closing = false;
+        while (!closing || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(pending.take());
+                }
+                pending.drainTo(batch);
+                closing |= batch.removeIf(entry -> entry == CLOSE);
+                if (batch.isEmpty()) continue;
+
+                write(batch);
+                appendedSinceCompaction += batch.size();
+                batch.clear();
+                if (appendedSinceCompaction >= compactAfter && (retain != KEEP_ALL || damagedBytes > 0)) {
+                    compactQuietly();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                if (!retryLater()) return;
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Rolls a failed write back to the last intact record and waits before retrying. */
+    private boolean retryLater() {
+        try {
+            channel.truncate(validLength);
+        } catch (IOException ignored) {
+        }
+        try {
+            Thread.sleep(RETRY_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private void write(List<ScoreEntry> batch) throws IOException {
+        encoded.reset();
+        for (ScoreEntry entry : batch) {
+            encode(entry);
+        }
+        writeFully(ByteBuffer.wrap(encoded.toByteArray()), validLength);
+        channel.force(false);
+        validLength += encoded.size();
+    }
+
+    /** Compacts, leaving the journal as it was if that fails; the next compaction tries again. */
+    private void compactQuietly() {
+        try {
+            compact(VERSION);
+        } catch (IOException e) {
+            appendedSinceCompaction = 0;
+        }
+    }
+
+    /**
+     * Replaces the file, whose records are in {@code version}'s format, with
+     * the intact entries the retain policy keeps, in the current format.
+     */
+    private void compact(int version) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            encoded.reset();
+            encoded.writeBytes(header());
+            scan(version, entry -> {
+                if (!retain.test(entry)) return;
+                encode(entry);
+                if (encoded.size() >= WRITE_CHUNK_BYTES) drain(out);
+            });
+            drain(out);
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        validLength = channel.size();
+        damagedBytes = 0;
+        appendedSinceCompaction = 0;
+    }
+
+    /** Writes what {@link #encoded} holds to the end of {@code out} and empties it. */
+    private void drain(FileChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded.toByteArray());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        encoded.reset();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static byte[] header() {
+        return new byte[]{(byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8),
+                (byte) MAGIC, VERSION};
+    }
+
+    /** Appends one framed record to {@link #encoded}. */
+    private void encode(ScoreEntry entry) throws IOException {
+        payload.reset();
+        payloadEncoder.writeLong(entry.timestamp());
+        payloadEncoder.writeInt(entry.score());
+        payloadEncoder.writeByte(entry.difficulty().ordinal());
+        payloadEncoder.writeBoolean(entry.wallMode());
+        payloadEncoder.writeUTF(entry.playerName());
+        byte[] bytes = payload.toByteArray();
+        crc.reset();
+        crc.update(bytes);
+        encoder.writeInt(bytes.length);
+        encoder.writeInt((int) crc.getValue());
+        encoder.write(bytes);
+    }
+
+    private static ScoreEntry decode(byte[] data, int offset, int length, int version) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+            long timestamp = in.readLong();
+            int score = in.readInt();
+            int difficulty = in.readUnsignedByte();
+            boolean wallMode = version < 2 || in.readBoolean();
+            String name = in.readUTF();
+            if (difficulty >= Difficulty.values().length) return null;
+            return new ScoreEntry(name, score, Difficulty.values()[difficulty], wallMode, timestamp);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Where {@link #scan} hands records; compaction's writes may fail. */
+    private interface RecordSink {
+        void accept(ScoreEntry entry) throws IOException;
+    }
+}
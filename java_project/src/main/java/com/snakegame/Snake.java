@@ -1,84 +1,246 @@
 package com.snakegame;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents the snake entity with segments and movement logic.
+ * <p>
+ * The body is a window onto an append-only trail of packed cell indices
+ * ({@code y * gridWidth + x}): moving writes the new head past the end and
+ * drops the tail by shrinking the window, in O(1) without allocating. Growth
+ * is deferred so the tail simply stays put for the next {@code amount} moves.
+ * <p>
+ * Cells behind the head are never written again, so {@link #fork()} can share
+ * the trail. Whichever copy moves first extends it in place; the other finds
+ * the next slot taken and moves its window to a fresh trail. When a trail
+ * fills up, a snake that has never shared it slides its body back to the
+ * start, so a snake that is not forked moves without allocating; a shared
+ * trail is left to the other copies and the body moves to a fresh one.
  */
 public class Snake {
-    private final LinkedList<Point> body;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int gridWidth;
+    private Trail trail;
+    private int head;
+    private int length;
+    private int pendingGrowth;
     private Direction direction;
     private Direction pendingDirection;
 
-    public Snake(int startX, int startY) {
-        this.body = new LinkedList<>();
-        this.body.add(new Point(startX, startY));
-        this.body.add(new Point(startX - 1, startY));
-        this.body.add(new Point(startX - 2, startY));
-        this.direction = Direction.RIGHT;
-        this.pendingDirection = Direction.RIGHT;
+    public Snake(int startX, int startY, int gridWidth) {
+        this.gridWidth = gridWidth;
+        this.trail = new Trail(INITIAL_CAPACITY);
+        reset(startX, startY);
+    }
+
+    /**
+     * Puts the snake back to its starting three segments heading right. The
+     * trail is reused unless a fork may still be reading it.
+     */
+    public void reset(int startX, int startY) {
+        if (trail.forked) {
+            trail = new Trail(INITIAL_CAPACITY);
+        } else {
+            trail.size.set(0);
+        }
+        head = -1;
+        length = 0;
+        pendingGrowth = 0;
+        push(toCell(startX - 2, startY));
+        push(toCell(startX - 1, startY));
+        push(toCell(startX, startY));
+        direction = Direction.RIGHT;
+        pendingDirection = Direction.RIGHT;
+    }
+
+    /** Rebuilds a snake from its cells, head first. */
+    Snake(int gridWidth, int[] segments, Direction direction, Direction pendingDirection,
+          int pendingGrowth) {
+        this.gridWidth = gridWidth;
+        this.trail = new Trail(Math.max(INITIAL_CAPACITY, segments.length * 2));
+        this.head = -1;
+        for (int i = segments.length - 1; i >= 0; i--) {
+            push(segments[i]);
+        }
+        this.direction = direction;
+        this.pendingDirection = pendingDirection;
+        this.pendingGrowth = pendingGrowth;
+    }
+
+    private Snake(Snake source) {
+        this.gridWidth = source.gridWidth;
+        this.trail = source.trail;
+        this.head = source.head;
+        this.length = source.length;
+        this.pendingGrowth = source.pendingGrowth;
+        this.direction = source.direction;
+        this.pendingDirection = source.pendingDirection;
     }
 
+    /** Returns an independent copy in O(1); the two share cells until one of them moves. */
+    public Snake fork() {
+        trail.forked = true;
+        return new Snake(this);
+    }
+
+    /**
+     * Sets the direction for the next move. It is checked against the direction
+     * of the last move, not an earlier pending one, since it replaces that.
+     */
     public void setDirection(Direction newDirection) {
         if (newDirection != null && !newDirection.isOpposite(direction)) {
             this.pendingDirection = newDirection;
         }
     }
 
-    public void move() {
-        this.direction = pendingDirection;
-        Point head = body.getFirst();
-        Point offset = direction.getOffset();
-        Point newHead = new Point(head.x + offset.x, head.y + offset.y);
-        body.addFirst(newHead);
-        body.removeLast();
+    /** Whether {@code newDirection} would change the course of the next move. */
+    public boolean canTurn(Direction newDirection) {
+        return newDirection != direction && !newDirection.isOpposite(direction);
+    }
+
+    /** Commits the pending turn and returns the direction of the next move. */
+    public Direction turn() {
+        direction = pendingDirection;
+        return direction;
+    }
+
+    /**
+     * Moves the head onto {@code newHeadCell}.
+     *
+     * @return the cell vacated by the tail, or {@code -1} if the snake grew instead
+     */
+    public int move(int newHeadCell) {
+        push(newHeadCell);
+        if (pendingGrowth > 0) {
+            pendingGrowth--;
+            return -1;
+        }
+        int tail = trail.cells[head - length + 1];
+        length--;
+        return tail;
     }
 
     public void grow(int amount) {
-        for (int i = 0; i < amount; i++) {
-            Point tail = body.getLast();
-            body.addLast(new Point(tail));
+        pendingGrowth += amount;
+    }
+
+    /**
+     * Drops {@code amount} segments from the tail at once. Callers read the
+     * dropped cells with {@link #getSegment} first if they need them.
+     *
+     * @throws IllegalArgumentException if that would leave no head
+     */
+    public void shrink(int amount) {
+        if (amount < 0 || amount >= length) {
+            throw new IllegalArgumentException("Cannot shrink a snake of length " + length + " by " + amount);
         }
+        length -= amount;
     }
 
-    public Point getHead() {
-        return body.getFirst();
+    private void push(int cell) {
+        if (!trail.claim(head + 1)) {
+            relocate();
+            trail.claim(head + 1);
+        }
+        trail.cells[++head] = cell;
+        length++;
     }
 
-    public List<Point> getBody() {
-        return new ArrayList<>(body);
+    /**
+     * Copies the body to the start of a trail with room to grow: this one if
+     * no fork can be reading it and it is at most half full, else a new one.
+     */
+    private void relocate() {
+        Trail target = trail;
+        if (trail.forked || (length + 1) * 2 > trail.cells.length) {
+            target = new Trail(Math.max(INITIAL_CAPACITY, (length + 1) * 2));
+        }
+        System.arraycopy(trail.cells, head - length + 1, target.cells, 0, length);
+        target.size.set(length);
+        trail = target;
+        head = length - 1;
+    }
+
+    /** Packed cell of the segment {@code index} positions behind the head. */
+    public int getSegment(int index) {
+        return trail.cells[head - index];
+    }
+
+    public int getHeadCell() {
+        return trail.cells[head];
+    }
+
+    public int getHeadX() {
+        return trail.cells[head] % gridWidth;
+    }
+
+    public int getHeadY() {
+        return trail.cells[head] / gridWidth;
+    }
+
+    public int getTailCell() {
+        return getSegment(length - 1);
+    }
+
+    public Point getHead() {
+        return toPoint(trail.cells[head]);
     }
 
     public int getLength() {
-        return body.size();
+        return length;
     }
 
     public Direction getDirection() {
         return direction;
     }
 
-    public boolean contains(Point point) {
-        return body.contains(point);
+    /** Direction of the next move, which may be a turn not yet taken. */
+    public Direction getPendingDirection() {
+        return pendingDirection;
+    }
+
+    /** Moves left during which the tail stays put. */
+    public int getPendingGrowth() {
+        return pendingGrowth;
     }
 
     public boolean collidesWithSelf() {
-        Point head = getHead();
-        for (int i = 1; i < body.size(); i++) {
-            if (body.get(i).equals(head)) {
+        int headCell = trail.cells[head];
+        for (int i = 1; i < length; i++) {
+            if (getSegment(i) == headCell) {
                 return true;
             }
         }
         return false;
     }
 
-    /** Wraps head position for wraparound mode. */
-    public void wrapHead(int gridWidth, int gridHeight) {
-        Point head = body.getFirst();
-        int x = ((head.x % gridWidth) + gridWidth) % gridWidth;
-        int y = ((head.y % gridHeight) + gridHeight) % gridHeight;
-        body.set(0, new Point(x, y));
+    private int toCell(int x, int y) {
+        return y * gridWidth + x;
+    }
+
+    private Point toPoint(int cell) {
+        return new Point(cell % gridWidth, cell / gridWidth);
+    }
+
+    /**
+     * Cells shared by forks of one snake. Slots at or past {@code size} are
+     * unclaimed; a snake may only write the slot it has just claimed.
+     * {@code forked} is set once a second snake can see the trail, after which
+     * claimed slots are never rewritten.
+     */
+    private static final class Trail {
+        final int[] cells;
+        final AtomicInteger size = new AtomicInteger();
+        volatile boolean forked;
+
+        Trail(int capacity) {
+            cells = new int[capacity];
+        }
+
+        boolean claim(int slot) {
+            return slot < cells.length && size.compareAndSet(slot, slot + 1);
+        }
     }
 }
@@ -2,9 +2,17 @@ package com.snakegame;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
- * Main application frame for the Snake game.
+ * Main application frame for the Snake game. Pass {@code --connect host:port}
+ * to play on a {@link GameServer} instead of locally, or {@code --replay FILE}
+ * to watch a recorded game, optionally from {@code --tick N}.
  */
 public class SnakeGame extends JFrame {
     private final GamePanel gamePanel;
@@ -17,6 +25,12 @@ public class SnakeGame extends JFrame {
 
         gamePanel = new GamePanel(this);
         add(gamePanel);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                gamePanel.pauseGame();
+            }
+        });
 
         pack();
         setLocationRelativeTo(null);
@@ -32,21 +46,49 @@ public class SnakeGame extends JFrame {
         dialog.setVisible(true);
     }
 
-    public void startGameWithSettings(Difficulty difficulty, boolean wallMode) {
+    public void startGameWithSettings(Difficulty difficulty, boolean wallMode,
+                                      int boardWidth, int boardHeight, boolean autopilot) {
         gamePanel.setDifficulty(difficulty);
         gamePanel.setWallMode(wallMode);
+        gamePanel.setAutopilot(autopilot);
+        gamePanel.setBoardSize(boardWidth, boardHeight);
         gamePanel.startGame();
     }
 
+    private void watchReplay(Path path, long tick) {
+        try {
+            gamePanel.watchReplay(Replay.load(path), tick);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not open " + path + ": " + e.getMessage(),
+                    "Replay", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     public static void main(String[] args) {
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception ignored) {
         }
 
+        InetSocketAddress server = null;
+        Path replayFile = null;
+        long tick = 0;
+        for (int i = 0; i + 1 < args.length; i++) {
+            switch (args[i]) {
+                case "--connect" -> server = GameClient.parseAddress(args[i + 1]);
+                case "--replay" -> replayFile = Paths.get(args[i + 1]);
+                case "--tick" -> tick = Long.parseLong(args[i + 1]);
+                default -> {}
+            }
+        }
+        InetSocketAddress address = server;
+        Path replayPath = replayFile;
+        long startTick = tick;
         SwingUtilities.invokeLater(() -> {
             SnakeGame game = new SnakeGame();
+            game.gamePanel.setServer(address);
             game.setVisible(true);
+            if (replayPath != null) game.watchReplay(replayPath, startTick);
         });
     }
 }
@@ -0,0 +1,171 @@
+package com.snakegame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Weighted power-up spawn chances per difficulty and score band, read from
+ * {@value #RESOURCE} on the classpath. Each band is compiled into a Walker
+ * alias table, so picking a type takes one random number and two array reads
+ * however many types the band lists, and never allocates. Finding the band
+ * is a binary search over that difficulty's band starts.
+ */
+public class SpawnTable {
+    private static final String RESOURCE = "/spawn-table.properties";
+    private static final String DEFAULT_KEY = "default";
+    private static final SpawnTable DEFAULT = loadDefault();
+
+    private final int[][] bandStarts;
+    private final Alias[][] bands;
+
+    private SpawnTable(int[][] bandStarts, Alias[][] bands) {
+        this.bandStarts = bandStarts;
+        this.bands = bands;
+    }
+
+    /** The table shipped with the game. */
+    public static SpawnTable getDefault() {
+        return DEFAULT;
+    }
+
+    private static SpawnTable loadDefault() {
+        try (InputStream in = SpawnTable.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Missing " + RESOURCE);
+            Properties properties = new Properties();
+            properties.load(in);
+            return parse(properties);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + RESOURCE, e);
+        }
+    }
+
+    /**
+     * Builds a table from entries of the form
+     * {@code <difficulty>.<score> = TYPE weight, TYPE weight, ...}.
+     *
+     * @throws IllegalArgumentException if an entry is malformed or a difficulty has no band at 0
+     */
+    public static SpawnTable parse(Properties properties) {
+        Map<String, TreeMap<Integer, Alias>> byKey = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (dot < 0) throw new IllegalArgumentException("Expected <difficulty>.<score>, got " + key);
+            String difficulty = key.substring(0, dot).trim().toLowerCase();
+            if (!difficulty.equals(DEFAULT_KEY)) Difficulty.valueOf(difficulty.toUpperCase());
+            int score = Integer.parseInt(key.substring(dot + 1).trim());
+            byKey.computeIfAbsent(difficulty, d -> new TreeMap<>())
+                    .put(score, parseBand(key, properties.getProperty(key)));
+        }
+
+        Difficulty[] difficulties = Difficulty.values();
+        int[][] starts = new int[difficulties.length][];
+        Alias[][] bands = new Alias[difficulties.length][];
+        for (Difficulty difficulty : difficulties) {
+            TreeMap<Integer, Alias> own = byKey.get(difficulty.name().toLowerCase());
+            if (own == null) own = byKey.get(DEFAULT_KEY);
+            if (own == null || !own.containsKey(0)) {
+                throw new IllegalArgumentException("No spawn band at score 0 for " + difficulty.getDisplayName());
+            }
+            starts[difficulty.ordinal()] = own.keySet().stream().mapToInt(Integer::intValue).toArray();
+            bands[difficulty.ordinal()] = own.values().toArray(new Alias[0]);
+        }
+        return new SpawnTable(starts, bands);
+    }
+
+    private static Alias parseBand(String key, String value) {
+        Map<PowerUpType, Double> weights = new EnumMap<>(PowerUpType.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(key + ": expected TYPE weight, got '" + entry.trim() + "'");
+            }
+            double weight = Double.parseDouble(parts[1]);
+            if (!(weight >= 0)) throw new IllegalArgumentException(key + ": negative weight for " + parts[0]);
+            weights.merge(PowerUpType.valueOf(parts[0]), weight, Double::sum);
+        }
+        weights.values().removeIf(weight -> weight == 0);
+        if (weights.isEmpty()) throw new IllegalArgumentException(key + ": no types with a weight");
+        return new Alias(weights);
+    }
+
+    /** Draws the type of the next food for a game at {@code score}. */
+    public PowerUpType pick(Difficulty difficulty, int score, GameRandom random) {
+        int[] starts = bandStarts[difficulty.ordinal()];
+        int band = Arrays.binarySearch(starts, score);
+        if (band < 0) band = Math.max(0, -band - 2);
+        return bands[difficulty.ordinal()][band].draw(random);
+    }
+
+    /** Chance of each type in the band covering {@code score}; for display and checks. */
+    public Map<PowerUpType, Double> getChances(Difficulty difficulty, int score) {
+        int[] starts = bandStarts[difficulty.ordinal()];
+        int band = Arrays.binarySearch(starts, score);
+        if (band < 0) band = Math.max(0, -band - 2);
+        return bands[difficulty.ordinal()][band].chances();
+    }
+
+    /**
+     * Walker's alias method (in Vose's form): column {@code i} is chosen
+     * uniformly, then yields its own type with probability
+     * {@code probability[i]} and its alias otherwise.
+     */
+    private static final class Alias {
+        private final PowerUpType[] primary;
+        private final PowerUpType[] alias;
+        private final double[] probability;
+
+        Alias(Map<PowerUpType, Double> weights) {
+            int n = weights.size();
+            primary = weights.keySet().toArray(new PowerUpType[0]);
+            alias = primary.clone();
+            probability = new double[n];
+            double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+
+            double[] scaled = new double[n];
+            List<Integer> small = new ArrayList<>();
+            List<Integer> large = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights.get(primary[i]) * n / total;
+                (scaled[i] < 1 ? small : large).add(i);
+            }
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.remove(small.size() - 1);
+                int more = large.get(large.size() - 1);
+                probability[less] = scaled[less];
+                alias[less] = primary[more];
+                scaled[more] -= 1 - scaled[less];
+                if (scaled[more] < 1) {
+                    large.remove(large.size() - 1);
+                    small.add(more);
+                }
+            }
+            // Whatever is left is 1 up to rounding
+            for (int i : large) probability[i] = 1;
+            for (int i : small) probability[i] = 1;
+        }
+
+        PowerUpType draw(GameRandom random) {
+            double u = random.nextDouble() * probability.length;
+            int column = (int) u;
+            return u - column < probability[column] ? primary[column] : alias[column];
+        }
+
+        Map<PowerUpType, Double> chances() {
+            Map<PowerUpType, Double> chances = new EnumMap<>(PowerUpType.class);
+            double share = 1.0 / probability.length;
+            for (int i = 0; i < probability.length; i++) {
+                chances.merge(primary[i], share * probability[i], Double::sum);
+                chances.merge(alias[i], share * (1 - probability[i]), Double::sum);
+            }
+            chances.values().removeIf(chance -> chance == 0);
+            return chances;
+        }
+    }
+}
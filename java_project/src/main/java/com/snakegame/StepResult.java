@@ -0,0 +1,12 @@
+package com.snakegame;
+
+/**
+ * Outcome of advancing the game by a single tick.
+ */
+public enum StepResult {
+    MOVED,
+    ATE,
+    DIED,
+    /** The snake ate the last food the board had room for. */
+    WON
+}
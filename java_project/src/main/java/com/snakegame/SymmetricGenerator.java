@@ -0,0 +1,32 @@
+package com.snakegame;
+
+/**
+ * Draws another generator into the top-left quarter of the tile and mirrors
+ * it across both axes, so every quarter of the arena is the same. On boards
+ * large enough to be split into several tiles each tile is mirrored on its
+ * own.
+ */
+public class SymmetricGenerator implements LevelGenerator {
+    private final LevelGenerator inner;
+
+    public SymmetricGenerator(LevelGenerator inner) {
+        this.inner = inner;
+    }
+
+    @Override
+    public void generate(LevelGrid grid, GameRandom random) {
+        int w = grid.getWidth();
+        int h = grid.getHeight();
+        int halfW = (w + 1) / 2;
+        int halfH = (h + 1) / 2;
+        inner.generate(grid.sub(0, 0, halfW, halfH), random);
+        for (int y = 0; y < halfH; y++) {
+            for (int x = 0; x < halfW; x++) {
+                if (!grid.isWall(x, y)) continue;
+                grid.setWall(w - 1 - x, y);
+                grid.setWall(x, h - 1 - y);
+                grid.setWall(w - 1 - x, h - 1 - y);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.snakegame;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event for one game tick; its duration is the whole tick including the controller. */
+@Name("com.snakegame.Tick")
+@Label("Game Tick")
+@Category("Snake")
+@Description("One simulation tick of the game loop")
+public class TickEvent extends Event {
+    @Label("Tick")
+    long tick;
+
+    @Label("Move")
+    @Timespan(Timespan.NANOSECONDS)
+    long moveNanos;
+
+    @Label("Collision")
+    @Timespan(Timespan.NANOSECONDS)
+    long collisionNanos;
+
+    @Label("Eat")
+    @Timespan(Timespan.NANOSECONDS)
+    long eatNanos;
+
+    @Label("Spawn")
+    @Timespan(Timespan.NANOSECONDS)
+    long spawnNanos;
+
+    @Label("Drift")
+    @Description("How late the tick started against the difficulty's delay")
+    @Timespan(Timespan.NANOSECONDS)
+    long driftNanos;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -0,0 +1,48 @@
+package com.snakegame;
+
+import java.util.Arrays;
+
+/**
+ * Times the phases of one {@link GameEngine#step(Direction)}. The engine
+ * only takes timestamps while a profile is attached, so headless batches pay
+ * nothing for it.
+ */
+public class TickProfile {
+    public enum Phase {
+        MOVE("move"),
+        COLLISION("hit"),
+        EAT("eat"),
+        SPAWN("spawn");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /** Short name for compact displays. */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long mark;
+
+    /** Clears the previous tick's times and starts the clock. */
+    void begin() {
+        Arrays.fill(nanos, 0);
+        mark = System.nanoTime();
+    }
+
+    /** Charges the time since the last lap to {@code phase}. */
+    void lap(Phase phase) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - mark;
+        mark = now;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+}
@@ -0,0 +1,494 @@
+package com.snakegame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * Plays bot {@link Controller}s against each other on the same boards.
+ * <p>
+ * Every entrant plays every board once: a board is a game seed, so each
+ * entrant faces the same level and starting food on it. A match between two
+ * entrants compares their games board by board, and whoever wins more boards
+ * wins the match. Matches therefore cost no extra games, and a round-robin
+ * or {@link Format#SWISS Swiss} tournament only decides which pairs are
+ * compared. The games run in parallel on a fixed pool of threads.
+ * <p>
+ * Bots are untrusted. Each move is handed a fork of the game, so a bot cannot
+ * change the real one, and is timed in thread CPU time. A move over budget,
+ * or one that throws, forfeits the game. A watchdog forfeits moves that run
+ * too long on the wall clock, including ones that never return; their thread
+ * is interrupted, left behind and replaced.
+ * <p>
+ * The JVM cannot kill a thread, so a bot that ignores the interrupt, such as
+ * one stuck in a loop, keeps its thread, and a core, busy for as long as it
+ * likes. To bound that, an entrant with a thread stuck in a move forfeits
+ * its games without playing them until the thread comes back, and the pool
+ * gives up the replacement thread then. Run bots that cannot be trusted to
+ * stop in a separate process per bot, since only the process can be killed.
+ * <p>
+ * Every finished game also goes into a {@link Leaderboard} under its
+ * entrant's name, the same table the high scores use, so a bot's games can be
+ * ranked against each other's, or against earlier tournaments with
+ * {@link #recordScores}.
+ */
+public class Tournament {
+    /** Wall-clock time a move may take, as a multiple of its CPU budget, before the watchdog steps in. */
+    private static final int WALL_CLOCK_FACTOR = 4;
+    /** Wall-clock allowance for a move however small the budget, to ride out GC pauses. */
+    private static final long MIN_WALL_CLOCK_NANOS = 100_000_000L;
+    private static final ThreadMXBean THREADS = cpuClock();
+
+    public enum Format {
+        ROUND_ROBIN,
+        /** Each round pairs entrants with equal or close points who have not met yet. */
+        SWISS
+    }
+
+    /** Why an entrant lost a game without finishing it. */
+    public enum Forfeit {
+        TIMEOUT,
+        CRASH
+    }
+
+    /** A bot taking part; {@code controllers} makes a fresh controller for each game. */
+    public record Entrant(String name, Supplier<Controller> controllers) {
+    }
+
+    /**
+     * One entrant's game on one board.
+     *
+     * @param forfeit      why the game was forfeited, or {@code null} if it was played out
+     * @param slowestNanos CPU time of the entrant's slowest completed move
+     */
+    public record GameResult(int score, long ticks, Forfeit forfeit, long slowestNanos) {
+    }
+
+    /** A comparison of two entrants' boards; {@code second} is {@code null} for a bye. */
+    public record Match(int round, int first, int second, int firstBoards, int secondBoards) {
+    }
+
+    private final List<Entrant> entrants;
+    private final int width;
+    private final int height;
+    private final Difficulty difficulty;
+    private final boolean wallMode;
+    private final long[] boardSeeds;
+    private final long maxTicks;
+    private final long moveBudgetNanos;
+    private final long wallClockNanos;
+    private final int threads;
+    private final GameResult[][] results;
+    private final Set<Move> moves = ConcurrentHashMap.newKeySet();
+    /** Moves forfeited by the watchdog whose thread has not come back yet, per entrant. */
+    private final AtomicIntegerArray stuck;
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final List<Match> matches = new ArrayList<>();
+    private int[] halfPoints;
+    private int[] wins;
+    private int[] draws;
+    private int[] losses;
+    private int[] boardsWon;
+
+    /**
+     * @param boards          number of boards every entrant plays, seeded from {@code seed}
+     * @param moveBudgetNanos CPU time each move may take
+     */
+    public Tournament(List<Entrant> entrants, int width, int height, Difficulty difficulty,
+                      boolean wallMode, int boards, long seed, long maxTicks, long moveBudgetNanos,
+                      int threads) {
+        this.entrants = List.copyOf(entrants);
+        this.width = width;
+        this.height = height;
+        this.difficulty = difficulty;
+        this.wallMode = wallMode;
+        this.maxTicks = maxTicks;
+        this.moveBudgetNanos = moveBudgetNanos;
+        this.wallClockNanos = Math.max(moveBudgetNanos * WALL_CLOCK_FACTOR, MIN_WALL_CLOCK_NANOS);
+        this.threads = threads;
+        this.boardSeeds = new long[boards];
+        GameRandom random = new GameRandom(seed);
+        for (int i = 0; i < boards; i++) {
+            boardSeeds[i] = random.nextLong();
+        }
+        this.results = new GameResult[this.entrants.size()][boards];
+        this.stuck = new AtomicIntegerArray(this.entrants.size());
+        resetStandings();
+    }
+
+    /**
+     * Plays every entrant on every board, blocking until all games are over.
+     *
+     * @throws CompletionException if a game could not be set up, which is no bot's fault
+     */
+    public void play() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "tournament-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Thread watchdog = new Thread(() -> watch(pool), "tournament-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+
+        // Board by board, so an entrant's games are spread over the run and a
+        // stuck move only forfeits those that start before its thread is back
+        List<CompletableFuture<Void>> games = new ArrayList<>();
+        for (int b = 0; b < boardSeeds.length; b++) {
+            for (int e = 0; e < entrants.size(); e++) {
+                int entrant = e;
+                int board = b;
+                CompletableFuture<GameResult> game = new CompletableFuture<>();
+                games.add(game.thenAccept(result -> results[entrant][board] = result));
+                pool.execute(() -> play(pool, entrant, boardSeeds[board], game));
+            }
+        }
+        try {
+            CompletableFuture.allOf(games.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            watchdog.interrupt();
+            pool.shutdownNow();
+        }
+        long now = System.currentTimeMillis();
+        for (int e = 0; e < entrants.size(); e++) {
+            for (GameResult result : results[e]) {
+                if (result.forfeit() != null) continue;
+                leaderboard.add(new HighScoreManager.ScoreEntry(entrants.get(e).name(), result.score(),
+                        difficulty, wallMode, now));
+            }
+        }
+    }
+
+    private void play(ThreadPoolExecutor pool, int entrant, long seed, CompletableFuture<GameResult> game) {
+        GameEngine engine;
+        try {
+            engine = new GameEngine(width, height, difficulty, wallMode, seed);
+        } catch (Throwable e) {
+            game.completeExceptionally(e);
+            return;
+        }
+        if (stuck.get(entrant) > 0) {
+            game.complete(forfeit(engine, Forfeit.TIMEOUT));
+            return;
+        }
+        Move move = new Move(Thread.currentThread(), entrant, engine, game);
+        moves.add(move);
+        try {
+            Controller controller = entrants.get(entrant).controllers().get();
+            long slowest = 0;
+            while (!engine.isOver() && engine.getTick() < maxTicks) {
+                GameEngine view = engine.fork();
+                long cpu = cpuTime();
+                move.startedAt = System.nanoTime();
+                Direction input = controller.decide(view);
+                long wall = System.nanoTime() - move.startedAt;
+                move.startedAt = 0;
+                long used = cpuTime() - cpu;
+                Thread.interrupted();
+                if (game.isDone()) return;
+                if (used > moveBudgetNanos || wall > wallClockNanos) {
+                    game.complete(forfeit(engine, Forfeit.TIMEOUT));
+                    return;
+                }
+                slowest = Math.max(slowest, used);
+                engine.step(input);
+            }
+            game.complete(new GameResult(engine.getScore(), engine.getTick(), null, slowest));
+        } catch (Throwable e) {
+            // Whatever a bot throws, including errors, only loses it the game
+            game.complete(forfeit(engine, Forfeit.CRASH));
+        } finally {
+            moves.remove(move);
+            comeBack(pool, move);
+        }
+    }
+
+    /** Undoes {@link #watch}'s bookkeeping for {@code move} if it had given the move's thread up. */
+    private void comeBack(ThreadPoolExecutor pool, Move move) {
+        synchronized (move) {
+            if (!move.abandoned) return;
+            move.abandoned = false;
+            stuck.decrementAndGet(move.entrant);
+            resize(pool, -1);
+        }
+    }
+
+    /** Adds {@code delta} threads to the pool; the core size may never exceed the maximum. */
+    private static void resize(ThreadPoolExecutor pool, int delta) {
+        synchronized (pool) {
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private static GameResult forfeit(GameEngine engine, Forfeit reason) {
+        return new GameResult(engine.getScore(), engine.getTick(), reason, 0);
+    }
+
+    /**
+     * Forfeits moves over the wall-clock limit and adds a thread to the pool
+     * for each one left stuck, until {@link #comeBack} takes it away again.
+     */
+    private void watch(ThreadPoolExecutor pool) {
+        long interval = Math.max(1, wallClockNanos / 4_000_000);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (Move move : moves) {
+                long started = move.startedAt;
+                if (started == 0 || now - started <= wallClockNanos) continue;
+                synchronized (move) {
+                    // Losing the race to a move that has just ended leaves nothing to undo
+                    if (!move.game.complete(forfeit(move.engine, Forfeit.TIMEOUT))) continue;
+                    move.abandoned = true;
+                    stuck.incrementAndGet(move.entrant);
+                    resize(pool, 1);
+                }
+                moves.remove(move);
+                move.thread.interrupt();
+            }
+        }
+    }
+
+    /** Compares every pair of entrants once. */
+    public void roundRobin() {
+        resetStandings();
+        for (int a = 0; a < entrants.size(); a++) {
+            for (int b = a + 1; b < entrants.size(); b++) {
+                compare(1, a, b);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code rounds} Swiss rounds. Each round, entrants are ranked and
+     * paired from the top, each with the next entrant it has not met yet if
+     * there is one. With an odd number, the lowest ranked entrant that has
+     * not had a bye sits out and scores a win.
+     */
+    public void swiss(int rounds) {
+        resetStandings();
+        int count = entrants.size();
+        boolean[][] met = new boolean[count][count];
+        boolean[] hadBye = new boolean[count];
+        for (int round = 1; round <= rounds; round++) {
+            List<Integer> order = getRanking();
+            if (count % 2 == 1) {
+                for (int i = order.size() - 1; i >= 0; i--) {
+                    int entrant = order.get(i);
+                    if (hadBye[entrant]) continue;
+                    hadBye[entrant] = true;
+                    halfPoints[entrant] += 2;
+                    wins[entrant]++;
+                    matches.add(new Match(round, entrant, -1, 0, 0));
+                    order.remove(i);
+                    break;
+                }
+            }
+            while (order.size() > 1) {
+                int first = order.remove(0);
+                int pick = 0;
+                for (int i = 0; i < order.size(); i++) {
+                    if (!met[first][order.get(i)]) {
+                        pick = i;
+                        break;
+                    }
+                }
+                int second = order.remove(pick);
+                met[first][second] = true;
+                met[second][first] = true;
+                compare(round, first, second);
+            }
+        }
+    }
+
+    private void resetStandings() {
+        int count = entrants.size();
+        halfPoints = new int[count];
+        wins = new int[count];
+        draws = new int[count];
+        losses = new int[count];
+        boardsWon = new int[count];
+        matches.clear();
+    }
+
+    private void compare(int round, int a, int b) {
+        int aBoards = 0;
+        int bBoards = 0;
+        for (int board = 0; board < boardSeeds.length; board++) {
+            int winner = Integer.compare(boardScore(results[a][board]), boardScore(results[b][board]));
+            if (winner > 0) aBoards++;
+            else if (winner < 0) bBoards++;
+        }
+        boardsWon[a] += aBoards;
+        boardsWon[b] += bBoards;
+        if (aBoards > bBoards) {
+            halfPoints[a] += 2;
+            wins[a]++;
+            losses[b]++;
+        } else if (bBoards > aBoards) {
+            halfPoints[b] += 2;
+            wins[b]++;
+            losses[a]++;
+        } else {
+            halfPoints[a]++;
+            halfPoints[b]++;
+            draws[a]++;
+            draws[b]++;
+        }
+        matches.add(new Match(round, a, b, aBoards, bBoards));
+    }
+
+    /** A forfeit ranks below any finished game. */
+    private static int boardScore(GameResult result) {
+        return result.forfeit() != null ? -1 : result.score();
+    }
+
+    /** Entrant indices from first to last: by points, then boards won, then total score. */
+    public List<Integer> getRanking() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < entrants.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer>comparingInt(i -> -halfPoints[i])
+                .thenComparingInt(i -> -boardsWon[i])
+                .thenComparingLong(i -> -getTotalScore(i))
+                .thenComparingInt(i -> i));
+        return order;
+    }
+
+    /** Adds every finished game to {@code scores} under its entrant's name, to rank them across tournaments. */
+    public void recordScores(HighScoreManager scores) {
+        for (int e = 0; e < entrants.size(); e++) {
+            for (GameResult result : results[e]) {
+                if (result.forfeit() == null) {
+                    scores.addScore(entrants.get(e).name(), result.score(), difficulty, wallMode);
+                }
+            }
+        }
+    }
+
+    /** Every finished game of this tournament, ranked as high scores are. */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /** Best score of the entrant's finished games, or 0 if it finished none. */
+    public int getBestScore(int entrant) {
+        int best = 0;
+        for (GameResult result : results[entrant]) {
+            if (result.forfeit() == null) best = Math.max(best, result.score());
+        }
+        return best;
+    }
+
+    public long getTotalScore(int entrant) {
+        long total = 0;
+        for (GameResult result : results[entrant]) {
+            if (result.forfeit() == null) total += result.score();
+        }
+        return total;
+    }
+
+    public int getForfeits(int entrant) {
+        int forfeits = 0;
+        for (GameResult result : results[entrant]) {
+            if (result.forfeit() != null) forfeits++;
+        }
+        return forfeits;
+    }
+
+    /** CPU time of the entrant's slowest move that stayed within budget. */
+    public long getSlowestMoveNanos(int entrant) {
+        long slowest = 0;
+        for (GameResult result : results[entrant]) {
+            slowest = Math.max(slowest, result.slowestNanos());
+        }
+        return slowest;
+    }
+
+    public GameResult getResult(int entrant, int board) {
+        return results[entrant][board];
+    }
+
+    /** Points won so far, a win counting one and a draw a half. */
+    public double getPoints(int entrant) {
+        return halfPoints[entrant] / 2.0;
+    }
+
+    public int getWins(int entrant) {
+        return wins[entrant];
+    }
+
+    public int getDraws(int entrant) {
+        return draws[entrant];
+    }
+
+    public int getLosses(int entrant) {
+        return losses[entrant];
+    }
+
+    public int getBoardsWon(int entrant) {
+        return boardsWon[entrant];
+    }
+
+    public List<Match> getMatches() {
+        return Collections.unmodifiableList(matches);
+    }
+
+    public List<Entrant> getEntrants() {
+        return entrants;
+    }
+
+    public int getBoardCount() {
+        return boardSeeds.length;
+    }
+
+    private static long cpuTime() {
+        return THREADS == null ? System.nanoTime() : THREADS.getCurrentThreadCpuTime();
+    }
+
+    /** The JVM's per-thread CPU clock, or {@code null} if it has none and wall time must do. */
+    private static ThreadMXBean cpuClock() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isCurrentThreadCpuTimeSupported()) return null;
+        threads.setThreadCpuTimeEnabled(true);
+        return threads;
+    }
+
+    /**
+     * A game in progress; {@code startedAt} is when the current move began, or
+     * 0 between moves. {@code abandoned} is set, under the move's lock, when the
+     * watchdog forfeits the game and gives up its thread.
+     */
+    private static final class Move {
+        final Thread thread;
+        final int entrant;
+        final GameEngine engine;
+        final CompletableFuture<GameResult> game;
+        volatile long startedAt;
+        boolean abandoned;
+
+        Move(Thread thread, int entrant, GameEngine engine, CompletableFuture<GameResult> game) {
+            this.thread = thread;
+            this.entrant = entrant;
+            this.engine = engine;
+            this.game = game;
+        }
+    }
+}
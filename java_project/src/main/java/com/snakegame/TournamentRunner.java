@@ -0,0 +1,148 @@
+package com.snakegame;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a {@link Tournament} between bots loaded from jars by {@link BotLoader}
+ * and the built-in controllers, and prints the standings.
+ * <p>
+ * Usage: {@code --tournament [--bots PATH[,PATH]] [--builtin greedy,autopilot]
+ * [--format round-robin|swiss] [--rounds N] [--boards N] [--difficulty NAME] [--walls on|off]
+ * [--width N] [--height N] [--move-ms N] [--max-ticks N] [--seed N] [--threads N] [--scores DIR]}
+ * <p>
+ * Each bot's best game is ranked in a {@link Leaderboard} of every finished
+ * game. With {@code --scores}, the games are also added to the high score
+ * table in that directory under the bot's name, and ranked against
+ * everything in it, earlier tournaments included.
+ */
+public class TournamentRunner {
+    private static final int TOP_SCORES = 5;
+
+    private final List<Path> botPaths = new ArrayList<>();
+    private final List<String> builtins = new ArrayList<>();
+    private Tournament.Format format = Tournament.Format.ROUND_ROBIN;
+    private int rounds;
+    private int boards = 20;
+    private Difficulty difficulty = Difficulty.MEDIUM;
+    private boolean wallMode = true;
+    private int width = GameEngine.DEFAULT_WIDTH;
+    private int height = GameEngine.DEFAULT_HEIGHT;
+    private long moveMs = 10;
+    private long maxTicks = 10_000;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path scores;
+    private List<Tournament.Entrant> entrants;
+
+    public static void main(String[] args) {
+        TournamentRunner runner = new TournamentRunner();
+        try {
+            runner.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        runner.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--tournament")) continue;
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--bots" -> {
+                    for (String path : value.split(",")) {
+                        botPaths.add(Path.of(path));
+                    }
+                }
+                case "--builtin" -> builtins.addAll(List.of(value.split(",")));
+                case "--format" -> format = switch (value) {
+                    case "round-robin" -> Tournament.Format.ROUND_ROBIN;
+                    case "swiss" -> Tournament.Format.SWISS;
+                    default -> throw new IllegalArgumentException("--format must be round-robin or swiss");
+                };
+                case "--rounds" -> rounds = Integer.parseInt(value);
+                case "--boards" -> boards = Integer.parseInt(value);
+                case "--difficulty" -> difficulty = Difficulty.valueOf(value.toUpperCase());
+                case "--walls" -> wallMode = switch (value) {
+                    case "on" -> true;
+                    case "off" -> false;
+                    default -> throw new IllegalArgumentException("--walls must be on or off");
+                };
+                case "--width" -> width = Integer.parseInt(value);
+                case "--height" -> height = Integer.parseInt(value);
+                case "--move-ms" -> moveMs = Long.parseLong(value);
+                case "--max-ticks" -> maxTicks = Long.parseLong(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--scores" -> scores = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        entrants = new ArrayList<>(BotLoader.load(botPaths));
+        for (String name : builtins) {
+            entrants.add(new Tournament.Entrant(name, BatchRunner.controllerFactory(name)));
+        }
+        if (entrants.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two bots; add --bots or --builtin");
+        }
+        if (boards < 1) throw new IllegalArgumentException("--boards must be at least 1");
+        if (rounds <= 0) {
+            // Enough Swiss rounds to separate a single winner
+            rounds = 32 - Integer.numberOfLeadingZeros(entrants.size() - 1);
+        }
+    }
+
+    private void run() {
+        System.out.printf("Tournament: %d bots, %s, %d boards each, %dx%d %s / %s, %d ms per move, %d threads%n",
+                entrants.size(), format == Tournament.Format.SWISS ? rounds + " Swiss rounds" : "round robin",
+                boards, width, height, difficulty.getDisplayName(), wallMode ? "walls" : "wrap", moveMs, threads);
+        Tournament tournament = new Tournament(entrants, width, height, difficulty, wallMode, boards, seed,
+                maxTicks, moveMs * 1_000_000L, threads);
+        long start = System.nanoTime();
+        tournament.play();
+        System.out.printf("%,d games in %,.1f s%n", (long) entrants.size() * boards,
+                (System.nanoTime() - start) / 1e9);
+        if (format == Tournament.Format.SWISS) {
+            tournament.swiss(rounds);
+        } else {
+            tournament.roundRobin();
+        }
+        Leaderboard rankings = tournament.getLeaderboard();
+        if (scores != null) {
+            try (HighScoreManager manager = new HighScoreManager(scores)) {
+                tournament.recordScores(manager);
+                rankings = manager.getLeaderboard();
+            }
+        }
+        printStandings(tournament, rankings);
+        System.out.printf("Best games%s:%n", scores != null ? " in " + scores : "");
+        int rank = 1;
+        for (HighScoreManager.ScoreEntry entry : rankings.top(difficulty, wallMode, TOP_SCORES)) {
+            System.out.printf("  %d. %-30s %,d%n", rank++, entry.playerName(), entry.score());
+        }
+    }
+
+    private void printStandings(Tournament tournament, Leaderboard rankings) {
+        System.out.printf("  %3s  %-30s %6s %4s %4s %4s %7s %11s %9s %10s  %s%n", "#", "bot", "points", "W", "D",
+                "L", "boards", "mean score", "forfeits", "worst move", "best game");
+        int rank = 1;
+        for (int entrant : tournament.getRanking()) {
+            int best = tournament.getBestScore(entrant);
+            String bestGame = tournament.getForfeits(entrant) == boards ? "-"
+                    : String.format("%,d  #%,d (top %.0f%%)", best, rankings.rank(difficulty, wallMode, best),
+                    Math.ceil(rankings.topPercent(difficulty, wallMode, best)));
+            System.out.printf("  %3d  %-30s %6.1f %4d %4d %4d %7d %11.1f %9d %7.2f ms  %s%n", rank++,
+                    tournament.getEntrants().get(entrant).name(), tournament.getPoints(entrant),
+                    tournament.getWins(entrant), tournament.getDraws(entrant), tournament.getLosses(entrant),
+                    tournament.getBoardsWon(entrant), (double) tournament.getTotalScore(entrant) / boards,
+                    tournament.getForfeits(entrant), tournament.getSlowestMoveNanos(entrant) / 1e6, bestGame);
+        }
+    }
+}
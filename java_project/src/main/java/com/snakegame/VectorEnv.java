@@ -0,0 +1,354 @@
+package com.snakegame;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps many independent games at once for training agents, with the same
+ * rules as the window through {@link GameEngine}.
+ * <p>
+ * Observations are written into a caller-provided {@link FloatBuffer},
+ * normally a view of a direct {@link ByteBuffer} from
+ * {@link #allocateObservations} that the trainer reads without copying. Each
+ * game owns {@link #observationSize} floats: planes of {@code width * height}
+ * cells for {@link #HEAD}, {@link #BODY} and {@link #WALL}, then one per
+ * {@link PowerUpType} in declaration order ({@link #foodPlane}), where a cell
+ * is 1 if the plane applies to it and 0 otherwise. The ticks left on each
+ * {@link EffectType} follow the planes. A step only rewrites the few cells
+ * it changed, so the cost of a step does not grow with the board.
+ * <p>
+ * A game that ends is reset at once with the next seed from its own stream,
+ * and its observation shows the new game. Stepping does not allocate beyond
+ * what the engine does when food is eaten or a game is reset.
+ * <p>
+ * Large batches are split into one slice per thread. The calling thread
+ * steps the first slice and daemon workers, started once by the constructor,
+ * step the rest, so a step hands work over and waits for it without
+ * allocating. {@link #close} stops the workers. Games never share state, so
+ * results do not depend on the number of threads.
+ */
+public class VectorEnv implements Closeable {
+    public static final int HEAD = 0;
+    /** Segments other than the head. */
+    public static final int BODY = 1;
+    public static final int WALL = 2;
+    /** Action that keeps the snake going straight; 0-3 turn it in {@link Direction} order. */
+    public static final int STRAIGHT = -1;
+
+    private static final int FIRST_FOOD = 3;
+    private static final int PLANES = FIRST_FOOD + PowerUpType.values().length;
+    private static final EffectType[] EFFECTS = EffectType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    /** Fewest games worth handing to another thread. */
+    private static final int SHARD = 64;
+    /** Spins before a waiting thread parks, long enough to cover a slice of small games. */
+    private static final int SPINS = 1 << 12;
+
+    private final int envCount;
+    private final int cellCount;
+    private final int stride;
+    private final FloatBuffer observations;
+    private final GameEngine[] games;
+    private final GameRandom[] seeds;
+    private final int[] scores;
+    private final int[] lengths;
+    private final int[] episodeScores;
+    private final long[] episodeTicks;
+    private final boolean[] truncated;
+    private final Thread[] workers;
+    /** Workers still stepping their slice of the current step. */
+    private final AtomicInteger running = new AtomicInteger();
+    /** Bumped to start a step; its write publishes the step's arrays to the workers. */
+    private volatile int generation;
+    private volatile boolean closed;
+    private volatile Thread caller;
+    private volatile Throwable failure;
+    private long maxTicks;
+    private float deathReward = -1;
+
+    private int[] actions;
+    private float[] rewards;
+    private boolean[] dones;
+
+    /** Steps on up to one thread per processor. */
+    public VectorEnv(int envCount, int width, int height, Difficulty difficulty, boolean wallMode,
+                     long seed, FloatBuffer observations) {
+        this(envCount, width, height, difficulty, wallMode, seed, observations,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param observations buffer of at least {@code envCount * observationSize(width, height)}
+     *                     floats, written from index 0
+     * @param threads      most threads to step on, the caller's included; fewer
+     *                     are used if there are not {@value #SHARD} games for each
+     * @throws IllegalArgumentException if the buffer is too small
+     */
+    public VectorEnv(int envCount, int width, int height, Difficulty difficulty, boolean wallMode,
+                     long seed, FloatBuffer observations, int threads) {
+        this.envCount = envCount;
+        this.cellCount = width * height;
+        this.stride = observationSize(width, height);
+        if (observations.capacity() < (long) envCount * stride) {
+            throw new IllegalArgumentException("Observation buffer holds " + observations.capacity()
+                    + " floats; " + envCount + " games need " + (long) envCount * stride);
+        }
+        this.observations = observations;
+        this.games = new GameEngine[envCount];
+        this.seeds = new GameRandom[envCount];
+        this.scores = new int[envCount];
+        this.lengths = new int[envCount];
+        this.episodeScores = new int[envCount];
+        this.episodeTicks = new long[envCount];
+        this.truncated = new boolean[envCount];
+        GameRandom root = new GameRandom(seed);
+        for (int i = 0; i < envCount; i++) {
+            seeds[i] = root.split();
+            games[i] = new GameEngine(width, height, difficulty, wallMode, seeds[i].nextLong());
+            begin(i);
+        }
+        this.workers = new Thread[Math.max(1, Math.min(threads, envCount / SHARD)) - 1];
+        for (int i = 0; i < workers.length; i++) {
+            int slice = i + 1;
+            workers[i] = new Thread(() -> work(slice), "vector-env-" + slice);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /** The plane marking food of {@code type}. */
+    public static int foodPlane(PowerUpType type) {
+        return FIRST_FOOD + type.ordinal();
+    }
+
+    /** Floats each game takes in the observation buffer. */
+    public static int observationSize(int width, int height) {
+        return PLANES * width * height + EFFECTS.length;
+    }
+
+    /** A direct, native-order buffer big enough for {@code envCount} games. */
+    public static FloatBuffer allocateObservations(int envCount, int width, int height) {
+        return ByteBuffer.allocateDirect(envCount * observationSize(width, height) * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+    /**
+     * Advances every game by one tick.
+     *
+     * @param actions one per game: {@link #STRAIGHT} or a {@link Direction} ordinal
+     * @param rewards receives the points each game scored, or the death reward
+     *                for a game that died
+     * @param dones   receives whether each game ended and was reset
+     * @throws IllegalStateException if the environment is closed
+     */
+    public void step(int[] actions, float[] rewards, boolean[] dones) {
+        if (closed) throw new IllegalStateException("VectorEnv is closed");
+        this.actions = actions;
+        this.rewards = rewards;
+        this.dones = dones;
+        try {
+            if (workers.length == 0) {
+                stepSlice(0);
+            } else {
+                caller = Thread.currentThread();
+                running.set(workers.length);
+                generation++;
+                for (Thread worker : workers) {
+                    LockSupport.unpark(worker);
+                }
+                try {
+                    stepSlice(0);
+                } catch (Throwable e) {
+                    // Wait for the workers all the same, so no slice outlives the step
+                    failure = e;
+                }
+                for (int spins = 0; running.get() > 0; ) {
+                    if (spins < SPINS) {
+                        spins++;
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+                rethrowFailure();
+            }
+        } finally {
+            this.actions = null;
+            this.rewards = null;
+            this.dones = null;
+        }
+    }
+
+    /** Runs on worker {@code slice}: waits for each step, steps its slice and reports back. */
+    private void work(int slice) {
+        int seen = 0;
+        while (true) {
+            for (int spins = 0; generation == seen && !closed; ) {
+                if (spins < SPINS) {
+                    spins++;
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            if (closed) return;
+            seen = generation;
+            try {
+                stepSlice(slice);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                if (running.decrementAndGet() == 0) LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable e = failure;
+        if (e == null) return;
+        failure = null;
+        if (e instanceof RuntimeException runtime) throw runtime;
+        if (e instanceof Error error) throw error;
+        throw new IllegalStateException(e);
+    }
+
+    private void stepSlice(int slice) {
+        int slices = workers.length + 1;
+        int to = (int) ((long) (slice + 1) * envCount / slices);
+        for (int i = (int) ((long) slice * envCount / slices); i < to; i++) {
+            stepOne(i);
+        }
+    }
+
+    private void stepOne(int env) {
+        GameEngine game = games[env];
+        Snake snake = game.getSnake();
+        int oldHead = snake.getHeadCell();
+        int oldFood = game.getFoodCell();
+        int action = actions[env];
+        StepResult result = game.step(action >= 0 && action < DIRECTIONS.length ? DIRECTIONS[action] : null);
+
+        truncated[env] = false;
+        if (result == StepResult.DIED || result == StepResult.WON
+                || (maxTicks > 0 && game.getTick() >= maxTicks)) {
+            rewards[env] = result == StepResult.DIED ? deathReward : game.getScore() - scores[env];
+            dones[env] = true;
+            truncated[env] = !game.isOver();
+            episodeScores[env] = game.getScore();
+            episodeTicks[env] = game.getTick();
+            game.reset(seeds[env].nextLong());
+            begin(env);
+            return;
+        }
+        rewards[env] = game.getScore() - scores[env];
+        dones[env] = false;
+        scores[env] = game.getScore();
+
+        int base = env * stride;
+        int vacated = game.getLastVacatedCell();
+        // A move grows the snake by one unless the tail moved; any shorter and it shrank too
+        if (snake.getLength() < lengths[env] + (vacated < 0 ? 1 : 0)) {
+            // Shrinking drops tail cells the engine does not report, so redraw the lot
+            writeAll(base, game);
+        } else {
+            writeCell(base, game, oldHead);
+            writeCell(base, game, snake.getHeadCell());
+            if (vacated >= 0) writeCell(base, game, vacated);
+            if (result == StepResult.ATE) {
+                writeCell(base, game, oldFood);
+                writeCell(base, game, game.getFoodCell());
+            }
+        }
+        lengths[env] = snake.getLength();
+        writeEffects(base, game);
+    }
+
+    /** Records the start of a game and draws all of it. */
+    private void begin(int env) {
+        GameEngine game = games[env];
+        scores[env] = game.getScore();
+        lengths[env] = game.getSnake().getLength();
+        writeAll(env * stride, game);
+    }
+
+    private void writeAll(int base, GameEngine game) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            writeCell(base, game, cell);
+        }
+        writeEffects(base, game);
+    }
+
+    private void writeCell(int base, GameEngine game, int cell) {
+        Board board = game.getBoard();
+        boolean head = cell == game.getSnake().getHeadCell();
+        int food = board.hasFood(cell) ? FIRST_FOOD + game.getFood().getType().ordinal() : -1;
+        int at = base + cell;
+        observations.put(at + HEAD * cellCount, head ? 1 : 0);
+        observations.put(at + BODY * cellCount, board.getSnakeCount(cell) > (head ? 1 : 0) ? 1 : 0);
+        observations.put(at + WALL * cellCount, board.hasObstacle(cell) ? 1 : 0);
+        for (int plane = FIRST_FOOD; plane < PLANES; plane++) {
+            observations.put(at + plane * cellCount, plane == food ? 1 : 0);
+        }
+    }
+
+    private void writeEffects(int base, GameEngine game) {
+        EffectScheduler effects = game.getEffects();
+        int at = base + PLANES * cellCount;
+        for (int i = 0; i < EFFECTS.length; i++) {
+            long expiresAt = effects.getExpiresAt(EFFECTS[i]);
+            observations.put(at + i, expiresAt == 0 ? 0 : expiresAt - game.getTick());
+        }
+    }
+
+    /** Ends games after {@code maxTicks} ticks as if they had finished; 0, the default, never does. */
+    public void setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    /** Reward for a step on which the snake dies, -1 unless set. */
+    public void setDeathReward(float deathReward) {
+        this.deathReward = deathReward;
+    }
+
+    /** Whether game {@code env} ended on the last step only because it reached the tick limit. */
+    public boolean isTruncated(int env) {
+        return truncated[env];
+    }
+
+    /** Final score of the last game {@code env} finished. */
+    public int getEpisodeScore(int env) {
+        return episodeScores[env];
+    }
+
+    /** Length in ticks of the last game {@code env} finished. */
+    public long getEpisodeTicks(int env) {
+        return episodeTicks[env];
+    }
+
+    /** The game {@code env} is playing; read only. */
+    public GameEngine getGame(int env) {
+        return games[env];
+    }
+
+    public int getEnvCount() {
+        return envCount;
+    }
+
+    public int getObservationSize() {
+        return stride;
+    }
+
+    /** Stops the worker threads; {@link #step} cannot be called afterwards. */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+}
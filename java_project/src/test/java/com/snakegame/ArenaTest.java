@@ -0,0 +1,159 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArenaTest {
+    private static final int WIDTH = 24;
+    private static final int HEIGHT = 18;
+
+    /** Mostly chases food, sometimes turns at random, and remembers the cell its snake was sent to. */
+    private static final class RandomController implements ArenaController {
+        private final Random random;
+        int target;
+
+        RandomController(long seed) {
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public Direction decide(Arena arena, int id) {
+            int head = arena.getSnake(id).getHeadCell();
+            Direction input = random.nextInt(4) == 0 ? Direction.values()[random.nextInt(4)] : toFood(arena, head);
+            Direction direction = arena.getSnake(id).getDirection();
+            if (input != null && !input.isOpposite(direction)) direction = input;
+            target = arena.neighbour(head, direction);
+            return input;
+        }
+
+        private static Direction toFood(Arena arena, int head) {
+            int food = arena.nearestFood(head);
+            Direction best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for (Direction direction : Direction.values()) {
+                int next = arena.neighbour(head, direction);
+                if (food < 0 || next < 0) continue;
+                int distance = arena.distance(next, food);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = direction;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * The cause each snake in {@code alive} should die of on the tick just
+     * run, from the grid, tails and pending growth as they were before it.
+     */
+    private static DeathCause[] expectedDeaths(int[] alive, RandomController[] controllers, int[] owners,
+                                               int[] tails, int[] growth) {
+        DeathCause[] causes = new DeathCause[controllers.length];
+        for (int id : alive) {
+            int cell = controllers[id].target;
+            if (cell < 0) {
+                causes[id] = DeathCause.WALL;
+                continue;
+            }
+            int occupant = owners[cell];
+            if (occupant == Arena.OBSTACLE) {
+                causes[id] = DeathCause.OBSTACLE;
+            } else if (Arrays.stream(alive).filter(other -> controllers[other].target == cell).count() > 1) {
+                causes[id] = DeathCause.HEAD_ON;
+            } else if (occupant != Arena.EMPTY) {
+                boolean vacating = tails[occupant] == cell && growth[occupant] == 0;
+                if (!vacating) causes[id] = occupant == id ? DeathCause.SELF : DeathCause.RIVAL;
+            }
+        }
+        return causes;
+    }
+
+    private static int[] owners(Arena arena) {
+        int[] owners = new int[WIDTH * HEIGHT];
+        for (int cell = 0; cell < owners.length; cell++) {
+            owners[cell] = arena.getOwner(cell);
+        }
+        return owners;
+    }
+
+    @Test
+    void everyTickFollowsTheCollisionRules() {
+        Set<DeathCause> seen = EnumSet.noneOf(DeathCause.class);
+        for (int seed = 0; seed < 40; seed++) {
+            RandomController[] controllers = new RandomController[12];
+            long base = seed * 100L;
+            Arena arena = new Arena(WIDTH, HEIGHT, Difficulty.EXTREME, seed % 2 == 0, controllers.length,
+                    id -> controllers[id] = new RandomController(base + id), seed);
+
+            while (!arena.isOver()) {
+                int[] owners = owners(arena);
+                int[] before = arena.getAlive();
+                int[] tails = new int[controllers.length];
+                int[] growth = new int[controllers.length];
+                for (int id : before) {
+                    tails[id] = arena.getSnake(id).getTailCell();
+                    growth[id] = arena.getSnake(id).getPendingGrowth();
+                }
+                arena.step();
+                DeathCause[] expected = expectedDeaths(before, controllers, owners, tails, growth);
+                for (int id : before) {
+                    assertEquals(expected[id], arena.getDeathCause(id), "snake " + id + " on tick "
+                            + arena.getTick() + " of seed " + seed);
+                    if (expected[id] != null) seen.add(expected[id]);
+                }
+                assertBodiesOwnTheirCells(arena);
+            }
+        }
+        assertEquals(EnumSet.allOf(DeathCause.class), seen, "some rules never came up");
+    }
+
+    private static void assertBodiesOwnTheirCells(Arena arena) {
+        int owned = 0;
+        for (int id : arena.getAlive()) {
+            Snake snake = arena.getSnake(id);
+            for (int i = 0; i < snake.getLength(); i++) {
+                assertEquals(id, arena.getOwner(snake.getSegment(i)), "snake " + id + " segment " + i);
+            }
+            owned += snake.getLength();
+        }
+        int claimed = 0;
+        for (int cell = 0; cell < WIDTH * HEIGHT; cell++) {
+            if (arena.getOwner(cell) >= 0) claimed++;
+        }
+        assertEquals(owned, claimed, "cells held by dead snakes or claimed twice");
+    }
+
+    @Test
+    void outcomeDoesNotDependOnThreadCount() throws Exception {
+        String single = new ForkJoinPool(1).submit(() -> play(7)).get();
+        String parallel = new ForkJoinPool(4).submit(() -> play(7)).get();
+        assertEquals(single, parallel);
+    }
+
+    private static String play(long seed) {
+        Arena arena = new Arena(60, 40, Difficulty.HARD, false, 40, id -> new RandomController(id), seed);
+        while (!arena.isOver() && arena.getTick() < 2000) {
+            arena.step();
+        }
+        StringBuilder outcome = new StringBuilder().append(arena.getTick());
+        for (int id = 0; id < arena.getSnakeCount(); id++) {
+            outcome.append(' ').append(arena.getScore(id)).append('/').append(arena.getDeathCause(id))
+                    .append('@').append(arena.getDiedAt(id));
+        }
+        return outcome.toString();
+    }
+
+    @Test
+    void tooManySnakesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Arena(5, 2, Difficulty.EASY, true, 20, id -> new RandomController(id), 1));
+    }
+}
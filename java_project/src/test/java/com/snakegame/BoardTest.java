@@ -0,0 +1,144 @@
+package com.snakegame;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BoardTest {
+    private static void fill(Board board, GameRandom random, int leaveFree) {
+        while (board.getFreeCount() > leaveFree) {
+            int cell = random.nextInt(board.getCellCount());
+            if (board.isFree(cell)) board.setObstacle(cell);
+        }
+    }
+
+    @Test
+    void crowdedBoardDrawsEveryFreeCellAndNothingElse() {
+        // Spans several chunks so the draw crosses chunk boundaries
+        Board board = new Board(100, 53);
+        fill(board, new GameRandom(1), 40);
+        Set<Integer> free = new HashSet<>();
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            if (board.isFree(cell)) free.add(cell);
+        }
+
+        Set<Integer> drawn = new HashSet<>();
+        GameRandom random = new GameRandom(2);
+        for (int i = 0; i < 4000; i++) {
+            int cell = board.randomFreeCell(random);
+            assertTrue(free.contains(cell), "drew occupied cell " + cell);
+            drawn.add(cell);
+        }
+        assertEquals(free, drawn);
+    }
+
+    @Test
+    void fullBoardHasNoFreeCell() {
+        Board board = new Board(40, 30);
+        fill(board, new GameRandom(1), 0);
+        assertEquals(-1, board.randomFreeCell(new GameRandom(2)));
+    }
+
+    @Test
+    void equalBoardsDrawEqualCellsWhateverTheirHistory() {
+        for (int leaveFree : new int[]{5000, 50}) {
+            Board board = new Board(120, 90);
+            fill(board, new GameRandom(4), leaveFree);
+            Board fork = board.fork();
+            Board rebuilt = new Board(120, 90);
+            // Same contents, reached in the opposite order and through extra changes
+            for (int cell = rebuilt.getCellCount() - 1; cell >= 0; cell--) {
+                rebuilt.setFood(cell);
+                rebuilt.clearFood(cell);
+                if (board.hasObstacle(cell)) rebuilt.setObstacle(cell);
+            }
+            fork.setFood(7);
+            fork.clearFood(7);
+
+            GameRandom a = new GameRandom(9);
+            GameRandom b = new GameRandom(9);
+            GameRandom c = new GameRandom(9);
+            for (int i = 0; i < 1000; i++) {
+                int cell = board.randomFreeCell(a);
+                assertEquals(cell, fork.randomFreeCell(b));
+                assertEquals(cell, rebuilt.randomFreeCell(c));
+            }
+        }
+    }
+
+    @Test
+    void forksDoNotSeeEachOthersWrites() {
+        Board board = new Board(64, 64);
+        board.setObstacle(5);
+        Board fork = board.fork();
+        fork.setFood(6);
+        board.addSnake(7);
+
+        assertTrue(fork.hasObstacle(5));
+        assertFalse(board.hasFood(6));
+        assertFalse(fork.hasSnake(7));
+        assertEquals(board.getCellCount() - 2, board.getFreeCount());
+        assertEquals(fork.getCellCount() - 2, fork.getFreeCount());
+    }
+
+    @Test
+    void forksOfForksMatchAModelWhateverOrderTheyWriteIn() {
+        Random random = new Random(12);
+        List<Board> boards = new ArrayList<>(List.of(new Board(70, 40)));
+        List<boolean[]> foods = new ArrayList<>();
+        foods.add(new boolean[70 * 40]);
+        for (int op = 0; op < 20_000; op++) {
+            int i = random.nextInt(boards.size());
+            if (random.nextInt(50) == 0 && boards.size() < 12) {
+                boards.add(boards.get(i).fork());
+                foods.add(foods.get(i).clone());
+                continue;
+            }
+            int cell = random.nextInt(70 * 40);
+            if (foods.get(i)[cell]) boards.get(i).clearFood(cell);
+            else boards.get(i).setFood(cell);
+            foods.get(i)[cell] ^= true;
+        }
+        for (int i = 0; i < boards.size(); i++) {
+            int free = 0;
+            for (int cell = 0; cell < 70 * 40; cell++) {
+                assertEquals(foods.get(i)[cell], boards.get(i).hasFood(cell), "board " + i + " cell " + cell);
+                if (!foods.get(i)[cell]) free++;
+            }
+            assertEquals(free, boards.get(i).getFreeCount());
+        }
+    }
+
+    @Test
+    void whicheverBoardWritesSecondWritesInPlace() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "allocation counting unavailable");
+        for (boolean forkFirst : new boolean[]{true, false}) {
+            Board board = new Board(30, 25);
+            Board fork = board.fork();
+            Board first = forkFirst ? fork : board;
+            Board second = forkFirst ? board : fork;
+            first.setFood(3);
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 1000; i++) {
+                second.setFood(4);
+                second.clearFood(4);
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            assertTrue(allocated < 1024, allocated + " bytes, fork wrote first: " + forkFirst);
+            assertFalse(second.hasFood(3));
+            assertTrue(first.hasFood(3));
+        }
+    }
+}
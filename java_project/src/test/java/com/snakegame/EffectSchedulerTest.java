@@ -0,0 +1,180 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffectSchedulerTest {
+    private static final EffectType[] TYPES = EffectType.values();
+
+    @Test
+    void effectEndsOnItsTick() {
+        EffectScheduler effects = new EffectScheduler();
+        assertTrue(effects.start(EffectType.SPEED_BOOST, 10, 5));
+        assertEquals(15, effects.getExpiresAt(EffectType.SPEED_BOOST));
+        for (long tick = 11; tick < 15; tick++) {
+            assertFalse(effects.advance(tick));
+            assertTrue(effects.isActive(EffectType.SPEED_BOOST));
+        }
+        assertTrue(effects.advance(15));
+        assertFalse(effects.isActive(EffectType.SPEED_BOOST));
+        assertEquals(0, effects.getExpiresAt(EffectType.SPEED_BOOST));
+    }
+
+    @Test
+    void refreshRestartsTheTimeAndTheOldTimerIsIgnored() {
+        EffectScheduler effects = new EffectScheduler();
+        effects.start(EffectType.DOUBLE_POINTS, 0, 10);
+        for (long tick = 1; tick <= 5; tick++) {
+            effects.advance(tick);
+        }
+        assertFalse(effects.start(EffectType.DOUBLE_POINTS, 5, 10), "level did not change");
+        for (long tick = 6; tick < 15; tick++) {
+            assertFalse(effects.advance(tick), "tick " + tick);
+            assertTrue(effects.isActive(EffectType.DOUBLE_POINTS));
+        }
+        assertTrue(effects.advance(15));
+        assertFalse(effects.isActive(EffectType.DOUBLE_POINTS));
+    }
+
+    @Test
+    void timersMoreThanALapAheadWaitForTheirTick() {
+        for (long duration : new long[]{63, 64, 65, 128, 1000}) {
+            EffectScheduler effects = new EffectScheduler();
+            effects.start(EffectType.INVINCIBILITY, 0, duration);
+            for (long tick = 1; tick < duration; tick++) {
+                effects.advance(tick);
+                assertTrue(effects.isActive(EffectType.INVINCIBILITY), duration + " ticks, at " + tick);
+            }
+            assertTrue(effects.advance(duration));
+            assertFalse(effects.isActive(EffectType.INVINCIBILITY));
+        }
+    }
+
+    @Test
+    void emptyDurationStartsNothing() {
+        EffectScheduler effects = new EffectScheduler();
+        assertFalse(effects.start(EffectType.SPEED_BOOST, 3, 0));
+        assertFalse(effects.isActive(EffectType.SPEED_BOOST));
+    }
+
+    @Test
+    void rescaleKeepsTheRealTimeLeft() {
+        EffectScheduler effects = new EffectScheduler();
+        effects.start(EffectType.DOUBLE_POINTS, 0, 10);
+        // Leaves a stale timer on tick 10
+        effects.start(EffectType.DOUBLE_POINTS, 5, 100);
+        effects.start(EffectType.INVINCIBILITY, 5, 3);
+        // Ticks get twice as long, so 99 and 2 ticks left become 50 and 1
+        effects.rescale(6, 50, 100);
+        assertEquals(56, effects.getExpiresAt(EffectType.DOUBLE_POINTS));
+        assertEquals(7, effects.getExpiresAt(EffectType.INVINCIBILITY));
+        assertTrue(effects.advance(7));
+        assertFalse(effects.isActive(EffectType.INVINCIBILITY));
+        for (long tick = 8; tick < 56; tick++) {
+            assertFalse(effects.advance(tick), "tick " + tick);
+        }
+        assertTrue(effects.advance(56));
+        assertFalse(effects.isActive(EffectType.DOUBLE_POINTS));
+    }
+
+    @Test
+    void effectsLastTheirNominalTimeWhateverTheSpeedDoesMeanwhile() {
+        int retimed = 0;
+        for (long seed = 1; seed <= 40; seed++) {
+            GameEngine engine = new GameEngine(GameEngine.DEFAULT_WIDTH, GameEngine.DEFAULT_HEIGHT,
+                    Difficulty.EASY, false, seed);
+            Controller bot = new GreedyController();
+            long elapsedMs = 0;
+            long[] startedMs = new long[TYPES.length];
+            boolean[] speedChanged = new boolean[TYPES.length];
+            while (!engine.isOver() && engine.getTick() < 20_000) {
+                int delay = engine.getTickDelayMs();
+                PowerUpType food = engine.getFood().getType();
+                boolean[] active = new boolean[TYPES.length];
+                for (EffectType type : TYPES) {
+                    active[type.ordinal()] = engine.getEffects().isActive(type);
+                }
+                // The tick happens once its delay has passed
+                elapsedMs += delay;
+                StepResult result = engine.step(bot.decide(engine));
+                for (EffectType type : TYPES) {
+                    int t = type.ordinal();
+                    if (result == StepResult.ATE && food.getEffect() == type) {
+                        startedMs[t] = elapsedMs;
+                        speedChanged[t] = false;
+                    } else if (active[t] && !engine.getEffects().isActive(type)) {
+                        long nominal = PowerUpType.valueOf(type.name()).getDurationMs();
+                        long lasted = elapsedMs - startedMs[t];
+                        // Whole ticks only, so it may end up to a tick early or late
+                        assertEquals(nominal, lasted, Difficulty.EASY.getDelayMs(),
+                                type + " in game " + seed + " at tick " + engine.getTick());
+                        if (speedChanged[t]) retimed++;
+                    }
+                    if (engine.getTickDelayMs() != delay) speedChanged[t] = true;
+                }
+            }
+        }
+        assertTrue(retimed > 0, "no effect ran across a speed change");
+    }
+
+    @Test
+    void matchesAnExpiryModelUnderRandomRefreshes() throws IOException {
+        Random random = new Random(8);
+        EffectScheduler effects = new EffectScheduler();
+        long[] expiry = new long[TYPES.length];
+
+        for (long tick = 1; tick <= 20_000; tick++) {
+            boolean changed = false;
+            for (int t = 0; t < TYPES.length; t++) {
+                if (expiry[t] == tick) {
+                    expiry[t] = 0;
+                    changed = true;
+                }
+            }
+            assertEquals(changed, effects.advance(tick), "tick " + tick);
+
+            if (random.nextInt(10) == 0) {
+                int t = random.nextInt(TYPES.length);
+                long duration = 1 + random.nextInt(300);
+                boolean wasActive = expiry[t] != 0;
+                expiry[t] = tick + duration;
+                assertEquals(!wasActive, effects.start(TYPES[t], tick, duration));
+            }
+            for (int t = 0; t < TYPES.length; t++) {
+                assertEquals(expiry[t] != 0, effects.isActive(TYPES[t]));
+                assertEquals(expiry[t], effects.getExpiresAt(TYPES[t]));
+            }
+            if (tick % 5000 == 0) {
+                // A fork and a reloaded copy must carry on exactly like the original
+                assertContinuesLike(effects, effects.fork(), tick);
+                assertContinuesLike(effects, reload(effects), tick);
+            }
+        }
+    }
+
+    private static EffectScheduler reload(EffectScheduler effects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        effects.write(new DataOutputStream(bytes));
+        EffectScheduler loaded = new EffectScheduler();
+        loaded.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        return loaded;
+    }
+
+    private static void assertContinuesLike(EffectScheduler original, EffectScheduler copy, long now) {
+        EffectScheduler reference = original.fork();
+        for (long tick = now + 1; tick <= now + 400; tick++) {
+            assertEquals(reference.advance(tick), copy.advance(tick), "tick " + tick);
+            for (EffectType type : TYPES) {
+                assertEquals(reference.isActive(type), copy.isActive(type));
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServerTest {
+    private static final int ROOMS = 400;
+    private static final int WIDTH = 30;
+    private static final int HEIGHT = 25;
+    private static final long LOAD_MILLIS = 3000;
+
+    private GameServer server;
+    private Thread serverThread;
+    private InetSocketAddress address;
+    private final List<GameClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new GameServer(new InetSocketAddress("127.0.0.1", 0), ROOMS);
+        serverThread = new Thread(server, "game-server");
+        serverThread.start();
+        address = new InetSocketAddress("127.0.0.1", server.getPort());
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        clients.forEach(GameClient::close);
+        server.close();
+        serverThread.join(5000);
+    }
+
+    private static Difficulty difficulty(int room) {
+        return Difficulty.values()[room % Difficulty.values().length];
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (long deadline = System.nanoTime() + 10_000_000_000L; !condition.getAsBoolean(); Thread.sleep(20)) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+        }
+    }
+
+    @Test
+    void fullServerKeepsEveryRoomOnTimeAndInStep() throws Exception {
+        for (int room = 0; room < ROOMS; room++) {
+            clients.add(GameClient.connect(address, difficulty(room), room % 2 == 0, WIDTH, HEIGHT, room + 1,
+                    client -> { }));
+        }
+        waitFor(() -> server.getRoomCount() == ROOMS);
+        assertThrows(IOException.class, () -> GameClient.connect(address, Difficulty.EASY, true, WIDTH, HEIGHT,
+                1, client -> { }), "a room over the limit");
+
+        long start = System.nanoTime();
+        clients.forEach(GameClient::start);
+        Thread.sleep(LOAD_MILLIS);
+        double elapsedMs = (System.nanoTime() - start) / 1e6;
+
+        for (int room = 0; room < ROOMS; room++) {
+            FrameSnapshot mirrored = clients.get(room).getSnapshot();
+            // The rooms only ever go straight, so a local game tells where each should be
+            GameEngine local = new GameEngine(WIDTH, HEIGHT, difficulty(room), room % 2 == 0, room + 1);
+            while (local.getTick() < mirrored.tick() && !local.isOver()) {
+                local.step(null);
+            }
+            FrameSnapshot expected = FrameSnapshot.capture(local, 0);
+            assertArrayEquals(expected.segments(), mirrored.segments(), "room " + room);
+            assertEquals(expected.foodCell(), mirrored.foodCell(), "room " + room);
+            assertEquals(expected.score(), mirrored.score(), "room " + room);
+            assertEquals(expected.over(), mirrored.over(), "room " + room);
+            if (!mirrored.over()) {
+                // Ticks never run slower than the difficulty's delay; allow half for a loaded machine
+                long due = (long) (elapsedMs / difficulty(room).getDelayMs());
+                assertTrue(mirrored.tick() >= due / 2, "room " + room + " at tick " + mirrored.tick()
+                        + " of " + due);
+            }
+        }
+
+        clients.forEach(GameClient::close);
+        waitFor(() -> server.getRoomCount() == 0);
+    }
+
+    @Test
+    void pausedRoomDoesNotTick() throws Exception {
+        GameClient client = GameClient.connect(address, Difficulty.EASY, false, WIDTH, HEIGHT, 7, c -> { });
+        clients.add(client);
+        client.start();
+        waitFor(() -> client.getSnapshot().tick() > 0);
+        client.submit(Direction.UP);
+        waitFor(() -> client.getSnapshot().direction() == Direction.UP);
+
+        client.stop();
+        Thread.sleep(2 * Difficulty.EASY.getDelayMs());
+        long paused = client.getSnapshot().tick();
+        Thread.sleep(3 * Difficulty.EASY.getDelayMs());
+        assertEquals(paused, client.getSnapshot().tick());
+    }
+
+    @Test
+    void clientDropsAsManyTailSegmentsAsTheServerSays() throws Exception {
+        try (ServerSocket fake = new ServerSocket(0, 1, address.getAddress())) {
+            Thread host = new Thread(() -> {
+                try (Socket socket = fake.accept()) {
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    in.readFully(new byte[in.readUnsignedShort()]);
+                    OutputStream out = socket.getOutputStream();
+                    ByteBuffer frames = ByteBuffer.allocate(256);
+                    int start = NetProtocol.beginFrame(frames, NetProtocol.WELCOME);
+                    frames.putInt(1).putShort((short) WIDTH).putShort((short) HEIGHT).put((byte) 0).put((byte) 0);
+                    NetProtocol.putVarint(frames, 0);
+                    // Six segments along row 0, head at x = 5
+                    NetProtocol.putVarint(frames, 6);
+                    for (int x = 5; x >= 0; x--) {
+                        NetProtocol.putVarint(frames, x);
+                    }
+                    frames.put((byte) Direction.RIGHT.ordinal());
+                    NetProtocol.putFood(frames, -1, null);
+                    frames.put((byte) 0);
+                    NetProtocol.putVarint(frames, 100);
+                    NetProtocol.putVarint(frames, 0);
+                    NetProtocol.endFrame(frames, start);
+                    // One move that also shrinks by three, so four segments come off the tail
+                    start = NetProtocol.beginFrame(frames, NetProtocol.DELTA);
+                    frames.put((byte) (Direction.RIGHT.ordinal() | NetProtocol.HEAD | NetProtocol.TAIL
+                            | NetProtocol.OVER));
+                    NetProtocol.putVarint(frames, 4);
+                    frames.put((byte) 0).put((byte) 0);
+                    NetProtocol.endFrame(frames, start);
+                    out.write(frames.array(), 0, frames.position());
+                    // Hold the connection until the client has read everything
+                    in.read();
+                } catch (IOException ignored) {
+                }
+            });
+            host.start();
+
+            CountDownLatch over = new CountDownLatch(1);
+            GameClient client = GameClient.connect(new InetSocketAddress(address.getAddress(), fake.getLocalPort()),
+                    Difficulty.EASY, true, WIDTH, HEIGHT, c -> over.countDown());
+            clients.add(client);
+            client.start();
+            waitFor(() -> over.getCount() == 0);
+            assertArrayEquals(new int[]{6, 5, 4}, client.getSnapshot().segments());
+            assertEquals(0, client.getSnapshot().vacatedCell());
+            host.join(5000);
+        }
+    }
+
+    @Test
+    void oversizedBoardIsRejectedBeforeConnecting() {
+        assertThrows(IllegalArgumentException.class, () -> GameClient.connect(address, Difficulty.EASY, true,
+                NetProtocol.MAX_SIDE + 1, HEIGHT, 1, client -> { }));
+        assertEquals(0, server.getRoomCount());
+    }
+}
@@ -0,0 +1,97 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotTest {
+    private static final int PLAY_TICKS = 1500;
+
+    /** An autopilot whose time budget never runs out, so it decides the same way every run. */
+    private static Controller autopilot() {
+        return new AutopilotController(60_000_000);
+    }
+
+    private static void play(GameEngine engine, Controller controller, int ticks) {
+        for (int i = 0; i < ticks && !engine.isOver(); i++) {
+            engine.step(controller.decide(engine));
+        }
+    }
+
+    private static byte[] state(GameEngine engine) {
+        return engine.snapshot().encode();
+    }
+
+    @Test
+    void forksAndSnapshotsContinueExactlyAsTheOriginal() throws IOException {
+        for (int seed = 1; seed <= 24; seed++) {
+            Difficulty difficulty = Difficulty.values()[seed % Difficulty.values().length];
+            GameEngine original = new GameEngine(30, 25, difficulty, seed % 2 == 0, seed);
+            play(original, autopilot(), 50 + seed * 13);
+
+            GameSnapshot snapshot = original.snapshot();
+            GameEngine fork = original.fork();
+            GameEngine fromSnapshot = snapshot.fork();
+            GameEngine decoded = GameSnapshot.decode(snapshot.encode()).fork();
+            // A fork that wanders off must not disturb the others
+            GameEngine stray = original.fork();
+            for (int i = 0; i < 40 && !stray.isOver(); i++) {
+                stray.step(Direction.values()[i % 4]);
+            }
+
+            play(original, autopilot(), PLAY_TICKS);
+            for (GameEngine copy : new GameEngine[]{fork, fromSnapshot, decoded}) {
+                play(copy, autopilot(), PLAY_TICKS);
+                assertArrayEquals(state(original), state(copy), "seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterSteps() {
+        GameEngine engine = new GameEngine(30, 25, Difficulty.HARD, true, 5);
+        play(engine, new GreedyController(), 30);
+        GameSnapshot snapshot = engine.snapshot();
+        byte[] before = snapshot.encode();
+
+        play(engine, new GreedyController(), 200);
+        assertArrayEquals(before, snapshot.encode());
+        engine.restore(snapshot);
+        assertArrayEquals(before, state(engine));
+    }
+
+    @Test
+    void forkCannotMoveTheOriginalsFood() {
+        GameEngine engine = new GameEngine(30, 25, Difficulty.MEDIUM, true, 8);
+        Point food = engine.getFood().getPosition();
+        engine.fork().getFood().getPosition().translate(3, 1);
+        engine.getFood().getPosition().setLocation(0, 0);
+        assertEquals(food, engine.getFood().getPosition());
+        assertEquals(engine.getFoodCell(), engine.getBoard().cellOf(food.x, food.y));
+    }
+
+    @Test
+    void restoreRejectsOtherSettings() {
+        GameSnapshot snapshot = new GameEngine(30, 25, Difficulty.EASY, true, 1).snapshot();
+        GameEngine other = new GameEngine(30, 25, Difficulty.EASY, false, 1);
+        assertThrows(IllegalArgumentException.class, () -> other.restore(snapshot));
+    }
+
+    @Test
+    void savedSnapshotResumesTheGame(@TempDir Path directory) throws IOException {
+        GameEngine engine = new GameEngine(30, 25, Difficulty.MEDIUM, false, 9);
+        play(engine, autopilot(), 300);
+        Path path = directory.resolve("game.snapshot");
+        engine.snapshot().save(path);
+
+        GameEngine resumed = GameSnapshot.load(path).fork();
+        play(engine, autopilot(), 500);
+        play(resumed, autopilot(), 500);
+        assertArrayEquals(state(engine), state(resumed));
+    }
+}
@@ -0,0 +1,45 @@
+package com.snakegame;
+
+import com.snakegame.HighScoreManager.ScoreEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HighScoreManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void legacyScoresCountWithWallsOnAndSurviveClosing() throws IOException {
+        // Entries from before wall mode was recorded read back with it false
+        List<ScoreEntry> legacy = new ArrayList<>(List.of(
+                new ScoreEntry("old", 40, Difficulty.HARD, false, 1),
+                new ScoreEntry("older", 30, Difficulty.HARD, false, 2)));
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                Files.newOutputStream(directory.resolve("highscores.dat")))) {
+            out.writeObject(legacy);
+        }
+
+        try (HighScoreManager manager = new HighScoreManager(directory)) {
+            assertEquals(List.of("old", "older"), names(manager.getTopScores(Difficulty.HARD, true, 5)));
+            assertTrue(manager.getTopScores(Difficulty.HARD, false, 5).isEmpty());
+            manager.addScore("new", 50, Difficulty.HARD, true);
+        }
+
+        try (HighScoreManager reopened = new HighScoreManager(directory)) {
+            assertEquals(List.of("new", "old", "older"), names(reopened.getTopScores(Difficulty.HARD, true, 5)));
+        }
+    }
+
+    private static List<String> names(List<ScoreEntry> entries) {
+        return entries.stream().map(ScoreEntry::playerName).toList();
+    }
+}
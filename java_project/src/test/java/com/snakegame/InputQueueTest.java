@@ -0,0 +1,80 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputQueueTest {
+    @Test
+    void deliversPressesInOrderWithTheirTimestamps() {
+        InputQueue queue = new InputQueue(4);
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(Direction.UP, 10));
+        assertTrue(queue.offer(Direction.LEFT, 20));
+        assertTrue(queue.offer(Direction.DOWN, 30));
+
+        Direction[] expected = {Direction.UP, Direction.LEFT, Direction.DOWN};
+        for (int i = 0; i < expected.length; i++) {
+            assertFalse(queue.isEmpty());
+            assertEquals(expected[i], queue.peekDirection());
+            assertEquals(10L * (i + 1), queue.peekTimestamp());
+            queue.remove();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void dropsRepeatsOnlyWhileTheFirstIsStillQueued() {
+        InputQueue queue = new InputQueue(4);
+        assertTrue(queue.offer(Direction.UP, 1));
+        assertFalse(queue.offer(Direction.UP, 2));
+        queue.remove();
+        // Once consumed, the same key is a new press
+        assertTrue(queue.offer(Direction.UP, 3));
+        assertEquals(3, queue.peekTimestamp());
+        assertEquals(0, queue.getDropped());
+    }
+
+    @Test
+    void rejectsAndCountsPressesPastCapacity() {
+        InputQueue queue = new InputQueue(4);
+        Direction[] turns = {Direction.UP, Direction.LEFT, Direction.DOWN, Direction.RIGHT};
+        for (Direction turn : turns) {
+            assertTrue(queue.offer(turn, 0));
+        }
+        assertFalse(queue.offer(Direction.UP, 0));
+        assertEquals(1, queue.getDropped());
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(Direction.LEFT, 0));
+    }
+
+    @Test
+    void handsEveryPressAcrossThreads() throws InterruptedException {
+        int presses = 20_000;
+        InputQueue queue = new InputQueue(4);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < presses; i++) {
+                // Alternating keys are never repeats, so a refusal means the queue is full
+                Direction direction = i % 2 == 0 ? Direction.UP : Direction.LEFT;
+                while (!queue.offer(direction, i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.setDaemon(true);
+        producer.start();
+
+        for (int i = 0; i < presses; i++) {
+            while (queue.isEmpty()) {
+                Thread.yield();
+            }
+            assertEquals(i % 2 == 0 ? Direction.UP : Direction.LEFT, queue.peekDirection());
+            assertEquals(i, queue.peekTimestamp());
+            queue.remove();
+        }
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package com.snakegame;
+
+import com.snakegame.HighScoreManager.ScoreEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+    private static ScoreEntry entry(int score, long timestamp) {
+        return new ScoreEntry("p" + timestamp, score, Difficulty.MEDIUM, true, timestamp);
+    }
+
+    @Test
+    void tiesShareAPlaceAndListInArrivalOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(entry(40, 2));
+        leaderboard.add(entry(50, 1));
+        leaderboard.add(entry(40, 1));
+        leaderboard.add(entry(30, 3));
+
+        assertEquals(1, leaderboard.rank(Difficulty.MEDIUM, true, 50));
+        assertEquals(2, leaderboard.rank(Difficulty.MEDIUM, true, 40));
+        assertEquals(4, leaderboard.rank(Difficulty.MEDIUM, true, 30));
+        assertEquals(2, leaderboard.rank(Difficulty.MEDIUM, true, 45));
+        assertEquals(5, leaderboard.rank(Difficulty.MEDIUM, true, 0));
+        assertEquals(List.of(entry(50, 1), entry(40, 1), entry(40, 2)),
+                leaderboard.top(Difficulty.MEDIUM, true, 3));
+    }
+
+    @Test
+    void topPercentCountsTheScoreAsAdded() {
+        Leaderboard leaderboard = new Leaderboard();
+        for (int score = 1; score <= 99; score++) {
+            leaderboard.add(entry(score, score));
+        }
+        assertEquals(1.0, leaderboard.topPercent(Difficulty.MEDIUM, true, 100), 1e-9);
+        assertEquals(1.0, leaderboard.topPercent(Difficulty.MEDIUM, true, 99), 1e-9);
+        assertEquals(50.0, leaderboard.topPercent(Difficulty.MEDIUM, true, 50), 1e-9);
+        assertEquals(100.0, leaderboard.topPercent(Difficulty.MEDIUM, true, 0), 1e-9);
+        assertEquals(100.0, leaderboard.topPercent(Difficulty.EASY, true, 0), 1e-9);
+    }
+
+    @Test
+    void partitionsAreRankedSeparately() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(new ScoreEntry("a", 100, Difficulty.HARD, false, 1));
+        leaderboard.add(new ScoreEntry("b", 10, Difficulty.HARD, true, 2));
+        leaderboard.add(new ScoreEntry("c", 50, Difficulty.EASY, true, 3));
+
+        assertEquals(1, leaderboard.rank(Difficulty.HARD, true, 10));
+        assertEquals(2, leaderboard.rank(Difficulty.HARD, false, 10));
+        assertEquals(1, leaderboard.size(Difficulty.HARD, true));
+        assertEquals(3, leaderboard.size());
+        assertEquals(100, leaderboard.getHighScore());
+    }
+
+    @Test
+    void matchesASortedListAtScale() {
+        Random random = new Random(5);
+        Leaderboard leaderboard = new Leaderboard();
+        List<ScoreEntry> model = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ScoreEntry entry = entry(random.nextInt(1000), random.nextInt(50));
+            leaderboard.add(entry);
+            model.add(entry);
+        }
+        // A stable sort keeps equal entries in arrival order, as the leaderboard does
+        model.sort(Comparator.comparingInt(ScoreEntry::score).reversed()
+                .thenComparingLong(ScoreEntry::timestamp));
+
+        assertEquals(model.subList(0, 100), leaderboard.top(Difficulty.MEDIUM, true, 100));
+        assertEquals(model, leaderboard.entries());
+        for (int i = 0; i < 200; i++) {
+            int score = random.nextInt(1100) - 50;
+            long higher = model.stream().filter(entry -> entry.score() > score).count();
+            assertEquals(higher + 1, leaderboard.rank(Difficulty.MEDIUM, true, score), "score " + score);
+        }
+    }
+
+    @Test
+    void concurrentWritersLoseNothing() throws InterruptedException {
+        Leaderboard leaderboard = new Leaderboard();
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            Difficulty difficulty = Difficulty.values()[w % Difficulty.values().length];
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    leaderboard.add(new ScoreEntry("p", i, difficulty, i % 2 == 0, i));
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(20_000, leaderboard.size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelPipelineTest {
+    /** Walls {@code density} of the cells at random, leaving islands and pockets everywhere. */
+    private static LevelGenerator noise(double density) {
+        return (grid, random) -> {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int x = 0; x < grid.getWidth(); x++) {
+                    if (random.nextDouble() < density) grid.setWall(x, y);
+                }
+            }
+        };
+    }
+
+    private static int[] neighbours(LevelLayout layout, int cell, boolean wrap) {
+        int width = layout.getWidth();
+        int height = layout.getHeight();
+        int x = cell % width;
+        int y = cell / width;
+        int[][] steps = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+        int[] result = new int[4];
+        for (int i = 0; i < 4; i++) {
+            int nx = x + steps[i][0];
+            int ny = y + steps[i][1];
+            if (wrap) {
+                nx = Math.floorMod(nx, width);
+                ny = Math.floorMod(ny, height);
+            }
+            result[i] = nx < 0 || nx >= width || ny < 0 || ny >= height ? -1 : ny * width + nx;
+        }
+        return result;
+    }
+
+    /** Checks that every free cell reaches every other and has at least two ways out. */
+    private static void assertPlayable(LevelLayout layout, boolean wrap, String level) {
+        int cells = layout.getWidth() * layout.getHeight();
+        int free = cells - layout.getWallCount();
+        int start = -1;
+        for (int cell = 0; cell < cells; cell++) {
+            if (layout.isWall(cell)) continue;
+            if (start < 0) start = cell;
+            int open = 0;
+            for (int next : neighbours(layout, cell, wrap)) {
+                if (next >= 0 && !layout.isWall(next)) open++;
+            }
+            assertTrue(open >= 2, level + ": dead end at " + cell);
+        }
+        assertTrue(start >= 0, level + ": no free cells");
+
+        boolean[] seen = new boolean[cells];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        seen[start] = true;
+        int reached = 0;
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            reached++;
+            for (int next : neighbours(layout, cell, wrap)) {
+                if (next >= 0 && !seen[next] && !layout.isWall(next)) {
+                    seen[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+        assertEquals(free, reached, level + ": free cells cut off");
+    }
+
+    @Test
+    void everyGeneratorYieldsAConnectedLevelWithoutDeadEnds() {
+        LevelGenerator[] generators = {
+                LevelGenerator.scatter(0.2), LevelGenerator.maze(3), LevelGenerator.maze(1),
+                LevelGenerator.rooms(16), LevelGenerator.symmetric(LevelGenerator.scatter(0.1)),
+                noise(0.3), noise(0.6)
+        };
+        // The large board spans several tiles, so links and dead ends cross tile edges
+        int[][] sizes = {{30, 25}, {31, 17}, {300, 270}};
+        for (int g = 0; g < generators.length; g++) {
+            for (int[] size : sizes) {
+                for (boolean wrap : new boolean[]{false, true}) {
+                    int width = size[0];
+                    int height = size[1];
+                    int[] reserved = {height / 2 * width + width / 2, height / 2 * width + width / 2 - 1};
+                    LevelLayout layout = LevelPipeline.build(width, height, wrap, generators[g], reserved,
+                            new GameRandom(g * 31L + width));
+                    String level = "generator " + g + " on " + width + "x" + height + (wrap ? " wrapped" : "");
+                    assertPlayable(layout, wrap, level);
+                    for (int cell : reserved) {
+                        assertFalse(layout.isWall(cell), level + ": reserved cell " + cell);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void walledInReservedCellsAreDugOut() {
+        LevelGenerator solid = (grid, random) -> {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int x = 0; x < grid.getWidth(); x++) {
+                    grid.setWall(x, y);
+                }
+            }
+        };
+        int width = 40;
+        int[] reserved = {0, 39 * width + 39, 20 * width + 3};
+        LevelLayout layout = LevelPipeline.build(width, 40, false, solid, reserved, new GameRandom(1));
+        assertPlayable(layout, false, "solid");
+        for (int cell : reserved) {
+            assertFalse(layout.isWall(cell));
+        }
+    }
+
+    @Test
+    void sameSeedBuildsTheSameLevelOnAnyNumberOfThreads() throws Exception {
+        LevelLayout single = new ForkJoinPool(1).submit(() -> build(7)).get();
+        LevelLayout parallel = new ForkJoinPool(4).submit(() -> build(7)).get();
+        LevelLayout other = build(8);
+        boolean differs = false;
+        for (int cell = 0; cell < 600 * 500; cell++) {
+            assertEquals(single.isWall(cell), parallel.isWall(cell), "cell " + cell);
+            differs |= single.isWall(cell) != other.isWall(cell);
+        }
+        assertTrue(differs, "the seed made no difference");
+    }
+
+    private static LevelLayout build(long seed) {
+        return LevelPipeline.build(600, 500, true, LevelGenerator.rooms(16), new int[0], new GameRandom(seed));
+    }
+}
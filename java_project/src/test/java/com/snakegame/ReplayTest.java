@@ -0,0 +1,135 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    private static final int MAX_TICKS = 5000;
+
+    /** Heads for the food with a random turn now and then, so games include bad moves too. */
+    private static Direction decide(GameEngine engine, GameRandom random) {
+        if (random.nextInt(20) == 0) return Direction.values()[random.nextInt(4)];
+        Point food = engine.getFood().getPosition();
+        int dx = food.x - engine.getSnake().getHeadX();
+        int dy = food.y - engine.getSnake().getHeadY();
+        if (dx != 0) return dx > 0 ? Direction.RIGHT : Direction.LEFT;
+        if (dy != 0) return dy > 0 ? Direction.DOWN : Direction.UP;
+        return null;
+    }
+
+    private static Replay record(GameEngine engine, long seed) {
+        return record(engine, Replay.KEYFRAME_INTERVAL, seed);
+    }
+
+    private static Replay record(GameEngine engine, int keyframeInterval, long seed) {
+        Replay.Recorder recorder = new Replay.Recorder(engine, keyframeInterval);
+        GameRandom random = new GameRandom(seed);
+        while (!engine.isOver() && engine.getTick() < MAX_TICKS) {
+            Direction input = decide(engine, random);
+            engine.step(input);
+            recorder.record(input);
+        }
+        return recorder.finish();
+    }
+
+    /** Everything a player can see of the game. */
+    private static String state(GameEngine engine) {
+        StringBuilder state = new StringBuilder();
+        state.append(engine.getTick()).append(' ').append(engine.getScore()).append(' ')
+                .append(engine.isOver()).append(' ').append(engine.getFood().getPosition())
+                .append(engine.getFood().getType()).append(" snake");
+        Snake snake = engine.getSnake();
+        for (int i = 0; i < snake.getLength(); i++) {
+            state.append(' ').append(snake.getSegment(i));
+        }
+        return state.toString();
+    }
+
+    private static Replay copy(Replay replay) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        replay.write(out);
+        return Replay.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    void replayReproducesEveryGameBitForBit() throws IOException {
+        for (int game = 0; game < 16; game++) {
+            Difficulty difficulty = Difficulty.values()[game % Difficulty.values().length];
+            GameEngine engine = new GameEngine(20, 16, difficulty, game % 2 == 0, 1000 + game);
+            Replay replay = copy(record(engine, game));
+
+            GameEngine replayed = replay.run();
+            assertEquals(engine.getTick(), replay.getTickCount());
+            assertEquals(state(engine), state(replayed), "game " + game + " on " + difficulty);
+        }
+    }
+
+    @Test
+    void seekingReachesTheSameStateAsPlaying() throws IOException {
+        Replay replay = null;
+        for (long seed = 7; replay == null || replay.getKeyframeCount() < 4; seed++) {
+            replay = copy(record(new GameEngine(20, 16, Difficulty.MEDIUM, false, seed), 16, seed));
+        }
+
+        GameEngine reference = replay.newEngine();
+        Replay.Player player = replay.player();
+        String[] states = new String[(int) replay.getTickCount() + 1];
+        states[0] = state(reference);
+        while (player.hasNext()) {
+            reference.step(player.next());
+            states[(int) reference.getTick()] = state(reference);
+        }
+
+        // Mix single steps either way with long jumps across keyframes
+        Replay.Cursor cursor = replay.cursor();
+        GameRandom random = new GameRandom(11);
+        for (int i = 0; i < 300; i++) {
+            long tick = i % 3 == 0
+                    ? Math.max(0, Math.min(states.length - 1, cursor.getTick() + random.nextInt(3) - 1))
+                    : random.nextInt(states.length);
+            cursor.seek(tick);
+            assertEquals(tick, cursor.getTick());
+            assertEquals(states[(int) tick], state(cursor.getEngine()), "tick " + tick);
+        }
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        GameEngine a = new GameEngine(30, 25, Difficulty.MEDIUM, true, 77);
+        GameEngine b = new GameEngine(30, 25, Difficulty.MEDIUM, true, 77);
+        record(a, 5);
+        record(b, 5);
+        assertEquals(state(a), state(b));
+    }
+
+    @Test
+    void savedReplayLoadsUnchanged(@TempDir Path directory) throws IOException {
+        GameEngine engine = new GameEngine(30, 25, Difficulty.HARD, true, 42);
+        Replay replay = record(engine, 1);
+        Path path = directory.resolve("game.replay");
+        replay.save(path);
+
+        Replay loaded = Replay.load(path);
+        assertEquals(replay.getSeed(), loaded.getSeed());
+        assertEquals(replay.getTickCount(), loaded.getTickCount());
+        assertEquals(state(engine), state(loaded.run()));
+    }
+
+    @Test
+    void otherVersionsAreRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        record(new GameEngine(20, 16, Difficulty.EASY, false, 5), 2).write(out);
+        byte[] data = out.toByteArray();
+        // The version before keyframes still loads, so go forwards
+        data[4]++;
+        assertThrows(IOException.class, () -> Replay.read(new ByteArrayInputStream(data)));
+    }
+}
@@ -0,0 +1,213 @@
+package com.snakegame;
+
+import com.snakegame.HighScoreManager.ScoreEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreJournalTest {
+    private static final int ENTRIES = 600;
+
+    @TempDir
+    Path directory;
+
+    private static ScoreEntry entry(int i) {
+        return new ScoreEntry("player" + i, i, Difficulty.values()[i % 4], i % 2 == 0, i);
+    }
+
+    /** Writes {@value #ENTRIES} entries to a new journal and returns its bytes. */
+    private byte[] writeJournal(Path path) throws IOException {
+        ScoreJournal journal = new ScoreJournal(path);
+        journal.open(entry -> { });
+        for (int i = 0; i < ENTRIES; i++) {
+            journal.append(entry(i));
+        }
+        journal.close();
+        return Files.readAllBytes(path);
+    }
+
+    private static List<ScoreEntry> read(Path path) throws IOException {
+        List<ScoreEntry> entries = new ArrayList<>();
+        ScoreJournal journal = new ScoreJournal(path);
+        journal.open(entries::add);
+        journal.close();
+        return entries;
+    }
+
+    @Test
+    void entriesSurviveReopening() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        writeJournal(path);
+
+        List<ScoreEntry> entries = read(path);
+        assertEquals(ENTRIES, entries.size());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(entry(i), entries.get(i));
+        }
+    }
+
+    @Test
+    void tornTailIsCutOffAndAppendsFollowTheLastIntactRecord() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        byte[] data = writeJournal(path);
+        Files.write(path, Arrays.copyOf(data, data.length - 3));
+
+        List<ScoreEntry> entries = new ArrayList<>();
+        ScoreJournal journal = new ScoreJournal(path);
+        journal.open(entries::add);
+        journal.append(entry(ENTRIES));
+        journal.close();
+
+        assertEquals(ENTRIES - 1, entries.size());
+        List<ScoreEntry> reopened = read(path);
+        assertEquals(ENTRIES, reopened.size());
+        assertEquals(entry(ENTRIES), reopened.get(ENTRIES - 1));
+    }
+
+    @Test
+    void damagedRecordCostsOnlyItself() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        byte[] data = writeJournal(path);
+        data[data.length / 2] ^= 0x40;
+        Files.write(path, data);
+
+        List<ScoreEntry> entries = new ArrayList<>();
+        ScoreJournal journal = new ScoreJournal(path);
+        journal.open(entries::add);
+        journal.append(entry(ENTRIES));
+        journal.close();
+
+        assertEquals(ENTRIES - 1, entries.size());
+        assertEquals(entry(0), entries.get(0));
+        assertEquals(entry(ENTRIES - 1), entries.get(ENTRIES - 2));
+        assertEquals(ENTRIES, read(path).size());
+    }
+
+    @Test
+    void recordsAreFoundAcrossBufferRefills() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        ScoreJournal journal = new ScoreJournal(path);
+        journal.open(entry -> { });
+        // Long names make the file many times the read buffer
+        String name = "x".repeat(1000);
+        for (int i = 0; i < 2000; i++) {
+            journal.append(new ScoreEntry(name + i, i, Difficulty.EASY, true, i));
+        }
+        journal.close();
+        byte[] data = Files.readAllBytes(path);
+        for (int at = 1000; at < data.length; at += data.length / 7) {
+            data[at] ^= 0x40;
+        }
+        Files.write(path, data);
+
+        List<ScoreEntry> entries = read(path);
+        assertEquals(2000 - 7, entries.size());
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i).score() > entries.get(i - 1).score());
+        }
+        assertEquals(2000 - 1, entries.get(entries.size() - 1).score());
+    }
+
+    @Test
+    void compactionKeepsOnlyRetainedEntries() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        ScoreJournal journal = new ScoreJournal(path, entry -> entry.score() % 10 == 0, 100);
+        journal.open(entry -> { });
+        for (int i = 0; i < ENTRIES; i++) {
+            journal.append(entry(i));
+        }
+        journal.close();
+
+        List<ScoreEntry> entries = read(path);
+        // Fewer than 100 were appended after the last compaction, so at least 500 went through it
+        assertTrue(entries.size() < ENTRIES / 10 + 100, entries.size() + " entries");
+        for (ScoreEntry entry : entries.subList(0, ENTRIES / 10 - 10)) {
+            assertEquals(0, entry.score() % 10);
+        }
+        assertEquals(ENTRIES / 10, entries.stream().filter(entry -> entry.score() % 10 == 0).count());
+    }
+
+    @Test
+    void damagedRegionsAreDroppedByCompaction() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        byte[] data = writeJournal(path);
+        data[data.length / 2] ^= 0x40;
+        Files.write(path, data);
+
+        List<ScoreEntry> entries = new ArrayList<>();
+        ScoreJournal journal = new ScoreJournal(path, entry -> true, 10);
+        journal.open(entries::add);
+        for (int i = ENTRIES; i < ENTRIES + 10; i++) {
+            journal.append(entry(i));
+            entries.add(entry(i));
+        }
+        journal.close();
+
+        // Keeping everything, the file still ends up as if the damaged record had never been written
+        Path clean = directory.resolve("clean.journal");
+        ScoreJournal reference = new ScoreJournal(clean);
+        reference.open(entry -> { });
+        entries.forEach(reference::append);
+        reference.close();
+        assertEquals(ENTRIES + 9, entries.size());
+        assertArrayEquals(Files.readAllBytes(clean), Files.readAllBytes(path));
+    }
+
+    @Test
+    void unreadableFileIsMovedAsideUntouched() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        byte[] data = writeJournal(path);
+        data[4] = 99;
+        Files.write(path, data);
+
+        ScoreJournal journal = new ScoreJournal(path);
+        List<ScoreEntry> entries = new ArrayList<>();
+        journal.open(entries::add);
+        journal.close();
+
+        assertTrue(entries.isEmpty());
+        assertNotNull(journal.getSetAside());
+        assertArrayEquals(data, Files.readAllBytes(journal.getSetAside()));
+        assertTrue(read(path).isEmpty());
+    }
+
+    @Test
+    void versionOneFileIsUpgraded() throws IOException {
+        Path path = directory.resolve("scores.journal");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x534e4b4a);
+        out.writeByte(1);
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(payload);
+            record.writeLong(i);
+            record.writeInt(i * 10);
+            record.writeByte(Difficulty.MEDIUM.ordinal());
+            record.writeUTF("old" + i);
+            CRC32 crc = new CRC32();
+            crc.update(payload.toByteArray());
+            out.writeInt(payload.size());
+            out.writeInt((int) crc.getValue());
+            out.write(payload.toByteArray());
+        }
+        Files.write(path, bytes.toByteArray());
+
+        List<ScoreEntry> entries = read(path);
+        assertEquals(3, entries.size());
+        assertEquals(new ScoreEntry("old2", 20, Difficulty.MEDIUM, true, 2), entries.get(2));
+        assertEquals(2, Files.readAllBytes(path)[4]);
+        assertEquals(entries, read(path));
+    }
+}
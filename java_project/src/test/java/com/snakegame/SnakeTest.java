@@ -0,0 +1,172 @@
+package com.snakegame;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SnakeTest {
+    private static final int WIDTH = 1000;
+
+    /** Cells of {@code snake}, head first. */
+    private static List<Integer> cells(Snake snake) {
+        List<Integer> cells = new ArrayList<>();
+        for (int i = 0; i < snake.getLength(); i++) {
+            cells.add(snake.getSegment(i));
+        }
+        return cells;
+    }
+
+    @Test
+    void startsThreeLongFacingRight() {
+        Snake snake = new Snake(10, 4, WIDTH);
+        assertEquals(List.of(4 * WIDTH + 10, 4 * WIDTH + 9, 4 * WIDTH + 8), cells(snake));
+        assertEquals(Direction.RIGHT, snake.getDirection());
+    }
+
+    @Test
+    void movesMatchADequeModelThroughGrowthAndResizes() {
+        Random random = new Random(3);
+        Snake snake = new Snake(10, 10, WIDTH);
+        ArrayDeque<Integer> model = new ArrayDeque<>(cells(snake));
+        int growth = 0;
+
+        for (int step = 0; step < 20_000; step++) {
+            if (random.nextInt(100) < 4) {
+                int amount = 1 + random.nextInt(20);
+                snake.grow(amount);
+                growth += amount;
+            } else {
+                int cell = random.nextInt(WIDTH * WIDTH);
+                model.addFirst(cell);
+                int expectedTail = growth > 0 ? -1 : model.removeLast();
+                if (growth > 0) growth--;
+                assertEquals(expectedTail, snake.move(cell));
+            }
+            assertEquals(model.size(), snake.getLength());
+            assertEquals(model.peekFirst(), snake.getHeadCell());
+        }
+        assertEquals(new ArrayList<>(model), cells(snake));
+    }
+
+    @Test
+    void forksMoveIndependently() {
+        GameRandom random = new GameRandom(3);
+        List<Snake> snakes = new ArrayList<>();
+        List<ArrayDeque<Integer>> models = new ArrayList<>();
+        snakes.add(new Snake(10, 10, WIDTH));
+        models.add(new ArrayDeque<>(cells(snakes.get(0))));
+        int[] growth = new int[64];
+
+        for (int step = 0; step < 20_000; step++) {
+            int index = random.nextInt(snakes.size());
+            Snake snake = snakes.get(index);
+            ArrayDeque<Integer> model = models.get(index);
+            int choice = random.nextInt(100);
+            if (choice < 2 && snakes.size() < growth.length) {
+                snakes.add(snake.fork());
+                models.add(new ArrayDeque<>(model));
+                growth[snakes.size() - 1] = growth[index];
+            } else if (choice < 6) {
+                int amount = 1 + random.nextInt(20);
+                snake.grow(amount);
+                growth[index] += amount;
+            } else if (choice < 7 && model.size() > 3) {
+                int amount = random.nextInt(model.size() - 1);
+                snake.shrink(amount);
+                for (int i = 0; i < amount; i++) model.removeLast();
+            } else {
+                int cell = random.nextInt(WIDTH * WIDTH);
+                model.addFirst(cell);
+                int expectedTail = growth[index] > 0 ? -1 : model.removeLast();
+                if (growth[index] > 0) growth[index]--;
+                assertEquals(expectedTail, snake.move(cell));
+            }
+            assertEquals(new ArrayList<>(model), cells(snake), "step " + step);
+        }
+        for (int i = 0; i < snakes.size(); i++) {
+            assertEquals(new ArrayList<>(models.get(i)), cells(snakes.get(i)));
+        }
+    }
+
+    @Test
+    void reversingIsIgnored() {
+        Snake snake = new Snake(10, 10, WIDTH);
+        snake.setDirection(Direction.LEFT);
+        snake.setDirection(null);
+        assertEquals(Direction.RIGHT, snake.turn());
+
+        snake.setDirection(Direction.UP);
+        assertEquals(Direction.UP, snake.turn());
+        snake.setDirection(Direction.DOWN);
+        assertEquals(Direction.UP, snake.turn());
+    }
+
+    @Test
+    void turnsAreCheckedAgainstTheLastMoveNotAnEarlierPendingTurn() {
+        Snake snake = new Snake(10, 10, WIDTH);
+        snake.setDirection(Direction.UP);
+        // LEFT reverses the last move, RIGHT; that it would be a legal turn after UP does not matter
+        snake.setDirection(Direction.LEFT);
+        assertEquals(Direction.UP, snake.turn());
+
+        snake.setDirection(Direction.LEFT);
+        snake.setDirection(Direction.RIGHT);
+        assertEquals(Direction.RIGHT, snake.turn());
+    }
+
+    @Test
+    void onlyNewPerpendicularDirectionsAreTurns() {
+        Snake snake = new Snake(10, 10, WIDTH);
+        assertTrue(snake.canTurn(Direction.UP));
+        assertTrue(snake.canTurn(Direction.DOWN));
+        assertFalse(snake.canTurn(Direction.RIGHT));
+        assertFalse(snake.canTurn(Direction.LEFT));
+
+        snake.setDirection(Direction.UP);
+        // Judged against the last move until the turn is taken
+        assertTrue(snake.canTurn(Direction.UP));
+        snake.turn();
+        assertFalse(snake.canTurn(Direction.UP));
+        assertTrue(snake.canTurn(Direction.LEFT));
+    }
+
+    @Test
+    void detectsRunningIntoItself() {
+        Snake snake = new Snake(10, 10, WIDTH);
+        snake.grow(2);
+        snake.move(9 * WIDTH + 10);
+        snake.move(9 * WIDTH + 9);
+        assertFalse(snake.collidesWithSelf());
+        snake.move(10 * WIDTH + 9);
+        assertTrue(snake.collidesWithSelf());
+    }
+
+    @Test
+    void movingDoesNotAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "allocation counting unavailable");
+        for (int length : new int[]{3, 500}) {
+            Snake snake = new Snake(10, 10, WIDTH);
+            snake.grow(length - 3);
+            for (int i = 0; i < 10_000; i++) {
+                snake.move(i % (WIDTH * WIDTH));
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 100_000; i++) {
+                snake.move(i % (WIDTH * WIDTH));
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            assertEquals(length, snake.getLength());
+            assertTrue(allocated < 1024, allocated + " bytes for 100,000 moves at length " + length);
+        }
+    }
+}
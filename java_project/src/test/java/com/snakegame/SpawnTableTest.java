@@ -0,0 +1,92 @@
+package com.snakegame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpawnTableTest {
+    private static final int DRAWS = 200_000;
+
+    private static SpawnTable table(String... entries) {
+        Properties properties = new Properties();
+        for (int i = 0; i < entries.length; i += 2) {
+            properties.setProperty(entries[i], entries[i + 1]);
+        }
+        return SpawnTable.parse(properties);
+    }
+
+    /** Draws {@value #DRAWS} types and checks each share is within four standard deviations of its weight. */
+    private static void assertDrawsFollow(Map<PowerUpType, Double> weights, SpawnTable table,
+                                          Difficulty difficulty, int score, long seed) {
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        Map<PowerUpType, Integer> counts = new EnumMap<>(PowerUpType.class);
+        GameRandom random = new GameRandom(seed);
+        for (int i = 0; i < DRAWS; i++) {
+            counts.merge(table.pick(difficulty, score, random), 1, Integer::sum);
+        }
+        for (PowerUpType type : PowerUpType.values()) {
+            double p = weights.getOrDefault(type, 0.0) / total;
+            int count = counts.getOrDefault(type, 0);
+            if (p == 0) {
+                assertEquals(0, count, type + " has no weight");
+                continue;
+            }
+            double sigma = Math.sqrt(DRAWS * p * (1 - p));
+            assertEquals(DRAWS * p, count, 4 * sigma + 1, type + " at " + difficulty + " score " + score);
+        }
+    }
+
+    @Test
+    void everyBandDrawsInProportionToItsWeights() {
+        SpawnTable table = table(
+                "default.0", "FOOD 1",
+                "default.50", "FOOD 60, GOLDEN 30, GROW 9.5, INVINCIBILITY 0.5",
+                "hard.0", "FOOD 1, SPEED_BOOST 1, DOUBLE_POINTS 1",
+                "hard.10", "FOOD 97, GOLDEN 3");
+
+        assertDrawsFollow(Map.of(PowerUpType.FOOD, 1.0), table, Difficulty.EASY, 49, 1);
+        assertDrawsFollow(Map.of(PowerUpType.FOOD, 60.0, PowerUpType.GOLDEN, 30.0, PowerUpType.GROW, 9.5,
+                PowerUpType.INVINCIBILITY, 0.5), table, Difficulty.MEDIUM, 50, 2);
+        assertDrawsFollow(Map.of(PowerUpType.FOOD, 1.0, PowerUpType.SPEED_BOOST, 1.0,
+                PowerUpType.DOUBLE_POINTS, 1.0), table, Difficulty.HARD, 9, 3);
+        assertDrawsFollow(Map.of(PowerUpType.FOOD, 97.0, PowerUpType.GOLDEN, 3.0),
+                table, Difficulty.HARD, 1_000_000, 4);
+    }
+
+    @Test
+    void shippedTableDrawsWhatItDeclares() {
+        SpawnTable table = SpawnTable.getDefault();
+        for (Difficulty difficulty : Difficulty.values()) {
+            for (int score : new int[]{0, 150, 250, 400, 700, 5000}) {
+                Map<PowerUpType, Double> chances = table.getChances(difficulty, score);
+                assertEquals(1.0, chances.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+                assertDrawsFollow(chances, table, difficulty, score, score + difficulty.ordinal());
+            }
+        }
+    }
+
+    @Test
+    void bandsStartAtTheirScore() {
+        SpawnTable table = SpawnTable.getDefault();
+        assertEquals(Map.of(PowerUpType.FOOD, 1.0), table.getChances(Difficulty.MEDIUM, 199));
+        assertEquals(0.15, table.getChances(Difficulty.MEDIUM, 200).get(PowerUpType.SPEED_BOOST), 1e-9);
+        // Easy has its own bands, so the default band at 200 does not apply
+        assertNull(table.getChances(Difficulty.EASY, 200).get(PowerUpType.SPEED_BOOST));
+        assertEquals(0.10, table.getChances(Difficulty.EASY, 100).get(PowerUpType.GOLDEN), 1e-9);
+    }
+
+    @Test
+    void malformedTablesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> table("default.10", "FOOD 1"));
+        assertThrows(IllegalArgumentException.class, () -> table("default.0", "FOOD -1"));
+        assertThrows(IllegalArgumentException.class, () -> table("default.0", "FOOD"));
+        assertThrows(IllegalArgumentException.class, () -> table("default.0", "FOOD 0"));
+        assertThrows(IllegalArgumentException.class, () -> table("default.0", "PIZZA 1"));
+        assertThrows(IllegalArgumentException.class, () -> table("nightmare.0", "FOOD 1"));
+        assertThrows(IllegalArgumentException.class, () -> table("medium.0", "FOOD 1"));
+    }
+}
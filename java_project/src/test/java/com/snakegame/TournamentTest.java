@@ -0,0 +1,168 @@
+package com.snakegame;
+
+import com.snakegame.Tournament.Entrant;
+import com.snakegame.Tournament.Forfeit;
+import com.snakegame.Tournament.GameResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentTest {
+    private static final int BOARDS = 3;
+    private static final long BUDGET_NANOS = 20_000_000L;
+
+    /** Lets bots stuck in {@link #stuckFrom} go once the test is over. */
+    private static volatile boolean released;
+
+    @AfterEach
+    void release() {
+        released = true;
+    }
+
+    /** Plays greedily until {@code tick}, then never returns, ignoring interrupts. */
+    private static Controller stuckFrom(long tick) {
+        return engine -> {
+            while (engine.getTick() >= tick && !released) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    // A stuck bot takes no notice
+                }
+            }
+            return new GreedyController().decide(engine);
+        };
+    }
+
+    private static Tournament play(Entrant... entrants) {
+        return play(2, entrants);
+    }
+
+    private static Tournament play(int threads, Entrant... entrants) {
+        released = false;
+        Tournament tournament = new Tournament(List.of(entrants), 20, 16, Difficulty.MEDIUM, true,
+                BOARDS, 9, 200, BUDGET_NANOS, threads);
+        tournament.play();
+        return tournament;
+    }
+
+    @Test
+    void misbehavingBotsForfeitAndTheRestPlayOut() {
+        Controller crash = engine -> {
+            if (engine.getTick() == 5) throw new IllegalStateException("bot bug");
+            return new GreedyController().decide(engine);
+        };
+        Controller spin = engine -> {
+            if (engine.getTick() < 3) return null;
+            long until = System.nanoTime() + 5 * BUDGET_NANOS;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            return null;
+        };
+        // Moves get a fork, so playing ahead on it must not change the real game
+        Controller tamper = engine -> {
+            Direction input = new GreedyController().decide(engine);
+            engine.step(Direction.UP);
+            engine.step(Direction.LEFT);
+            return input;
+        };
+        Tournament tournament = play(
+                new Entrant("greedy", GreedyController::new),
+                new Entrant("crash", () -> crash),
+                new Entrant("spin", () -> spin),
+                new Entrant("stuck", () -> stuckFrom(2)),
+                new Entrant("tamper", () -> tamper));
+
+        for (int board = 0; board < BOARDS; board++) {
+            GameResult greedy = tournament.getResult(0, board);
+            assertNull(greedy.forfeit());
+            assertEquals(greedy.score(), tournament.getResult(4, board).score(), "board " + board);
+            assertNull(tournament.getResult(4, board).forfeit());
+
+            GameResult crashed = tournament.getResult(1, board);
+            if (crashed.ticks() >= 5) assertEquals(Forfeit.CRASH, crashed.forfeit());
+            assertEquals(Forfeit.TIMEOUT, tournament.getResult(2, board).forfeit());
+            assertEquals(Forfeit.TIMEOUT, tournament.getResult(3, board).forfeit());
+        }
+        assertEquals(BOARDS, tournament.getForfeits(2));
+        assertEquals(BOARDS, tournament.getForfeits(3));
+        assertTrue(tournament.getSlowestMoveNanos(0) <= BUDGET_NANOS);
+
+        tournament.roundRobin();
+        assertEquals(Set.of(0, 4), Set.copyOf(tournament.getRanking().subList(0, 2)));
+        // Greedy and tamper play the same games, so they draw
+        assertEquals(tournament.getPoints(0), tournament.getPoints(4));
+        assertEquals(10, tournament.getMatches().size());
+    }
+
+    @Test
+    void botPlaysAgainOnceItsStuckThreadComesBack() {
+        CountDownLatch back = new CountDownLatch(1);
+        AtomicInteger sticky = new AtomicInteger();
+        // Its first game hangs until the watchdog gives up on it
+        Supplier<Controller> hangsOnce = () -> sticky.getAndIncrement() > 0 ? new GreedyController() : engine -> {
+            try {
+                if (engine.getTick() == 2) Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                back.countDown();
+            }
+            return null;
+        };
+        AtomicInteger waiting = new AtomicInteger();
+        // On the one thread the watchdog adds, holds up the queue until the stuck thread is free
+        Supplier<Controller> waits = () -> waiting.getAndIncrement() > 0 ? new GreedyController() : engine -> {
+            try {
+                if (engine.getTick() == 0) {
+                    back.await();
+                    Thread.sleep(20);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new GreedyController().decide(engine);
+        };
+        Tournament tournament = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> play(1, new Entrant("sticky", hangsOnce), new Entrant("waits", waits)));
+
+        assertEquals(Forfeit.TIMEOUT, tournament.getResult(0, 0).forfeit());
+        for (int board = 1; board < BOARDS; board++) {
+            assertNull(tournament.getResult(0, board).forfeit(), "board " + board);
+        }
+        for (int board = 0; board < BOARDS; board++) {
+            assertNull(tournament.getResult(1, board).forfeit(), "board " + board);
+        }
+    }
+
+    @Test
+    void gameThatCannotBeSetUpFailsTheRun() {
+        Tournament tournament = new Tournament(List.of(new Entrant("greedy", GreedyController::new)),
+                -1, 16, Difficulty.MEDIUM, true, BOARDS, 9, 200, BUDGET_NANOS, 2);
+        CompletionException failure = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(CompletionException.class, tournament::play));
+        assertNotNull(failure.getCause());
+    }
+
+    @Test
+    void everyoneSitsOutOnceInOddSwissRounds() {
+        Tournament tournament = play(
+                new Entrant("a", GreedyController::new),
+                new Entrant("b", GreedyController::new),
+                new Entrant("c", () -> stuckFrom(0)));
+        tournament.swiss(3);
+        assertEquals(Set.of(0, 1, 2), tournament.getMatches().stream()
+                .filter(match -> match.second() < 0)
+                .map(Tournament.Match::first)
+                .collect(Collectors.toSet()));
+        assertEquals(Forfeit.TIMEOUT, tournament.getResult(2, 0).forfeit());
+    }
+}
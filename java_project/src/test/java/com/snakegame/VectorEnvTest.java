@@ -0,0 +1,182 @@
+package com.snakegame;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VectorEnvTest {
+    private static final int WIDTH = 12;
+    private static final int HEIGHT = 10;
+
+    /** What the observation of {@code game} should hold, built from scratch. */
+    private static float[] expected(GameEngine game) {
+        int cells = WIDTH * HEIGHT;
+        float[] observation = new float[VectorEnv.observationSize(WIDTH, HEIGHT)];
+        Snake snake = game.getSnake();
+        observation[VectorEnv.HEAD * cells + snake.getHeadCell()] = 1;
+        for (int i = 1; i < snake.getLength(); i++) {
+            observation[VectorEnv.BODY * cells + snake.getSegment(i)] = 1;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (game.getLayout().isWall(cell)) observation[VectorEnv.WALL * cells + cell] = 1;
+        }
+        if (game.getFood() != null) {
+            observation[VectorEnv.foodPlane(game.getFood().getType()) * cells + game.getFoodCell()] = 1;
+        }
+        int at = (VectorEnv.foodPlane(PowerUpType.values()[0]) + PowerUpType.values().length) * cells;
+        for (EffectType type : EffectType.values()) {
+            long expiresAt = game.getEffects().getExpiresAt(type);
+            observation[at + type.ordinal()] = expiresAt == 0 ? 0 : expiresAt - game.getTick();
+        }
+        return observation;
+    }
+
+    private static float[] observation(FloatBuffer buffer, int env, int stride) {
+        float[] observation = new float[stride];
+        buffer.get(env * stride, observation);
+        return observation;
+    }
+
+    @Test
+    void observationsMatchTheGamesAfterEveryStep() {
+        int envCount = 8;
+        FloatBuffer buffer = VectorEnv.allocateObservations(envCount, WIDTH, HEIGHT);
+        try (VectorEnv env = new VectorEnv(envCount, WIDTH, HEIGHT, Difficulty.EXTREME, false, 5, buffer)) {
+            env.setMaxTicks(20);
+            env.setDeathReward(-7);
+            int stride = env.getObservationSize();
+            Random random = new Random(5);
+            int[] actions = new int[envCount];
+            float[] rewards = new float[envCount];
+            boolean[] dones = new boolean[envCount];
+            int deaths = 0;
+            int truncations = 0;
+
+            for (int i = 0; i < envCount; i++) {
+                assertArrayEquals(expected(env.getGame(i)), observation(buffer, i, stride), "initial game " + i);
+            }
+            for (int step = 0; step < 5000; step++) {
+                int[] scores = new int[envCount];
+                for (int i = 0; i < envCount; i++) {
+                    actions[i] = random.nextInt(5) + VectorEnv.STRAIGHT;
+                    scores[i] = env.getGame(i).getScore();
+                }
+                env.step(actions, rewards, dones);
+                for (int i = 0; i < envCount; i++) {
+                    GameEngine game = env.getGame(i);
+                    if (dones[i]) {
+                        assertEquals(0, game.getTick(), "game " + i + " was not reset");
+                        assertEquals(0, game.getScore());
+                        if (env.isTruncated(i)) {
+                            truncations++;
+                            assertEquals(20, env.getEpisodeTicks(i));
+                            assertEquals(env.getEpisodeScore(i) - scores[i], rewards[i]);
+                        } else {
+                            deaths++;
+                            assertEquals(-7, rewards[i]);
+                        }
+                    } else {
+                        assertEquals(game.getScore() - scores[i], rewards[i]);
+                    }
+                    assertArrayEquals(expected(game), observation(buffer, i, stride), "game " + i + " step " + step);
+                }
+            }
+            assertTrue(deaths > 0 && truncations > 0, deaths + " deaths, " + truncations + " truncations");
+        }
+    }
+
+    @Test
+    void resetGamesFollowTheirOwnSeedStream() {
+        int[] actions = new int[4];
+        Arrays.fill(actions, Direction.UP.ordinal());
+        float[] rewards = new float[4];
+        boolean[] dones = new boolean[4];
+        long[] first = new long[4];
+        try (VectorEnv env = new VectorEnv(4, WIDTH, HEIGHT, Difficulty.EASY, true, 9,
+                VectorEnv.allocateObservations(4, WIDTH, HEIGHT))) {
+            for (int i = 0; i < 4; i++) {
+                first[i] = env.getGame(i).getSeed();
+            }
+            // Heading straight up hits the top wall well within a board's height
+            for (int step = 0; step < HEIGHT && !dones[0]; step++) {
+                env.step(actions, rewards, dones);
+            }
+            for (int i = 0; i < 4; i++) {
+                assertTrue(dones[i]);
+                assertNotEquals(first[i], env.getGame(i).getSeed());
+            }
+        }
+        assertEquals(4, Arrays.stream(first).distinct().count(), "games share a seed");
+    }
+
+    @Test
+    void resultsDoNotDependOnThreadCount() {
+        // Enough games that four threads each get a share of the batch
+        assertArrayEquals(run(300, 1), run(300, 4));
+    }
+
+    private static float[] run(int envCount, int threads) {
+        FloatBuffer buffer = VectorEnv.allocateObservations(envCount, WIDTH, HEIGHT);
+        Random random = new Random(3);
+        int[] actions = new int[envCount];
+        float[] rewards = new float[envCount];
+        float[] total = new float[envCount];
+        boolean[] dones = new boolean[envCount];
+        try (VectorEnv env = new VectorEnv(envCount, WIDTH, HEIGHT, Difficulty.HARD, false, 3, buffer, threads)) {
+            for (int step = 0; step < 200; step++) {
+                for (int i = 0; i < envCount; i++) {
+                    actions[i] = random.nextInt(5) + VectorEnv.STRAIGHT;
+                }
+                env.step(actions, rewards, dones);
+                for (int i = 0; i < envCount; i++) {
+                    total[i] += rewards[i];
+                }
+            }
+        }
+        float[] result = Arrays.copyOf(total, envCount + buffer.capacity());
+        buffer.get(0, result, envCount, buffer.capacity());
+        return result;
+    }
+
+    @Test
+    void resetGameMatchesAFreshOneAndReusesItsArrays() {
+        int width = 200;
+        int height = 150;
+        GameEngine game = new GameEngine(width, height, Difficulty.HARD, false, 1);
+        for (long seed = 2; seed < 6; seed++) {
+            for (int step = 0; step < 50; step++) {
+                game.step(step % 7 == 0 ? Direction.DOWN : Direction.RIGHT);
+            }
+            game.reset(seed);
+            assertArrayEquals(new GameEngine(width, height, Difficulty.HARD, false, seed).snapshot().encode(),
+                    game.snapshot().encode(), "seed " + seed);
+        }
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "allocation counting unavailable");
+        // The snapshots above shared the board, so the first reset copies it once more
+        game.reset(99);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 20; i++) {
+            game.reset(100 + i);
+        }
+        long perReset = (threads.getCurrentThreadAllocatedBytes() - before) / 20;
+        // A fresh board and level scratch would be several bytes per cell
+        assertTrue(perReset < width * height / 4, perReset + " bytes per reset");
+    }
+
+    @Test
+    void smallBufferIsRejected() {
+        FloatBuffer buffer = VectorEnv.allocateObservations(2, WIDTH, HEIGHT);
+        assertThrows(IllegalArgumentException.class,
+                () -> new VectorEnv(3, WIDTH, HEIGHT, Difficulty.EASY, true, 1, buffer));
+    }
+}